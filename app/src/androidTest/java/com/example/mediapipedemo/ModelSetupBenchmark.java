@@ -0,0 +1,97 @@
+package com.example.mediapipedemo;
+
+import android.content.Context;
+import android.os.Debug;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.google.mediapipe.tasks.core.BaseOptions;
+import com.google.mediapipe.tasks.vision.core.RunningMode;
+import com.google.mediapipe.tasks.vision.objectdetector.ObjectDetector;
+import com.google.mediapipe.tasks.vision.poselandmarker.PoseLandmarker;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Detector setup time and process PSS with the models loaded by asset path,
+ * as the helpers did before {@link ModelAssetCache}, and through the cache.
+ *
+ * Each round creates both detectors, as one activity start does, measures, and
+ * closes them again; later rounds stand for activity recreations. The two
+ * ways must be measured in separate processes, since the cache keeps its
+ * mappings for the life of the process:
+ *
+ * <pre>
+ * ./gradlew :app:connectedAndroidTest -Pandroid.testInstrumentationRunnerArguments.class=\
+ *         com.example.mediapipedemo.ModelSetupBenchmark#assetPath
+ * ./gradlew :app:connectedAndroidTest -Pandroid.testInstrumentationRunnerArguments.class=\
+ *         com.example.mediapipedemo.ModelSetupBenchmark#assetCache
+ * adb logcat -d -s ModelSetupBenchmark
+ * </pre>
+ */
+@RunWith(AndroidJUnit4.class)
+public class ModelSetupBenchmark {
+    private static final String TAG = "ModelSetupBenchmark";
+    private static final String POSE_MODEL = "pose_landmarker.task";
+    private static final String OBJECT_MODEL = "efficientdet_lite0.tflite";
+    private static final int ROUNDS = 5;
+
+    private interface Loader {
+        BaseOptions options(Context context, String assetPath) throws IOException;
+    }
+
+    @Test
+    public void assetPath() throws IOException {
+        run("asset path", (context, assetPath) -> BaseOptions.builder().setModelAssetPath(assetPath).build());
+    }
+
+    @Test
+    public void assetCache() throws IOException {
+        run("asset cache", (context, assetPath) -> BaseOptions.builder()
+                .setModelAssetBuffer(ModelAssetCache.get(context, assetPath))
+                .build());
+    }
+
+    private static void run(String name, Loader loader) throws IOException {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        long pssBeforeKb = Debug.getPss();
+        long firstMs = 0;
+        long laterMs = 0;
+        long peakPssKb = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = SystemClock.uptimeMillis();
+            PoseLandmarker pose = PoseLandmarker.createFromOptions(context,
+                    PoseLandmarker.PoseLandmarkerOptions.builder()
+                            .setBaseOptions(loader.options(context, POSE_MODEL))
+                            .setRunningMode(RunningMode.IMAGE)
+                            .build());
+            ObjectDetector objects = ObjectDetector.createFromOptions(context,
+                    ObjectDetector.ObjectDetectorOptions.builder()
+                            .setBaseOptions(loader.options(context, OBJECT_MODEL))
+                            .setRunningMode(RunningMode.IMAGE)
+                            .build());
+            long setupMs = SystemClock.uptimeMillis() - start;
+            long pssKb = Debug.getPss();
+            pose.close();
+            objects.close();
+
+            if (round == 0) {
+                firstMs = setupMs;
+            } else {
+                laterMs += setupMs;
+            }
+            peakPssKb = Math.max(peakPssKb, pssKb);
+            Log.i(TAG, String.format(Locale.US, "%s round %d: setup %d ms, PSS %d KB", name, round, setupMs, pssKb));
+        }
+        Log.i(TAG, String.format(Locale.US,
+                "%s: first setup %d ms, later setups %.1f ms on average, PSS %d KB before, %d KB at peak (+%d KB)",
+                name, firstMs, (double) laterMs / (ROUNDS - 1), pssBeforeKb, peakPssKb, peakPssKb - pssBeforeKb));
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.mediapipedemo;
+
+/**
+ * Copies a {@link FusedSnapshot} into a reusable {@link ActionFrame}. The
+ * snapshot's halves are already mapped into the upright frame and resolved to
+ * label ids, so this is plain copying.
+ */
+public class ActionFrameBuilder {
+    public void fill(FusedSnapshot snapshot, ActionFrame frame) {
+        fill(snapshot.getPose(), snapshot.getObjects(), snapshot.getImageWidth(), snapshot.getImageHeight(), frame);
+    }
+
+    /** Like {@link #fill(FusedSnapshot, ActionFrame)}, for halves that were never fused; either may be null. */
+    public void fill(PoseSnapshot pose, ObjectSnapshot objects, int imageWidth, int imageHeight, ActionFrame frame) {
+        frame.reset(imageWidth, imageHeight);
+
+        if (pose != null) {
+            int persons = pose.getPersonCount();
+            for (int p = 0; p < persons; p++) {
+                int count = pose.getLandmarkCount(p);
+                int person = frame.addPerson(count);
+                if (person < 0) {
+                    break;
+                }
+                for (int i = 0; i < count; i++) {
+                    frame.setLandmark(person, i, pose.landmarkX(p, i), pose.landmarkY(p, i));
+                }
+            }
+        }
+
+        if (objects != null) {
+            int detections = objects.getDetectionCount();
+            for (int d = 0; d < detections; d++) {
+                int index = frame.addDetection(objects.box(d, 0), objects.box(d, 1), objects.box(d, 2),
+                        objects.box(d, 3));
+                if (index < 0) {
+                    break;
+                }
+                int categories = objects.getCategoryCount(d);
+                for (int c = 0; c < categories; c++) {
+                    frame.addCategory(index, objects.labelId(d, c), objects.score(d, c));
+                }
+            }
+        }
+    }
+}
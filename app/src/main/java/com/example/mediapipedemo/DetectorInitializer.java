@@ -0,0 +1,125 @@
+package com.example.mediapipedemo;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sets up both detectors in parallel off the main thread, warms each up with
+ * one inference on a blank frame, and completes {@link #getReadiness()} once
+ * both are done.
+ *
+ * A model that fails to load or warm up is logged and left out; readiness
+ * still completes, and the pipeline runs with whichever model is available,
+ * as it did when setup happened in the helper constructors.
+ *
+ * Setup time is logged, to compare model loading strategies (see
+ * {@link ModelAssetCache}); ModelSetupBenchmark measures their memory, which
+ * is too slow to sample here on the main thread.
+ */
+public class DetectorInitializer {
+    private static final String TAG = "DetectorInitializer";
+    // A warm-up that has not answered by then is abandoned; the model may still work
+    private static final long WARM_UP_TIMEOUT_MS = 5000;
+
+    private final PoseLandmarkerHelper poseHelper;
+    private final ObjectDetectorHelper objectHelper;
+    private final ListeningExecutorService executor =
+            MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(2));
+    private final SettableFuture<Void> readiness = SettableFuture.create();
+
+    private volatile boolean ready;
+    private volatile long readyTimeMs = -1;
+
+    public DetectorInitializer(PoseLandmarkerHelper poseHelper, ObjectDetectorHelper objectHelper) {
+        this.poseHelper = poseHelper;
+        this.objectHelper = objectHelper;
+    }
+
+    /** Starts loading both models. Returns the readiness future. */
+    public ListenableFuture<Void> start() {
+        long startMs = SystemClock.uptimeMillis();
+        ListenableFuture<Long> pose = executor.submit(initTask("pose", poseHelper::setup, poseHelper::warmUp));
+        ListenableFuture<Long> objects = executor.submit(
+                initTask("objects", objectHelper::setup, objectHelper::warmUp));
+
+        Futures.addCallback(Futures.allAsList(pose, objects), new FutureCallback<List<Long>>() {
+            @Override
+            public void onSuccess(List<Long> setupTimes) {
+                readyTimeMs = SystemClock.uptimeMillis() - startMs;
+                Log.i(TAG, "Detectors ready in " + readyTimeMs + " ms");
+                ready = true;
+                readiness.set(null);
+                executor.shutdown();
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                // initTask never throws, so this only happens on cancellation
+                Log.e(TAG, "Detector initialization failed: " + t.getMessage());
+                readiness.setException(t);
+                executor.shutdown();
+            }
+        }, MoreExecutors.directExecutor());
+        return readiness;
+    }
+
+    /** Completes once both models have been loaded (or given up on) and warmed up. */
+    public ListenableFuture<Void> getReadiness() {
+        return readiness;
+    }
+
+    /** Cheap check for the camera thread: frames before this are closed unprocessed. */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /** Time from {@link #start} until both models were ready, or -1 before that. */
+    public long getReadyTimeMs() {
+        return readyTimeMs;
+    }
+
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private static Callable<Long> initTask(String name, Setup setup, WarmUp warmUp) {
+        return () -> {
+            long start = SystemClock.uptimeMillis();
+            if (!setup.run()) {
+                return -1L;
+            }
+            long loaded = SystemClock.uptimeMillis();
+            ListenableFuture<Void> warmedUp = warmUp.run();
+            try {
+                warmedUp.get(WARM_UP_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } catch (Exception e) {
+                Log.w(TAG, "Warm-up of " + name + " did not complete: " + e);
+                // Errors from here on belong to camera frames, not to the warm-up
+                warmedUp.cancel(false);
+            }
+            long done = SystemClock.uptimeMillis();
+            Log.i(TAG, name + " loaded in " + (loaded - start) + " ms, warmed up in " + (done - loaded) + " ms");
+            return done - start;
+        };
+    }
+
+    private interface Setup {
+        boolean run();
+    }
+
+    private interface WarmUp {
+        ListenableFuture<Void> run();
+    }
+}
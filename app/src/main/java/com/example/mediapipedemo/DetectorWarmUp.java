@@ -0,0 +1,55 @@
+package com.example.mediapipedemo;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+/**
+ * The warm-up inference of one detector instance.
+ *
+ * Each instance is created with its own, and its result and error listeners
+ * offer every callback here first. So while a new tier warms up next to the
+ * live detector, only the new detector's callbacks can complete the warm-up,
+ * and the live detector's keep going to the helper. Until the warm-up
+ * completes, the instance has been given nothing but the warm-up frame, so any
+ * error from it belongs to the warm-up.
+ */
+public final class DetectorWarmUp {
+    // Camera frames are stamped with uptime, so this never collides with them;
+    // it is the first timestamp every new detector sees
+    public static final long TIMESTAMP_MS = 0;
+
+    private final SettableFuture<Void> done = SettableFuture.create();
+    private volatile boolean started;
+
+    /** Call right before submitting the warm-up frame at {@link #TIMESTAMP_MS}. */
+    public void begin() {
+        started = true;
+    }
+
+    /** The warm-up could not be submitted. */
+    public void fail(Exception e) {
+        done.setException(e);
+    }
+
+    /**
+     * Completes on the warm-up result or error. Cancel it to give up waiting;
+     * later callbacks then go to the helper as usual.
+     */
+    public ListenableFuture<Void> getFuture() {
+        return done;
+    }
+
+    /** Returns true, and completes the warm-up, if this was the warm-up result. */
+    public boolean onResult(long timestampMs) {
+        return isPending() && timestampMs == TIMESTAMP_MS && done.set(null);
+    }
+
+    /** Returns true, and fails the warm-up, if the warm-up was still waiting. */
+    public boolean onError(RuntimeException error) {
+        return isPending() && done.setException(error);
+    }
+
+    private boolean isPending() {
+        return started && !done.isDone();
+    }
+}
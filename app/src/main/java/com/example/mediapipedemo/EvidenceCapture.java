@@ -0,0 +1,290 @@
+package com.example.mediapipedemo;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.util.Log;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Saves a JPEG of the camera frame when the smoothed status enters one of the
+ * trigger statuses, as evidence, without slowing down analysis.
+ *
+ * The fusion consumer only notes the request in {@link #onStatus}, with a copy
+ * of the detection boxes (see {@link EvidenceRequests}). The camera thread hands the next prepared frame to
+ * {@link #offerFrame}, which takes a reference to the upright Bitmap, or in
+ * zero-copy mode copies the RGBA plane into a buffer of its own, so the camera
+ * frame goes back as usual. Rotating, drawing the boxes and encoding happen on
+ * a single low-priority thread.
+ *
+ * Only {@link #MAX_PENDING} captures can be queued or encoding at once; a
+ * capture beyond that is dropped and counted. Captures are rate limited per
+ * session, and once the directory exceeds its quota the oldest files are
+ * deleted.
+ */
+public class EvidenceCapture implements Closeable {
+    private static final String TAG = "EvidenceCapture";
+    private static final int MAX_PENDING = 2;
+    private static final int JPEG_QUALITY = 85;
+    private static final String SUFFIX = ".jpg";
+
+    private final File directory;
+    private final EvidenceRequests requests;
+    private final long quotaBytes;
+    private final boolean annotate;
+
+    // Jobs not queued or encoding; bounds the work queue without it ever rejecting
+    private final BlockingQueue<Job> freeJobs = new ArrayBlockingQueue<>(MAX_PENDING);
+    private final ThreadPoolExecutor encoder;
+
+    private final AtomicLong savedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong evictedCount = new AtomicLong();
+
+    /**
+     * @param minIntervalMs shortest time between two captures
+     * @param maxPerSession captures allowed for the lifetime of this instance
+     * @param quotaBytes most the directory may hold; the oldest files go first
+     * @param annotate draw the detection boxes onto the image
+     */
+    public EvidenceCapture(File directory, EnumSet<ActionStatus> triggers, long minIntervalMs, int maxPerSession,
+            long quotaBytes, boolean annotate) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        this.directory = directory;
+        this.requests = new EvidenceRequests(triggers, minIntervalMs, maxPerSession);
+        this.quotaBytes = quotaBytes;
+        this.annotate = annotate;
+        for (int i = 0; i < MAX_PENDING; i++) {
+            freeJobs.add(new Job());
+        }
+        encoder = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(MAX_PENDING), runnable -> {
+                    Thread thread = new Thread(() -> {
+                        android.os.Process.setThreadPriority(android.os.Process.THREAD_PRIORITY_BACKGROUND);
+                        runnable.run();
+                    }, TAG);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Call with every smoothed status from the fusion consumer; {@code frame} is
+     * the frame the status came from. Requests a capture when the status enters
+     * a trigger status and the rate limit allows.
+     */
+    public void onStatus(ActionStatus status, ActionFrame frame, long timestampMs) {
+        requests.onStatus(status, frame, timestampMs);
+    }
+
+    /**
+     * Call on the camera thread with each prepared full-resolution frame.
+     * Returns false right away unless a capture is pending, and true if the
+     * frame was taken; either way it may be released as soon as this returns.
+     */
+    public boolean offerFrame(PreparedFrame frame) {
+        EvidenceRequests.Request request = requests.poll();
+        if (request == null) {
+            return false;
+        }
+        Job job = freeJobs.poll();
+        if (job == null) {
+            droppedCount.incrementAndGet();
+            return false;
+        }
+        job.take(frame, request);
+        try {
+            encoder.execute(job);
+        } catch (RejectedExecutionException e) {
+            // Closed
+            job.clear();
+            freeJobs.offer(job);
+            return false;
+        }
+        return true;
+    }
+
+    public long getSavedCount() {
+        return savedCount.get();
+    }
+
+    /** Captures dropped because {@link #MAX_PENDING} were already queued. */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /** Trigger entries ignored because of the interval or the session limit. */
+    public long getRateLimitedCount() {
+        return requests.getRateLimitedCount();
+    }
+
+    /** Old files deleted to stay within the quota. */
+    public long getEvictedCount() {
+        return evictedCount.get();
+    }
+
+    /** Stops taking captures; ones already queued are still written. */
+    @Override
+    public void close() {
+        encoder.shutdown();
+    }
+
+    private void write(Job job) {
+        Bitmap image = job.render(annotate);
+        File file = new File(directory, System.currentTimeMillis() + "_" + job.status.name() + SUFFIX);
+        try (OutputStream out = new FileOutputStream(file)) {
+            image.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, out);
+            savedCount.incrementAndGet();
+        } catch (IOException e) {
+            Log.w(TAG, "Could not write " + file + ": " + e.getMessage());
+            if (!file.delete()) {
+                Log.w(TAG, "Could not delete partial " + file);
+            }
+        }
+        enforceQuota();
+    }
+
+    private void enforceQuota() {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(SUFFIX));
+        if (files == null) {
+            return;
+        }
+        long total = 0;
+        for (File file : files) {
+            total += file.length();
+        }
+        if (total <= quotaBytes) {
+            return;
+        }
+        // Names start with the wall-clock time, so name order is age order
+        Arrays.sort(files);
+        for (int i = 0; i < files.length && total > quotaBytes; i++) {
+            long length = files[i].length();
+            if (files[i].delete()) {
+                total -= length;
+                evictedCount.incrementAndGet();
+            }
+        }
+    }
+
+    /** One capture; reused, along with its buffers, from one to the next. */
+    private final class Job implements Runnable {
+        private final Matrix matrix = new Matrix();
+        private final float[] matrixValues = new float[9];
+        private final Paint imagePaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+        private final Paint boxPaint = new Paint();
+        private final Canvas canvas = new Canvas();
+        private final RgbaPixels.ReadView frameView = new RgbaPixels.ReadView();
+
+        // Set by the camera thread before the job is queued
+        ActionStatus status;
+        private float[] boxes;
+        private FrameTransform transform;
+        private Bitmap upright;
+        private ByteBuffer pixels;
+
+        // Encoder thread only
+        private Bitmap sensorImage;
+        private Bitmap output;
+
+        Job() {
+            boxPaint.setColor(Color.RED);
+            boxPaint.setStrokeWidth(6f);
+            boxPaint.setStyle(Paint.Style.STROKE);
+        }
+
+        void take(PreparedFrame frame, EvidenceRequests.Request request) {
+            status = request.getStatus();
+            boxes = request.getBoxes();
+            transform = frame.getTransform();
+            Bitmap bitmap = frame.getBitmap();
+            if (bitmap != null) {
+                // The Bitmap path already made an upright copy that nothing else writes to
+                upright = bitmap;
+                return;
+            }
+            int bytes = transform.getInputWidth() * transform.getInputHeight() * 4;
+            if (pixels == null || pixels.capacity() < bytes) {
+                pixels = ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+            }
+            RgbaPixels.copy(frame.getPixels(), bytes, pixels, frameView);
+        }
+
+        void clear() {
+            upright = null;
+            transform = null;
+            boxes = null;
+        }
+
+        @Override
+        public void run() {
+            try {
+                write(this);
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Evidence capture failed", e);
+            } finally {
+                clear();
+                freeJobs.offer(this);
+            }
+        }
+
+        /** Draws the frame upright, plus the boxes if asked, into a reused Bitmap. */
+        Bitmap render(boolean annotate) {
+            int width = transform.getOutputWidth();
+            int height = transform.getOutputHeight();
+            Bitmap source = upright;
+            if (source == null) {
+                sensorImage = reuse(sensorImage, transform.getInputWidth(), transform.getInputHeight());
+                pixels.rewind();
+                sensorImage.copyPixelsFromBuffer(pixels);
+                source = sensorImage;
+                matrixValues[0] = transform.mapX(1f, 0f) - transform.mapX(0f, 0f);
+                matrixValues[1] = transform.mapX(0f, 1f) - transform.mapX(0f, 0f);
+                matrixValues[2] = transform.mapX(0f, 0f);
+                matrixValues[3] = transform.mapY(1f, 0f) - transform.mapY(0f, 0f);
+                matrixValues[4] = transform.mapY(0f, 1f) - transform.mapY(0f, 0f);
+                matrixValues[5] = transform.mapY(0f, 0f);
+                matrixValues[8] = 1f;
+                matrix.setValues(matrixValues);
+            } else {
+                matrix.reset();
+            }
+            output = reuse(output, width, height);
+            canvas.setBitmap(output);
+            canvas.drawBitmap(source, matrix, imagePaint);
+            if (annotate) {
+                for (int i = 0; i < boxes.length; i += 4) {
+                    canvas.drawRect(boxes[i], boxes[i + 1], boxes[i + 2], boxes[i + 3], boxPaint);
+                }
+            }
+            canvas.setBitmap(null);
+            return output;
+        }
+
+        private Bitmap reuse(Bitmap bitmap, int width, int height) {
+            if (bitmap != null && bitmap.getWidth() == width && bitmap.getHeight() == height) {
+                return bitmap;
+            }
+            return Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        }
+    }
+}
@@ -0,0 +1,384 @@
+package com.example.mediapipedemo;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.camera.core.ImageProxy;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fans each camera frame out to both models.
+ *
+ * The frame is preprocessed once and submitted to the pose landmarker on the
+ * camera thread while the object detector submission runs concurrently on a
+ * second thread, so both results describe the same frame timestamp. Each model
+ * has an in-flight limit and a rate chosen by the {@link InferenceScheduler}; a
+ * model that is busy or not due simply skips the frame, and a frame that neither
+ * model takes is closed before any conversion work.
+ *
+ * With a {@link ResolutionPolicy} set, each model gets its full-frame input
+ * from a per-frame downscale pyramid: levels are built once, only as deep as
+ * the hungrier model needs, and shared when both models want the same one.
+ *
+ * With a {@link HandRegionTracker} set, the object detector only gets a crop
+ * around the hands from the latest pose, and falls back to the full frame while
+ * no recent pose is available. Crops always come from the camera-resolution
+ * frame, where the hands have the most pixels.
+ *
+ * With a {@link MotionGate} set, a due model still skips the frame if the
+ * scene has not changed since its last input, and the fusion buffer keeps
+ * pairing results with that model's latest result instead.
+ *
+ * With an {@link EvidenceCapture} set, the camera-resolution frame is offered
+ * to it before the models get it, for when a capture is pending.
+ *
+ * Camera frames that never reach {@link #onFrame} (replaced under
+ * STRATEGY_KEEP_ONLY_LATEST) are counted from gaps in the sensor timestamps.
+ * Frames a model does not take are counted per model and per reason by its
+ * {@link SubmissionGate}.
+ *
+ * Frame timestamps are uptime, nudged forward where needed so that no two
+ * frames share one: LIVE_STREAM tasks reject a timestamp that does not
+ * increase, and both models must see the same timestamp for a frame so the
+ * fusion buffer can pair their results.
+ */
+public class FramePipeline {
+    private static final String TAG = "FramePipeline";
+    // Object submissions queued or running on the submit thread; one more
+    // than the in-flight cap, so the queue never stalls a frame the cap allows
+    private static final int MAX_PENDING_OBJECT_SUBMISSIONS = 3;
+
+    private final FramePreprocessor preprocessor;
+    private final PoseLandmarkerHelper poseHelper;
+    private final ObjectDetectorHelper objectHelper;
+    private final InferenceScheduler scheduler;
+    private final ExecutorService submitExecutor = Executors.newSingleThreadExecutor();
+    // Submissions not queued or running; bounds the submit queue without it ever rejecting
+    private final BlockingQueue<ObjectSubmission> freeSubmissions =
+            new ArrayBlockingQueue<>(MAX_PENDING_OBJECT_SUBMISSIONS);
+
+    private ResolutionPolicy resolutionPolicy;
+    private MotionGate motionGate;
+    private EvidenceCapture evidenceCapture;
+    private ResultFusionBuffer fusionBuffer;
+    private HandRegionTracker handRegionTracker;
+    private long maxRegionAgeMs;
+    private PipelineMetrics metrics;
+
+    // Camera thread only: the current frame's pyramid levels
+    private final PreparedFrame[] pyramid = new PreparedFrame[ResolutionPolicy.MAX_LEVELS];
+
+    // Camera thread only: last sensor timestamp and the shortest recent gap between frames
+    private long lastSensorTimestampNs = Long.MIN_VALUE;
+    private long framePeriodNs = Long.MAX_VALUE;
+    // Camera thread only: the last frame timestamp handed out
+    private long lastFrameTimeMs = Long.MIN_VALUE;
+
+    private final AtomicLong framesReceived = new AtomicLong();
+    private final AtomicLong framesDropped = new AtomicLong();
+    private final AtomicLong framesSkipped = new AtomicLong();
+    private final AtomicLong poseSubmitted = new AtomicLong();
+    private final AtomicLong objectSubmitted = new AtomicLong();
+    private final AtomicLong objectCropped = new AtomicLong();
+
+    public FramePipeline(FramePreprocessor preprocessor, PoseLandmarkerHelper poseHelper,
+            ObjectDetectorHelper objectHelper, InferenceScheduler scheduler) {
+        this.preprocessor = preprocessor;
+        this.poseHelper = poseHelper;
+        this.objectHelper = objectHelper;
+        this.scheduler = scheduler;
+        for (int i = 0; i < MAX_PENDING_OBJECT_SUBMISSIONS; i++) {
+            freeSubmissions.add(new ObjectSubmission());
+        }
+    }
+
+    /**
+     * Enables motion gating; models skipped on unchanged scenes have their last
+     * result held in {@code fusionBuffer}. Pass null to run every due model.
+     */
+    public void setMotionGate(MotionGate gate, ResultFusionBuffer fusionBuffer) {
+        this.fusionBuffer = fusionBuffer;
+        this.motionGate = gate;
+    }
+
+    /** Enables evidence capture from the camera-resolution frames; null to disable. */
+    public void setEvidenceCapture(EvidenceCapture capture) {
+        this.evidenceCapture = capture;
+    }
+
+    /** Enables downscaling of full-frame model inputs; null to always use camera resolution. */
+    public void setResolutionPolicy(ResolutionPolicy policy) {
+        this.resolutionPolicy = policy;
+    }
+
+    /**
+     * Enables hand-region cropping for the object detector. Regions older than
+     * {@code maxRegionAgeMs} are ignored. Pass null to always use the full frame.
+     */
+    public void setHandRegionTracker(HandRegionTracker tracker, long maxRegionAgeMs) {
+        this.handRegionTracker = tracker;
+        this.maxRegionAgeMs = maxRegionAgeMs;
+    }
+
+    /** Records preprocessing time into {@code metrics}; null to disable. */
+    public void setMetrics(PipelineMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /** Called on the camera executor. Takes ownership of the ImageProxy. */
+    public void onFrame(ImageProxy imageProxy, boolean isFrontCamera) {
+        framesReceived.incrementAndGet();
+        countDroppedFrames(imageProxy.getImageInfo().getTimestamp());
+
+        long frameTime = nextFrameTime();
+        // Decided before any conversion, so frames no model will take cost nothing more
+        boolean runPose = poseHelper != null
+                && poseHelper.admit(scheduler.isDue(InferenceScheduler.Model.POSE, frameTime));
+        boolean runObject = objectHelper != null
+                && objectHelper.admit(scheduler.isDue(InferenceScheduler.Model.OBJECTS, frameTime));
+        ObjectSubmission submission = null;
+        if (runObject) {
+            submission = freeSubmissions.poll();
+            if (submission == null) {
+                // Earlier frames are still waiting for the submit thread
+                runObject = false;
+                objectHelper.getSubmissionGate().drop(SubmissionGate.DropReason.IN_FLIGHT_FULL);
+            }
+        }
+        MotionGate gate = motionGate;
+        if (gate != null && (runPose || runObject)) {
+            gate.sample(imageProxy);
+            if (runPose && gate.shouldSkip(InferenceScheduler.Model.POSE, frameTime)) {
+                runPose = false;
+                poseHelper.getSubmissionGate().drop(SubmissionGate.DropReason.UNCHANGED);
+                fusionBuffer.holdPose(frameTime);
+            }
+            if (runObject && gate.shouldSkip(InferenceScheduler.Model.OBJECTS, frameTime)) {
+                runObject = false;
+                freeSubmissions.offer(submission);
+                submission = null;
+                objectHelper.getSubmissionGate().drop(SubmissionGate.DropReason.UNCHANGED);
+                fusionBuffer.holdObjects(frameTime);
+            }
+            if (runPose) {
+                gate.onRun(InferenceScheduler.Model.POSE, frameTime);
+            }
+            if (runObject) {
+                gate.onRun(InferenceScheduler.Model.OBJECTS, frameTime);
+            }
+        }
+        if (!runPose && !runObject) {
+            framesSkipped.incrementAndGet();
+            imageProxy.close();
+            return;
+        }
+
+        long prepareStart = System.nanoTime();
+        PreparedFrame frame = preprocessor.prepare(imageProxy, isFrontCamera);
+        boolean cropObjects = runObject && handRegionTracker != null
+                && handRegionTracker.getRegion(frameTime, maxRegionAgeMs, submission.region);
+        FrameTransform transform = frame.getTransform();
+        int poseLevel = runPose ? levelFor(InferenceScheduler.Model.POSE, transform) : 0;
+        int objectLevel = runObject && !cropObjects ? levelFor(InferenceScheduler.Model.OBJECTS, transform) : 0;
+        int levels = Math.max(poseLevel, objectLevel) + 1;
+        pyramid[0] = frame;
+        for (int i = 1; i < levels; i++) {
+            pyramid[i] = preprocessor.downscale(pyramid[i - 1]);
+        }
+        PipelineMetrics metrics = this.metrics;
+        if (metrics != null) {
+            metrics.recordNanos(PipelineMetrics.Stage.PREPROCESS, System.nanoTime() - prepareStart);
+        }
+
+        EvidenceCapture capture = evidenceCapture;
+        if (capture != null) {
+            long captureStart = System.nanoTime();
+            if (capture.offerFrame(frame) && metrics != null) {
+                metrics.recordNanos(PipelineMetrics.Stage.EVIDENCE, System.nanoTime() - captureStart);
+            }
+        }
+
+        if (runObject) {
+            scheduler.onSubmitted(InferenceScheduler.Model.OBJECTS, frameTime);
+            PreparedFrame objectFrame = pyramid[objectLevel];
+            objectFrame.retain();
+            submission.frame = objectFrame;
+            submission.frameTime = frameTime;
+            submission.cropToRegion = cropObjects;
+            try {
+                submitExecutor.execute(submission);
+            } catch (RejectedExecutionException e) {
+                submission.frame = null;
+                freeSubmissions.offer(submission);
+                objectFrame.release();
+            }
+        }
+
+        if (runPose) {
+            scheduler.onSubmitted(InferenceScheduler.Model.POSE, frameTime);
+            try {
+                if (poseHelper.detect(pyramid[poseLevel], frameTime)) {
+                    poseSubmitted.incrementAndGet();
+                }
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Pose submission failed: " + e.getMessage());
+            }
+        }
+
+        // The camera frame goes back once nothing holds the full-resolution level.
+        // A downscaled object input owns its pixels, so the next frame can then
+        // arrive while that object submission is still queued
+        for (int i = 0; i < levels; i++) {
+            pyramid[i].release();
+            pyramid[i] = null;
+        }
+    }
+
+    private long nextFrameTime() {
+        long now = SystemClock.uptimeMillis();
+        long frameTime = now > lastFrameTimeMs ? now : lastFrameTimeMs + 1;
+        lastFrameTimeMs = frameTime;
+        return frameTime;
+    }
+
+    private int levelFor(InferenceScheduler.Model model, FrameTransform transform) {
+        ResolutionPolicy policy = resolutionPolicy;
+        return policy != null
+                ? policy.levelFor(model, transform.getInputWidth(), transform.getInputHeight())
+                : 0;
+    }
+
+    private void countDroppedFrames(long sensorTimestampNs) {
+        long last = lastSensorTimestampNs;
+        lastSensorTimestampNs = sensorTimestampNs;
+        if (last == Long.MIN_VALUE) {
+            return;
+        }
+        long gap = sensorTimestampNs - last;
+        if (gap <= 0) {
+            return;
+        }
+        // Let the period estimate creep up by 1% a frame, so it follows the
+        // camera when auto-exposure lowers the frame rate
+        long period = framePeriodNs == Long.MAX_VALUE ? gap : Math.min(gap, framePeriodNs + framePeriodNs / 100);
+        framePeriodNs = period;
+        long missed = (gap + period / 2) / period - 1;
+        if (missed > 0) {
+            framesDropped.addAndGet(missed);
+        }
+    }
+
+    public int getPoseInFlight() {
+        return poseHelper != null ? poseHelper.getInFlightCount() : 0;
+    }
+
+    public int getObjectInFlight() {
+        return objectHelper != null ? objectHelper.getInFlightCount() : 0;
+    }
+
+    public long getFramesReceived() {
+        return framesReceived.get();
+    }
+
+    /** Camera frames that never reached the pipeline, estimated from timestamp gaps. */
+    public long getFramesDropped() {
+        return framesDropped.get();
+    }
+
+    /** Frames closed untouched because neither model was due, had capacity or saw a change. */
+    public long getFramesSkipped() {
+        return framesSkipped.get();
+    }
+
+    /** The pose detector's submission gate, or null without a pose detector. */
+    public SubmissionGate getPoseGate() {
+        return poseHelper != null ? poseHelper.getSubmissionGate() : null;
+    }
+
+    /** The object detector's submission gate, or null without an object detector. */
+    public SubmissionGate getObjectGate() {
+        return objectHelper != null ? objectHelper.getSubmissionGate() : null;
+    }
+
+    public long getPoseSubmitted() {
+        return poseSubmitted.get();
+    }
+
+    public long getObjectSubmitted() {
+        return objectSubmitted.get();
+    }
+
+    /** Object detector submissions that used a hand-region crop rather than the full frame. */
+    public long getObjectCropped() {
+        return objectCropped.get();
+    }
+
+    /** The evidence capture, or null if disabled. */
+    public EvidenceCapture getEvidenceCapture() {
+        return evidenceCapture;
+    }
+
+    /** The motion gate, or null if every due model runs. */
+    public MotionGate getMotionGate() {
+        return motionGate;
+    }
+
+    public InferenceScheduler getScheduler() {
+        return scheduler;
+    }
+
+    public void close() {
+        submitExecutor.shutdown();
+    }
+
+    /**
+     * One frame's object detector submission, taken from the free list by the
+     * camera thread and returned by the submit thread once it has run. Each
+     * pending frame has its own, since the camera frame may be closed, and the
+     * next one delivered, while this is still queued.
+     */
+    private final class ObjectSubmission implements Runnable {
+        final float[] region = new float[4];
+        final RgbaPixels.ReadView pixelView = new RgbaPixels.ReadView();
+        PreparedFrame frame;
+        long frameTime;
+        boolean cropToRegion;
+
+        @Override
+        public void run() {
+            PreparedFrame current = frame;
+            long time = frameTime;
+            boolean crop = cropToRegion;
+            frame = null;
+            try {
+                if (crop) {
+                    // The crop has its own copy of the pixels, so the full frame can go back now
+                    PreparedFrame full = current;
+                    current = null;
+                    try {
+                        current = preprocessor.crop(full, region, pixelView);
+                    } finally {
+                        full.release();
+                    }
+                    objectCropped.incrementAndGet();
+                }
+                if (objectHelper.detect(current, time)) {
+                    objectSubmitted.incrementAndGet();
+                }
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Object submission failed: " + e.getMessage());
+            } finally {
+                if (current != null) {
+                    current.release();
+                }
+                freeSubmissions.offer(this);
+            }
+        }
+    }
+}
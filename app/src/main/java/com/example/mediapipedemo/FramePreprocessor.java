@@ -0,0 +1,218 @@
+package com.example.mediapipedemo;
+
+import android.graphics.Bitmap;
+import android.graphics.Matrix;
+
+import androidx.camera.core.ImageProxy;
+
+import com.google.mediapipe.framework.image.BitmapImageBuilder;
+import com.google.mediapipe.framework.image.ByteBufferImageBuilder;
+import com.google.mediapipe.framework.image.MPImage;
+import com.google.mediapipe.tasks.vision.core.ImageProcessingOptions;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Converts CameraX RGBA frames into MediaPipe input images.
+ *
+ * BITMAP is the original path: toBitmap() followed by a rotated and mirrored
+ * copy, so the model sees the upright frame.
+ *
+ * ZERO_COPY hands the RGBA plane to MediaPipe as-is. Rotation comes from the
+ * frame metadata through ImageProcessingOptions and mirroring is undone on the
+ * results through FrameTransform. Only frames whose rows are padded need a
+ * compaction copy, and that goes into a pooled buffer.
+ *
+ * Either kind of frame can also be cropped to a region of the upright frame,
+ * which the object detector uses to look only around the hands, or halved in
+ * size to build the downscale pyramid chosen by {@link ResolutionPolicy}.
+ */
+public class FramePreprocessor {
+    public enum IngestionMode {
+        BITMAP,
+        ZERO_COPY
+    }
+
+    // Compaction, pyramid levels and crops can all be in flight at once
+    private static final int POOL_SIZE = 6;
+
+    private final IngestionMode mode;
+    private final BufferPool bufferPool = new BufferPool(POOL_SIZE);
+    private final ImageProcessingOptions[] rotationOptions = new ImageProcessingOptions[4];
+    private volatile FrameTransform cachedTransform;
+    // Transforms of each pyramid level for cachedTransform; camera thread only
+    private FrameTransform[] levelTransforms = new FrameTransform[ResolutionPolicy.MAX_LEVELS];
+
+    public FramePreprocessor(IngestionMode mode) {
+        this.mode = mode;
+    }
+
+    public IngestionMode getMode() {
+        return mode;
+    }
+
+    /**
+     * Takes ownership of the ImageProxy; it is closed when the returned frame's
+     * last reference is released.
+     */
+    public PreparedFrame prepare(ImageProxy imageProxy, boolean isFrontCamera) {
+        int rotation = imageProxy.getImageInfo().getRotationDegrees();
+        if (mode == IngestionMode.ZERO_COPY) {
+            return prepareZeroCopy(imageProxy, rotation, isFrontCamera);
+        }
+        return prepareBitmap(imageProxy, rotation, isFrontCamera);
+    }
+
+    private PreparedFrame prepareBitmap(ImageProxy imageProxy, int rotation, boolean isFrontCamera) {
+        Bitmap bitmapBuffer = imageProxy.toBitmap();
+
+        Matrix matrix = new Matrix();
+        matrix.postRotate(rotation);
+        if (isFrontCamera) {
+            matrix.postScale(-1f, 1f, bitmapBuffer.getWidth() / 2f, bitmapBuffer.getHeight() / 2f);
+        }
+
+        Bitmap rotatedBitmap = Bitmap.createBitmap(
+                bitmapBuffer, 0, 0, bitmapBuffer.getWidth(), bitmapBuffer.getHeight(), matrix, false);
+
+        MPImage mpImage = new BitmapImageBuilder(rotatedBitmap).build();
+        FrameTransform transform = transformFor(rotatedBitmap.getWidth(), rotatedBitmap.getHeight(), 0, false);
+        return new PreparedFrame(mpImage, optionsFor(0), transform, bufferPool, null, imageProxy,
+                rotatedBitmap, null);
+    }
+
+    private PreparedFrame prepareZeroCopy(ImageProxy imageProxy, int rotation, boolean isFrontCamera) {
+        int width = imageProxy.getWidth();
+        int height = imageProxy.getHeight();
+        ImageProxy.PlaneProxy plane = imageProxy.getPlanes()[0];
+        ByteBuffer source = plane.getBuffer();
+        int rowBytes = width * 4;
+
+        ByteBuffer pixels;
+        ByteBuffer pooled = null;
+        if (plane.getRowStride() == rowBytes && plane.getPixelStride() == 4) {
+            source.rewind();
+            pixels = source;
+        } else {
+            pooled = bufferPool.acquire(rowBytes * height);
+            pixels = BufferPool.exactView(pooled);
+            RgbaPixels.compactRows(source, plane.getRowStride(), rowBytes, height, pixels);
+        }
+
+        MPImage mpImage = new ByteBufferImageBuilder(pixels, width, height, MPImage.IMAGE_FORMAT_RGBA).build();
+        FrameTransform transform = transformFor(width, height, rotation, isFrontCamera);
+        return new PreparedFrame(mpImage, optionsFor(rotation), transform, bufferPool, pooled, imageProxy,
+                null, pixels);
+    }
+
+    /**
+     * Copies the region {@code region} (normalized left, top, right, bottom in
+     * the upright frame) out of {@code source} into a new frame whose transform
+     * maps results straight back to full-frame coordinates. Only the crop is
+     * copied, through the caller's {@code view}; {@code source} may be released
+     * as soon as this returns. May be called from any thread that keeps its own
+     * view.
+     */
+    public PreparedFrame crop(PreparedFrame source, float[] region, RgbaPixels.ReadView view) {
+        FrameTransform transform = source.getTransform();
+        float outLeft = region[0] * transform.getOutputWidth();
+        float outTop = region[1] * transform.getOutputHeight();
+        float outRight = region[2] * transform.getOutputWidth();
+        float outBottom = region[3] * transform.getOutputHeight();
+
+        // Rotation and mirroring only permute corners, so mapping two opposite
+        // corners back gives the crop rectangle in the source image.
+        float x0 = transform.inverseX(outLeft, outTop);
+        float y0 = transform.inverseY(outLeft, outTop);
+        float x1 = transform.inverseX(outRight, outBottom);
+        float y1 = transform.inverseY(outRight, outBottom);
+        int left = clamp((int) Math.floor(Math.min(x0, x1)), 0, transform.getInputWidth() - 1);
+        int top = clamp((int) Math.floor(Math.min(y0, y1)), 0, transform.getInputHeight() - 1);
+        int right = clamp((int) Math.ceil(Math.max(x0, x1)), left + 1, transform.getInputWidth());
+        int bottom = clamp((int) Math.ceil(Math.max(y0, y1)), top + 1, transform.getInputHeight());
+        int width = right - left;
+        int height = bottom - top;
+
+        FrameTransform cropTransform = transform.withCrop(left, top, width, height);
+        Bitmap bitmap = source.getBitmap();
+        if (bitmap != null) {
+            Bitmap cropped = Bitmap.createBitmap(bitmap, left, top, width, height);
+            return new PreparedFrame(new BitmapImageBuilder(cropped).build(), source.getProcessingOptions(),
+                    cropTransform, bufferPool, null, null, cropped, null);
+        }
+
+        // Both models may be reading the source buffer at once; this never moves its position
+        ByteBuffer pooled = bufferPool.acquire(width * height * 4);
+        ByteBuffer pixels = BufferPool.exactView(pooled);
+        RgbaPixels.copyRegion(source.getPixels(), transform.getInputWidth(), left, top, width, height, pixels,
+                view);
+        MPImage mpImage = new ByteBufferImageBuilder(pixels, width, height, MPImage.IMAGE_FORMAT_RGBA).build();
+        return new PreparedFrame(mpImage, source.getProcessingOptions(), cropTransform, bufferPool, pooled, null,
+                null, pixels);
+    }
+
+    /**
+     * Returns a new frame holding {@code source} at half the width and height,
+     * each pixel the average of a 2x2 block, with a transform that maps results
+     * straight back to full-frame coordinates. Only the smaller image is
+     * written; {@code source} may be released as soon as this returns.
+     * Call from the camera thread.
+     */
+    public PreparedFrame downscale(PreparedFrame source) {
+        FrameTransform transform = halvedTransform(source.getTransform());
+        int width = transform.getInputWidth();
+        int height = transform.getInputHeight();
+
+        Bitmap bitmap = source.getBitmap();
+        if (bitmap != null) {
+            Bitmap scaled = Bitmap.createScaledBitmap(bitmap, width, height, true);
+            return new PreparedFrame(new BitmapImageBuilder(scaled).build(), source.getProcessingOptions(),
+                    transform, bufferPool, null, null, scaled, null);
+        }
+
+        ByteBuffer pooled = bufferPool.acquire(width * height * 4);
+        ByteBuffer pixels = BufferPool.exactView(pooled);
+        RgbaPixels.halve(source.getPixels(), source.getTransform().getInputWidth(), width, height, pixels);
+        MPImage mpImage = new ByteBufferImageBuilder(pixels, width, height, MPImage.IMAGE_FORMAT_RGBA).build();
+        return new PreparedFrame(mpImage, source.getProcessingOptions(), transform, bufferPool, pooled, null,
+                null, pixels);
+    }
+
+    private FrameTransform halvedTransform(FrameTransform transform) {
+        FrameTransform[] levels = levelTransforms;
+        for (int i = 0; i < levels.length - 1; i++) {
+            if (levels[i] == transform) {
+                if (levels[i + 1] == null) {
+                    levels[i + 1] = transform.halved();
+                }
+                return levels[i + 1];
+            }
+        }
+        return transform.halved();
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private FrameTransform transformFor(int width, int height, int rotation, boolean mirrored) {
+        FrameTransform transform = cachedTransform;
+        if (transform == null || !transform.matches(width, height, rotation, mirrored)) {
+            transform = FrameTransform.forOrientation(width, height, rotation, mirrored);
+            cachedTransform = transform;
+            levelTransforms = new FrameTransform[ResolutionPolicy.MAX_LEVELS];
+            levelTransforms[0] = transform;
+        }
+        return transform;
+    }
+
+    private ImageProcessingOptions optionsFor(int rotation) {
+        int index = (((rotation % 360) + 360) % 360) / 90;
+        ImageProcessingOptions options = rotationOptions[index];
+        if (options == null) {
+            options = ImageProcessingOptions.builder().setRotationDegrees(index * 90).build();
+            rotationOptions[index] = options;
+        }
+        return options;
+    }
+}
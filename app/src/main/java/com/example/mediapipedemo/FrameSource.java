@@ -0,0 +1,23 @@
+package com.example.mediapipedemo;
+
+import android.graphics.Bitmap;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * A finite stream of decoded, upright frames for {@link StreamAnalysisEngine}.
+ * Only one thread uses a source at a time, though not always the same one.
+ */
+public interface FrameSource extends Closeable {
+    String getName();
+
+    /**
+     * Decodes the next frame, or returns null at the end of the stream. The
+     * Bitmap is only valid until the next call; sources may decode into it again.
+     */
+    Bitmap next() throws IOException;
+
+    /** Time of the frame last returned by {@link #next}, in ms from the start of the stream. */
+    long getTimestampMs();
+}
@@ -0,0 +1,47 @@
+package com.example.mediapipedemo;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Remembers the transform each recently submitted frame was sent with, so a
+ * result can be mapped with the transform of its own frame even when the
+ * transform changes from frame to frame (as it does with ROI crops).
+ */
+public class FrameTransformHistory {
+    private static final int SIZE = 16;
+
+    private final AtomicLongArray timestamps = new AtomicLongArray(SIZE);
+    private final AtomicReferenceArray<FrameTransform> transforms = new AtomicReferenceArray<>(SIZE);
+    private final AtomicInteger writeIndex = new AtomicInteger();
+
+    public FrameTransformHistory() {
+        for (int i = 0; i < SIZE; i++) {
+            timestamps.set(i, Long.MIN_VALUE);
+        }
+    }
+
+    public void put(long timestampMs, FrameTransform transform) {
+        int index = writeIndex.getAndIncrement() & (SIZE - 1);
+        // Invalidate the slot while it is rewritten so a reader never pairs the
+        // old timestamp with the new transform.
+        timestamps.set(index, Long.MIN_VALUE);
+        transforms.set(index, transform);
+        timestamps.set(index, timestampMs);
+    }
+
+    /** Transform for the given frame, or the most recent one if it has been overwritten. */
+    public FrameTransform get(long timestampMs) {
+        for (int i = 0; i < SIZE; i++) {
+            if (timestamps.get(i) == timestampMs) {
+                FrameTransform transform = transforms.get(i);
+                if (timestamps.get(i) == timestampMs) {
+                    return transform;
+                }
+            }
+        }
+        int latest = (writeIndex.get() - 1) & (SIZE - 1);
+        return transforms.get(latest);
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.mediapipedemo;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Pairing of a pose result and an object result for (nearly) the same frame.
+ * Either side may be null when no result within the allowed skew exists.
+ *
+ * Between results the fusion buffer republishes the latest pair for each camera
+ * frame with a newer display time, so consumers can predict the pose forward.
+ *
+ * Snapshots and both their halves are pooled, and go back to their pools once
+ * the fusion buffer and the consumer are done with them, so a snapshot is only
+ * valid until {@link ResultFusionBuffer.Consumer#onFused} returns; copy out
+ * what is needed later. Contents are written by the thread that acquired the
+ * snapshot before its sequence number is set, and are read-only from then on
+ * until it is recycled.
+ */
+public final class FusedSnapshot {
+    private long timestampMs;
+    private long displayTimestampMs;
+    private PoseSnapshot pose;
+    private ObjectSnapshot objects;
+    private int imageWidth;
+    private int imageHeight;
+    // One for the fusion buffer's published slot, one per consumer using it
+    private final AtomicInteger refs = new AtomicInteger();
+    // Tells one filling of this instance from the next; 0 while pooled or being filled
+    private volatile long sequence;
+    private final Pool pool;
+
+    private FusedSnapshot(Pool pool) {
+        this.pool = pool;
+    }
+
+    /** The same pair, to be shown at {@code displayTimestampMs}. The caller must own a reference. */
+    FusedSnapshot atDisplayTime(long displayTimestampMs) {
+        return pool.acquire(timestampMs, displayTimestampMs, pose, objects);
+    }
+
+    /** Identifies what this snapshot holds now; 0 if it holds nothing. */
+    long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Adds a reference to a snapshot the caller found through a shared field
+     * but does not own, as long as it is live and still holds the contents
+     * numbered {@code expectedSequence} (see {@link #getSequence}). Fails if it
+     * was let go of, and possibly reused, since.
+     */
+    boolean tryRetain(long expectedSequence) {
+        if (expectedSequence == 0) {
+            return false;
+        }
+        while (true) {
+            int current = refs.get();
+            if (current <= 0) {
+                return false;
+            }
+            if (refs.compareAndSet(current, current + 1)) {
+                break;
+            }
+        }
+        if (sequence != expectedSequence) {
+            release();
+            return false;
+        }
+        return true;
+    }
+
+    void release() {
+        int remaining = refs.decrementAndGet();
+        if (remaining == 0) {
+            sequence = 0;
+            if (pose != null) {
+                pose.release();
+                pose = null;
+            }
+            if (objects != null) {
+                objects.release();
+                objects = null;
+            }
+            pool.recycle(this);
+        } else if (remaining < 0) {
+            throw new IllegalStateException("Snapshot released more often than retained");
+        }
+    }
+
+    /** Timestamp of the newer of the two results; snapshots are published in this order. */
+    public long getTimestampMs() {
+        return timestampMs;
+    }
+
+    /**
+     * Camera frame time this snapshot is meant to be shown at. Never earlier than
+     * {@link #getTimestampMs()}, and never goes backwards between snapshots.
+     */
+    public long getDisplayTimestampMs() {
+        return displayTimestampMs;
+    }
+
+    public PoseSnapshot getPose() {
+        return pose;
+    }
+
+    public long getPoseTimestampMs() {
+        return pose != null ? pose.getTimestampMs() : Long.MIN_VALUE;
+    }
+
+    public ObjectSnapshot getObjects() {
+        return objects;
+    }
+
+    public long getObjectTimestampMs() {
+        return objects != null ? objects.getTimestampMs() : Long.MIN_VALUE;
+    }
+
+    public int getImageWidth() {
+        return imageWidth;
+    }
+
+    public int getImageHeight() {
+        return imageHeight;
+    }
+
+    /** Age difference between the two halves, or -1 if one side is missing. */
+    public long getSkewMs() {
+        if (pose == null || objects == null) {
+            return -1;
+        }
+        return Math.abs(pose.getTimestampMs() - objects.getTimestampMs());
+    }
+
+    /**
+     * Lock-free free list of snapshots, like {@link PooledSnapshot.Pool}: never
+     * blocks, allocates only when empty, and is sized so that it is not in
+     * steady state.
+     */
+    static final class Pool {
+        private final AtomicReferenceArray<FusedSnapshot> free;
+        private final AtomicLong nextSequence = new AtomicLong();
+        private final AtomicLong createdCount = new AtomicLong();
+
+        Pool(int capacity) {
+            free = new AtomicReferenceArray<>(capacity);
+        }
+
+        /**
+         * Returns a snapshot of this pair with one reference, owned by the
+         * caller. Takes a reference on each half; the caller must already own one.
+         */
+        FusedSnapshot acquire(long timestampMs, long displayTimestampMs, PoseSnapshot pose, ObjectSnapshot objects) {
+            FusedSnapshot snapshot = null;
+            for (int i = 0; i < free.length() && snapshot == null; i++) {
+                FusedSnapshot candidate = free.get(i);
+                if (candidate != null && free.compareAndSet(i, candidate, null)) {
+                    snapshot = candidate;
+                }
+            }
+            if (snapshot == null) {
+                snapshot = new FusedSnapshot(this);
+                createdCount.incrementAndGet();
+            }
+            snapshot.timestampMs = timestampMs;
+            snapshot.displayTimestampMs = displayTimestampMs;
+            snapshot.pose = pose;
+            snapshot.objects = objects;
+            if (pose != null) {
+                pose.retain();
+                snapshot.imageWidth = pose.getImageWidth();
+                snapshot.imageHeight = pose.getImageHeight();
+            } else {
+                snapshot.imageWidth = objects.getImageWidth();
+                snapshot.imageHeight = objects.getImageHeight();
+            }
+            if (objects != null) {
+                objects.retain();
+            }
+            snapshot.refs.set(1);
+            snapshot.sequence = nextSequence.incrementAndGet();
+            return snapshot;
+        }
+
+        void recycle(FusedSnapshot snapshot) {
+            for (int i = 0; i < free.length(); i++) {
+                if (free.get(i) == null && free.compareAndSet(i, null, snapshot)) {
+                    return;
+                }
+            }
+        }
+
+        /** Snapshots allocated so far; stops growing once the pool has warmed up. */
+        long getCreatedCount() {
+            return createdCount.get();
+        }
+    }
+}
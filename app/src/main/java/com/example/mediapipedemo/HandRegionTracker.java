@@ -0,0 +1,110 @@
+package com.example.mediapipedemo;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the most recent region around the hands, derived from the pose, for the
+ * object detector to crop to.
+ *
+ * The region is a square in the upright frame around every person's wrists
+ * (and hand landmarks when present), padded in proportion to the widest
+ * shoulders so it scales with the people's distance from the camera. It is published as four
+ * 16-bit normalized coordinates packed into one long, so readers on the camera
+ * thread always see a consistent region and updates allocate nothing.
+ */
+public class HandRegionTracker {
+    private static final int[] HAND_LANDMARKS = { 15, 16, 17, 18, 19, 20, 21, 22 };
+    private static final int LEFT_SHOULDER = 11;
+    private static final int RIGHT_SHOULDER = 12;
+    // Padding around the hands as a multiple of the shoulder width
+    private static final float PADDING_SHOULDER_RATIO = 0.75f;
+    // Never crop tighter than this fraction of the shorter frame side
+    private static final float MIN_SIZE_RATIO = 0.3f;
+    private static final long NO_REGION = -1L;
+    private static final float SCALE = 65535f;
+
+    private final AtomicLong packedRegion = new AtomicLong(NO_REGION);
+    private volatile long updatedAtMs;
+
+    /** Updates the region from a fused frame, or clears it when no person is visible. */
+    public void update(ActionFrame frame, long timestampMs) {
+        int width = frame.getImageWidth();
+        int height = frame.getImageHeight();
+        if (!frame.hasPose() || width <= 0 || height <= 0) {
+            packedRegion.set(NO_REGION);
+            return;
+        }
+
+        float minX = Float.MAX_VALUE;
+        float minY = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE;
+        float maxY = -Float.MAX_VALUE;
+        float shoulderWidth = 0f;
+        for (int person = 0; person < frame.getPersonCount(); person++) {
+            int count = frame.getLandmarkCount(person);
+            if (count <= RIGHT_SHOULDER) {
+                continue;
+            }
+            for (int landmark : HAND_LANDMARKS) {
+                if (landmark >= count) {
+                    break;
+                }
+                float x = frame.landmarkX(person, landmark) * width;
+                float y = frame.landmarkY(person, landmark) * height;
+                minX = Math.min(minX, x);
+                minY = Math.min(minY, y);
+                maxX = Math.max(maxX, x);
+                maxY = Math.max(maxY, y);
+            }
+            float shoulderDx = (frame.landmarkX(person, LEFT_SHOULDER) - frame.landmarkX(person, RIGHT_SHOULDER)) * width;
+            float shoulderDy = (frame.landmarkY(person, LEFT_SHOULDER) - frame.landmarkY(person, RIGHT_SHOULDER)) * height;
+            shoulderWidth = Math.max(shoulderWidth,
+                    (float) Math.sqrt(shoulderDx * shoulderDx + shoulderDy * shoulderDy));
+        }
+        if (minX == Float.MAX_VALUE) {
+            packedRegion.set(NO_REGION);
+            return;
+        }
+        float padding = shoulderWidth * PADDING_SHOULDER_RATIO;
+
+        // Square, so the detector's resize does not distort the objects
+        float shortSide = Math.min(width, height);
+        float side = Math.max(Math.max(maxX - minX, maxY - minY) + 2 * padding, shortSide * MIN_SIZE_RATIO);
+        side = Math.min(side, shortSide);
+        float centerX = (minX + maxX) / 2f;
+        float centerY = (minY + maxY) / 2f;
+        float left = clamp(centerX - side / 2f, 0f, width - side);
+        float top = clamp(centerY - side / 2f, 0f, height - side);
+
+        packedRegion.set(pack(left / width, top / height, (left + side) / width, (top + side) / height));
+        updatedAtMs = timestampMs;
+    }
+
+    /**
+     * Writes the region as normalized left, top, right, bottom into {@code out}.
+     * Returns false if there is no region or it is older than {@code maxAgeMs}.
+     */
+    public boolean getRegion(long nowMs, long maxAgeMs, float[] out) {
+        long packed = packedRegion.get();
+        if (packed == NO_REGION || nowMs - updatedAtMs > maxAgeMs) {
+            return false;
+        }
+        out[0] = ((packed >>> 48) & 0xFFFF) / SCALE;
+        out[1] = ((packed >>> 32) & 0xFFFF) / SCALE;
+        out[2] = ((packed >>> 16) & 0xFFFF) / SCALE;
+        out[3] = (packed & 0xFFFF) / SCALE;
+        return true;
+    }
+
+    private static long pack(float left, float top, float right, float bottom) {
+        return (quantize(left) << 48) | (quantize(top) << 32) | (quantize(right) << 16) | quantize(bottom);
+    }
+
+    private static long quantize(float value) {
+        return Math.round(clamp(value, 0f, 1f) * SCALE) & 0xFFFFL;
+    }
+
+    private static float clamp(float value, float min, float max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
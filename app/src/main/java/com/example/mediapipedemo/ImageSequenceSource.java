@@ -0,0 +1,90 @@
+package com.example.mediapipedemo;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Frames stored as numbered JPEG or PNG files in one directory, as extracted
+ * from a recording at a fixed rate (e.g. {@code ffmpeg -i in.mp4 -r 15 %06d.jpg}).
+ * Files play in name order, {@code 1000 / framesPerSecond} ms apart.
+ *
+ * Each frame is decoded into the previous frame's Bitmap when the sizes allow,
+ * so a stream of same-sized frames allocates one Bitmap in total.
+ */
+public class ImageSequenceSource implements FrameSource {
+    private final String name;
+    private final File[] files;
+    private final float framesPerSecond;
+    private final BitmapFactory.Options options = new BitmapFactory.Options();
+    private int nextIndex;
+    private long timestampMs;
+
+    public ImageSequenceSource(File directory, float framesPerSecond) throws IOException {
+        File[] files = directory.listFiles((dir, fileName) -> isImage(fileName));
+        if (files == null) {
+            throw new IOException("Cannot list " + directory);
+        }
+        Arrays.sort(files);
+        this.name = directory.getName();
+        this.files = files;
+        this.framesPerSecond = framesPerSecond;
+        options.inMutable = true;
+        options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+    }
+
+    private static boolean isImage(String fileName) {
+        String lower = fileName.toLowerCase(Locale.US);
+        return lower.endsWith(".jpg") || lower.endsWith(".jpeg") || lower.endsWith(".png");
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    public int getFrameCount() {
+        return files.length;
+    }
+
+    @Override
+    public Bitmap next() throws IOException {
+        if (nextIndex >= files.length) {
+            return null;
+        }
+        String path = files[nextIndex].getPath();
+        Bitmap bitmap;
+        try {
+            bitmap = BitmapFactory.decodeFile(path, options);
+        } catch (IllegalArgumentException e) {
+            // The frame does not fit into the previous one's Bitmap
+            bitmap = null;
+        }
+        if (bitmap == null && options.inBitmap != null) {
+            options.inBitmap = null;
+            bitmap = BitmapFactory.decodeFile(path, options);
+        }
+        if (bitmap == null) {
+            throw new IOException("Cannot decode " + path);
+        }
+        options.inBitmap = bitmap;
+        timestampMs = Math.round(nextIndex * 1000.0 / framesPerSecond);
+        nextIndex++;
+        return bitmap;
+    }
+
+    @Override
+    public long getTimestampMs() {
+        return timestampMs;
+    }
+
+    @Override
+    public void close() {
+        options.inBitmap = null;
+        nextIndex = files.length;
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.mediapipedemo;
+
+/**
+ * Decides per frame which models run, based on how long each model has
+ * recently been taking.
+ *
+ * Each model has a target rate and a latency budget. The scheduler runs a model
+ * at most at its current rate, and adapts that rate additive-increase /
+ * multiplicative-decrease style: when the smoothed inference latency reported by
+ * the helper goes over budget the rate is cut, and while it stays under budget
+ * the rate creeps back up towards the target. So pose can run at full camera
+ * rate while object detection settles at whatever rate keeps it within budget.
+ *
+ * {@link #isDue} and {@link #onSubmitted} are called from the camera thread;
+ * {@link #recordLatency} may be called from any result callback thread.
+ */
+public class InferenceScheduler {
+    public enum Model {
+        POSE,
+        OBJECTS
+    }
+
+    // Weight of the newest sample in the smoothed latency
+    private static final float LATENCY_SMOOTHING = 0.2f;
+    // Rate multiplier applied when a model goes over its latency budget
+    private static final float BACKOFF_FACTOR = 0.8f;
+    // Rate added per fresh latency sample while a model is within its budget
+    private static final float RECOVERY_STEP_FPS = 0.25f;
+    private static final float MIN_FPS = 1f;
+
+    private final ModelState[] states = new ModelState[Model.values().length];
+
+    public InferenceScheduler(float poseTargetFps, long poseMaxLatencyMs,
+            float objectTargetFps, long objectMaxLatencyMs) {
+        states[Model.POSE.ordinal()] = new ModelState(poseTargetFps, poseMaxLatencyMs);
+        states[Model.OBJECTS.ordinal()] = new ModelState(objectTargetFps, objectMaxLatencyMs);
+    }
+
+    /** True if the model should get the frame arriving at {@code frameTimeMs}. */
+    public boolean isDue(Model model, long frameTimeMs) {
+        ModelState state = states[model.ordinal()];
+        adapt(state);
+        if (state.lastRunMs == Long.MIN_VALUE) {
+            return true;
+        }
+        // Half a frame of slack so a 30 fps target is not missed by a millisecond of jitter
+        float intervalMs = 1000f / state.currentFps;
+        return frameTimeMs - state.lastRunMs >= intervalMs - state.halfFrameMs;
+    }
+
+    public void onSubmitted(Model model, long frameTimeMs) {
+        ModelState state = states[model.ordinal()];
+        if (state.lastRunMs != Long.MIN_VALUE) {
+            // Track the camera frame period so the slack above follows the real frame rate
+            long period = frameTimeMs - state.lastRunMs;
+            if (period > 0 && period < 1000) {
+                state.halfFrameMs = Math.min(state.halfFrameMs, period / 2f);
+            }
+        }
+        state.lastRunMs = frameTimeMs;
+    }
+
+    /** Feeds back the end-to-end latency the helper measured for one result. */
+    public void recordLatency(Model model, long inferenceTimeMs) {
+        ModelState state = states[model.ordinal()];
+        float previous = state.smoothedLatencyMs;
+        state.smoothedLatencyMs = previous < 0
+                ? inferenceTimeMs
+                : previous + LATENCY_SMOOTHING * (inferenceTimeMs - previous);
+        state.samplesSinceAdapt++;
+    }
+
+    public float getCurrentFps(Model model) {
+        return states[model.ordinal()].currentFps;
+    }
+
+    public float getTargetFps(Model model) {
+        return states[model.ordinal()].targetFps;
+    }
+
+    /** Smoothed latency, or -1 before the first result. */
+    public float getSmoothedLatencyMs(Model model) {
+        return states[model.ordinal()].smoothedLatencyMs;
+    }
+
+    private static void adapt(ModelState state) {
+        // Only react to fresh information; otherwise one slow result would keep
+        // cutting the rate on every frame until the next result arrives.
+        if (state.samplesSinceAdapt == 0) {
+            return;
+        }
+        state.samplesSinceAdapt = 0;
+        float latency = state.smoothedLatencyMs;
+        if (latency > state.maxLatencyMs) {
+            state.currentFps = Math.max(MIN_FPS, state.currentFps * BACKOFF_FACTOR);
+        } else {
+            state.currentFps = Math.min(state.targetFps, state.currentFps + RECOVERY_STEP_FPS);
+        }
+    }
+
+    private static final class ModelState {
+        final float targetFps;
+        final long maxLatencyMs;
+
+        // Written by result callbacks, read on the camera thread
+        volatile float smoothedLatencyMs = -1f;
+        volatile int samplesSinceAdapt;
+
+        // Camera thread only
+        float currentFps;
+        long lastRunMs = Long.MIN_VALUE;
+        float halfFrameMs = 16f;
+
+        ModelState(float targetFps, long maxLatencyMs) {
+            this.targetFps = targetFps;
+            this.maxLatencyMs = maxLatencyMs;
+            this.currentFps = targetFps;
+        }
+    }
+}
@@ -3,7 +3,10 @@ package com.example.mediapipedemo;
 import android.Manifest;
 import android.content.pm.PackageManager;
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.util.Log;
+import android.util.Size;
+import android.view.View;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
@@ -15,15 +18,19 @@ import androidx.camera.view.PreviewView;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.EnumSet;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 import androidx.camera.core.ImageAnalysis;
-import com.google.mediapipe.tasks.components.containers.Category;
-import com.google.mediapipe.tasks.components.containers.Detection;
 import com.google.mediapipe.tasks.vision.objectdetector.ObjectDetectorResult;
 import com.google.mediapipe.tasks.vision.poselandmarker.PoseLandmarkerResult;
 
@@ -37,25 +44,104 @@ public class MainActivity extends AppCompatActivity {
     private ExecutorService cameraExecutor;
     private PoseLandmarkerHelper poseLandmarkerHelper;
     private ObjectDetectorHelper objectDetectorHelper;
+    private FramePipeline framePipeline;
+    private DetectorInitializer detectorInitializer;
     private android.widget.TextView actionStatusText;
-
-    // Multi-modal state
-    private PoseLandmarkerResult lastPoseResult;
-    private ObjectDetectorResult lastObjectResult;
-
-    private int frameImageWidth = 1;
-    private int frameImageHeight = 1;
-
-    // Frame Alternation Counter
-    private int frameCounter = 0;
-
-    // Smoothing list to prevent rapid flickering of status
-    private final java.util.LinkedList<String> recentStatuses = new java.util.LinkedList<>();
-    private static final int SMOOTHING_WINDOW_SIZE = 10;
+    private MetricsReporter metricsReporter;
+    private TimelineRecorder timelineRecorder;
+    private RuleFileWatcher ruleFileWatcher;
+    private EvidenceCapture evidenceCapture;
+    private ModelTierGovernor tierGovernor;
+
+    // Switch between the original Bitmap copy path and the zero-copy path for benchmarking
+    private static final FramePreprocessor.IngestionMode INGESTION_MODE = FramePreprocessor.IngestionMode.ZERO_COPY;
+
+    // Ask the camera for 640x480 analysis frames; the models resample to 256 (pose
+    // landmarks) and 320 (EfficientDet-Lite0) anyway. Pose keeps a larger input since
+    // its landmark model crops the person out of the frame first.
+    private static final Size ANALYSIS_RESOLUTION = new Size(640, 480);
+    private static final int POSE_MIN_LONG_EDGE = 480;
+    private static final int OBJECT_MIN_LONG_EDGE = 320;
+    private final ResolutionPolicy resolutionPolicy = new ResolutionPolicy(
+            ANALYSIS_RESOLUTION, POSE_MIN_LONG_EDGE, OBJECT_MIN_LONG_EDGE);
+
+    // Skip models on frames where the scene has not changed: 3% of the 32x24 luma
+    // thumbnail moving by more than 12 counts as a change. Objects are refreshed at
+    // least every 2 s; pose keeps running unless gated, and then at least every
+    // 500 ms so people's tracks do not time out.
+    private static final boolean MOTION_GATE_ENABLED = true;
+    private static final int MOTION_LUMA_THRESHOLD = 12;
+    private static final float MOTION_MIN_CHANGED_FRACTION = 0.03f;
+    private static final boolean MOTION_GATE_POSE = false;
+    private static final long MOTION_POSE_REFRESH_MS = 500;
+    private static final long MOTION_OBJECT_REFRESH_MS = 2000;
+
+    // Pose and object results further apart than this are not fused together
+    private static final long FUSION_MAX_SKEW_MS = 100;
+
+    // Per-model rate targets and latency budgets. Pose runs at half the camera rate;
+    // the landmark filter predicts the frames in between. Objects in hand change
+    // slowly, so detection may drop its rate to keep its results fresh.
+    private static final float POSE_TARGET_FPS = 15f;
+    private static final long POSE_MAX_LATENCY_MS = 100;
+    private static final float OBJECT_TARGET_FPS = 15f;
+    private static final long OBJECT_MAX_LATENCY_MS = 150;
+
+    private final InferenceScheduler inferenceScheduler = new InferenceScheduler(
+            POSE_TARGET_FPS, POSE_MAX_LATENCY_MS, OBJECT_TARGET_FPS, OBJECT_MAX_LATENCY_MS);
+
+    // Switch each model between its tiers (lite / full / heavy pose, EfficientDet
+    // lite0 / lite2 and result limits) to keep its smoothed latency under these
+    // targets, acting before the scheduler has to cut the rate much
+    private static final boolean TIER_GOVERNOR_ENABLED = true;
+    private static final long POSE_TARGET_LATENCY_MS = 80;
+    private static final long OBJECT_TARGET_LATENCY_MS = 120;
+
+    // Run the object detector on a crop around the hands from the latest pose,
+    // falling back to the full frame when no pose is newer than this
+    private static final boolean OBJECT_ROI_ENABLED = true;
+    private static final long OBJECT_ROI_MAX_AGE_MS = 300;
+    private final HandRegionTracker handRegionTracker = new HandRegionTracker();
+
+    // Multi-modal state: pairs the two models' results by frame timestamp
+    private ResultFusionBuffer fusionBuffer;
+
+    // Tracking, rules and smoothing; the replay harness runs the same pipeline
+    private final ActionPipeline actionPipeline = new ActionPipeline();
+    // Consumer thread only; the status banner shows the most urgent person's status
+    private ActionStatus shownStatus;
+    // One prebuilt UI update per status, posted only when the smoothed status changes
+    private final Runnable[] statusUpdaters = createStatusUpdaters();
+
+    // Save an annotated JPEG to the "evidence" dir in the app's external files dir
+    // when someone is caught on the phone: at most one every 10 s and 200 per
+    // session, keeping the newest 50 MB
+    private static final boolean EVIDENCE_ENABLED = true;
+    private static final EnumSet<ActionStatus> EVIDENCE_TRIGGERS = EnumSet.of(ActionStatus.PHONE_CONFIRMED);
+    private static final long EVIDENCE_MIN_INTERVAL_MS = 10_000;
+    private static final int EVIDENCE_MAX_PER_SESSION = 200;
+    private static final long EVIDENCE_QUOTA_BYTES = 50L * 1024 * 1024;
+    private static final boolean EVIDENCE_ANNOTATE = true;
+
+    // Per-stage latency histograms, reported to logcat and metrics.log in the app's
+    // external files dir; the HUD shows the same report on screen
+    private static final long METRICS_REPORT_INTERVAL_MS = 5000;
+    private static final boolean DEBUG_HUD_ENABLED = false;
+    private final PipelineMetrics pipelineMetrics = new PipelineMetrics();
+
+    // Launch time, for the time-to-first-result metric
+    private long createdAtMs;
+    // Consumer thread only
+    private boolean awaitingFirstResult = true;
+
+    // Reused for every fused frame so the analysis path does not allocate
+    private final ActionFrameBuilder actionFrameBuilder = new ActionFrameBuilder();
+    private final ActionFrame actionFrame = new ActionFrame();
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        createdAtMs = SystemClock.uptimeMillis();
         setContentView(R.layout.activity_main);
 
         viewFinder = findViewById(R.id.viewFinder);
@@ -71,6 +157,10 @@ public class MainActivity extends AppCompatActivity {
 
         cameraExecutor = Executors.newSingleThreadExecutor();
 
+        fusionBuffer = new ResultFusionBuffer(FUSION_MAX_SKEW_MS, this::processMultiModalData);
+        fusionBuffer.setMetrics(pipelineMetrics);
+        overlayView.setMetrics(pipelineMetrics);
+
         poseLandmarkerHelper = new PoseLandmarkerHelper(this, new PoseLandmarkerHelper.PoseLandmarkerListener() {
             @Override
             public void onError(String error) {
@@ -78,11 +168,11 @@ public class MainActivity extends AppCompatActivity {
             }
 
             @Override
-            public void onResults(PoseLandmarkerResult result, long inferenceTime, int imageHeight, int imageWidth) {
-                lastPoseResult = result;
-                frameImageHeight = imageHeight;
-                frameImageWidth = imageWidth;
-                processMultiModalData();
+            public void onResults(PoseLandmarkerResult result, FrameTransform transform, long inferenceTime,
+                    int imageHeight, int imageWidth) {
+                inferenceScheduler.recordLatency(InferenceScheduler.Model.POSE, inferenceTime);
+                pipelineMetrics.recordMillis(PipelineMetrics.Stage.POSE_INFERENCE, inferenceTime);
+                fusionBuffer.offerPose(result, transform);
             }
         });
 
@@ -93,159 +183,134 @@ public class MainActivity extends AppCompatActivity {
             }
 
             @Override
-            public void onResults(ObjectDetectorResult results, long inferenceTime, int imageHeight, int imageWidth) {
-                lastObjectResult = results;
-                frameImageHeight = imageHeight;
-                frameImageWidth = imageWidth;
-                processMultiModalData();
+            public void onResults(ObjectDetectorResult results, FrameTransform transform, long inferenceTime,
+                    int imageHeight, int imageWidth) {
+                inferenceScheduler.recordLatency(InferenceScheduler.Model.OBJECTS, inferenceTime);
+                pipelineMetrics.recordMillis(PipelineMetrics.Stage.OBJECT_INFERENCE, inferenceTime);
+                fusionBuffer.offerObjects(results, transform);
             }
         });
-    }
-
-    private void processMultiModalData() {
-        // Pass results to OverlayView for drawing
-        overlayView.post(() -> {
-            overlayView.setResults(lastPoseResult, lastObjectResult, frameImageHeight, frameImageWidth);
-        });
 
-        if (lastPoseResult == null || lastPoseResult.landmarks().isEmpty()) {
-            updateStatusText("未检测到人体");
-            return;
+        if (TIER_GOVERNOR_ENABLED) {
+            tierGovernor = new ModelTierGovernor(inferenceScheduler, poseLandmarkerHelper, POSE_TARGET_LATENCY_MS,
+                    objectDetectorHelper, OBJECT_TARGET_LATENCY_MS);
         }
 
-        java.util.List<com.google.mediapipe.tasks.components.containers.NormalizedLandmark> landmarks = lastPoseResult
-                .landmarks().get(0);
-
-        String currentStatus = analyzeAction(landmarks, lastObjectResult);
-        updateStatusText(currentStatus);
-    }
-
-    private String analyzeAction(
-            java.util.List<com.google.mediapipe.tasks.components.containers.NormalizedLandmark> poseLandmarks,
-            ObjectDetectorResult objectResult) {
-
-        if (poseLandmarks.size() < 17)
-            return "分析中...";
-
-        com.google.mediapipe.tasks.components.containers.NormalizedLandmark leftShoulder = poseLandmarks.get(11);
-        com.google.mediapipe.tasks.components.containers.NormalizedLandmark rightShoulder = poseLandmarks.get(12);
-        com.google.mediapipe.tasks.components.containers.NormalizedLandmark leftWrist = poseLandmarks.get(15);
-        com.google.mediapipe.tasks.components.containers.NormalizedLandmark rightWrist = poseLandmarks.get(16);
-
-        float shoulderAvgY = (leftShoulder.y() + rightShoulder.y()) / 2f;
-        float wristAvgY = (leftWrist.y() + rightWrist.y()) / 2f;
-
-        float handsToShoulderDiff = wristAvgY - shoulderAvgY;
-        float handsDistanceX = Math.abs(leftWrist.x() - rightWrist.x());
-
-        boolean isHandsUp = handsToShoulderDiff < 0.25f;
-        boolean isHandsClose = handsDistanceX < 0.4f;
-
-        // Fused Logic: Is there any object near the hands? Is it a cell phone?
-        boolean phoneInHand = false;
-        boolean anyObjectInHand = false;
-
-        if (objectResult != null) {
-            for (Detection detection : objectResult.detections()) {
-                boolean isNearHands = false;
-                android.graphics.RectF rect = detection.boundingBox();
-
-                int currentWidth = frameImageWidth;
-                int currentHeight = frameImageHeight;
-
-                if (currentWidth > 0 && currentHeight > 0) {
-                    float leftWristX = leftWrist.x() * currentWidth;
-                    float leftWristY = leftWrist.y() * currentHeight;
-                    float rightWristX = rightWrist.x() * currentWidth;
-                    float rightWristY = rightWrist.y() * currentHeight;
-
-                    // Reduce padding to 50 pixels to be strict. (150px was too large and could
-                    // intersect with background objects)
-                    float padding = 50f;
-                    android.graphics.RectF expandedRect = new android.graphics.RectF(
-                            rect.left - padding,
-                            rect.top - padding,
-                            rect.right + padding,
-                            rect.bottom + padding);
-
-                    // Does the left or right wrist fall inside the expanded bounding box?
-                    if (expandedRect.contains(leftWristX, leftWristY)
-                            || expandedRect.contains(rightWristX, rightWristY)) {
-                        isNearHands = true;
-                    }
+        // Models load and warm up in the background; frames are dropped until then
+        detectorInitializer = new DetectorInitializer(poseLandmarkerHelper, objectDetectorHelper);
+        Futures.addCallback(detectorInitializer.start(), new FutureCallback<Void>() {
+            @Override
+            public void onSuccess(Void result) {
+                pipelineMetrics.setModelsReadyMs(SystemClock.uptimeMillis() - createdAtMs);
+                if (tierGovernor != null) {
+                    tierGovernor.start();
                 }
+            }
 
-                if (isNearHands) {
-                    for (Category category : detection.categories()) {
-                        // Ignore the person class. The user themselves is a person,
-                        // and their hands naturally intersect with their person bounding box!
-                        if (category.categoryName().equals("person")) {
-                            continue;
-                        }
-
-                        // For generic "any object in hand", we need a decently high confidence (e.g., >
-                        // 0.55f)
-                        if (category.score() > 0.55f) {
-                            anyObjectInHand = true;
-                        }
-
-                        if (category.categoryName().equals("cell phone") && category.score() > 0.6f) {
-                            phoneInHand = true;
-                        }
-                    }
-                }
+            @Override
+            public void onFailure(Throwable t) {
+                Log.e(TAG, "Detector initialization failed", t);
             }
-        }
+        }, MoreExecutors.directExecutor());
 
-        if (phoneInHand) {
-            return "📱 抓到啦！正在玩手机！";
+        framePipeline = new FramePipeline(new FramePreprocessor(INGESTION_MODE), poseLandmarkerHelper,
+                objectDetectorHelper, inferenceScheduler);
+        if (OBJECT_ROI_ENABLED) {
+            framePipeline.setHandRegionTracker(handRegionTracker, OBJECT_ROI_MAX_AGE_MS);
         }
+        framePipeline.setResolutionPolicy(resolutionPolicy);
+        if (MOTION_GATE_ENABLED) {
+            framePipeline.setMotionGate(new MotionGate(MOTION_LUMA_THRESHOLD, MOTION_MIN_CHANGED_FRACTION,
+                    MOTION_GATE_POSE, MOTION_POSE_REFRESH_MS, MOTION_OBJECT_REFRESH_MS), fusionBuffer);
+        }
+        framePipeline.setMetrics(pipelineMetrics);
+        actionPipeline.setMetrics(pipelineMetrics);
 
-        if (anyObjectInHand) {
-            return "📱 疑似在玩手机/手持物";
-        } else if (handsToShoulderDiff > 0.45f) {
-            return "✍️ 努力写字中...";
+        android.widget.TextView hud = null;
+        if (DEBUG_HUD_ENABLED) {
+            hud = findViewById(R.id.debugHudText);
+            hud.setVisibility(View.VISIBLE);
+        }
+        File metricsDir = getExternalFilesDir(null);
+        metricsReporter = new MetricsReporter(pipelineMetrics, framePipeline, fusionBuffer,
+                new File(metricsDir != null ? metricsDir : getFilesDir(), "metrics.log"), hud);
+        metricsReporter.setTierGovernor(tierGovernor);
+        metricsReporter.start(METRICS_REPORT_INTERVAL_MS);
+
+        // Edit this file to change the action rules; they are reloaded as it is saved
+        ruleFileWatcher = new RuleFileWatcher(
+                new File(metricsDir != null ? metricsDir : getFilesDir(), "action_rules.txt"), actionPipeline);
+        ruleFileWatcher.start();
+
+        if (EVIDENCE_ENABLED) {
+            try {
+                evidenceCapture = new EvidenceCapture(
+                        new File(metricsDir != null ? metricsDir : getFilesDir(), "evidence"), EVIDENCE_TRIGGERS,
+                        EVIDENCE_MIN_INTERVAL_MS, EVIDENCE_MAX_PER_SESSION, EVIDENCE_QUOTA_BYTES, EVIDENCE_ANNOTATE);
+                framePipeline.setEvidenceCapture(evidenceCapture);
+            } catch (IOException e) {
+                Log.e(TAG, "Evidence capture disabled", e);
+            }
         }
 
-        return "🤔 正常姿态 / 未知动作";
+        try {
+            timelineRecorder = new TimelineRecorder(
+                    new File(metricsDir != null ? metricsDir : getFilesDir(), "timeline"));
+        } catch (IOException e) {
+            Log.e(TAG, "Action timeline disabled", e);
+        }
     }
 
-    private synchronized void updateStatusText(String newStatus) {
-        recentStatuses.add(newStatus);
-        if (recentStatuses.size() > SMOOTHING_WINDOW_SIZE) {
-            recentStatuses.poll();
+    // Runs once per camera frame, on one thread at a time; see ResultFusionBuffer
+    private void processMultiModalData(FusedSnapshot snapshot) {
+        if (awaitingFirstResult) {
+            awaitingFirstResult = false;
+            long firstResultMs = SystemClock.uptimeMillis() - createdAtMs;
+            pipelineMetrics.setFirstFusedResultMs(firstResultMs);
+            Log.i(TAG, "Time to first fused result: " + firstResultMs + " ms");
+        }
+        actionFrameBuilder.fill(snapshot, actionFrame);
+        ActionStatus overallStatus = actionPipeline.process(
+                actionFrame, snapshot.getPoseTimestampMs(), snapshot.getDisplayTimestampMs());
+        ActionStatus[] personStatuses = actionPipeline.getPersonStatuses();
+        if (snapshot.getPose() != null) {
+            handRegionTracker.update(actionFrame, snapshot.getPoseTimestampMs());
+        }
+        updateStatusText(overallStatus);
+        if (evidenceCapture != null) {
+            evidenceCapture.onStatus(overallStatus, actionFrame, snapshot.getDisplayTimestampMs());
         }
 
-        java.util.Map<String, Integer> counts = new java.util.HashMap<>();
-        for (String status : recentStatuses) {
-            counts.put(status, counts.getOrDefault(status, 0) + 1);
+        if (timelineRecorder != null) {
+            long recordStart = System.nanoTime();
+            timelineRecorder.record(snapshot.getDisplayTimestampMs(), actionFrame, personStatuses,
+                    overallStatus, actionPipeline.getPersonTracker());
+            pipelineMetrics.recordNanos(PipelineMetrics.Stage.RECORD, System.nanoTime() - recordStart);
         }
 
-        String mostFrequentStatus = newStatus;
-        int maxCount = 0;
-        for (java.util.Map.Entry<String, Integer> entry : counts.entrySet()) {
-            if (entry.getValue() > maxCount) {
-                maxCount = entry.getValue();
-                mostFrequentStatus = entry.getKey();
-            }
+        // Pass results to OverlayView for drawing; it coalesces redraws to one per frame
+        overlayView.setResults(snapshot, actionFrame, personStatuses);
+    }
+
+    private void updateStatusText(ActionStatus newStatus) {
+        if (newStatus != shownStatus) {
+            shownStatus = newStatus;
+            runOnUiThread(statusUpdaters[newStatus.ordinal()]);
         }
+    }
 
-        final String finalStatus = mostFrequentStatus;
-        runOnUiThread(() -> {
-            if (actionStatusText != null && !actionStatusText.getText().toString().equals(finalStatus)) {
-                actionStatusText.setText(finalStatus);
-
-                if (finalStatus.contains("写字")) {
-                    actionStatusText.setBackgroundColor(android.graphics.Color.parseColor("#884CAF50")); // Green
-                } else if (finalStatus.contains("玩手机")) {
-                    actionStatusText.setBackgroundColor(android.graphics.Color.parseColor("#88F44336")); // Red
-                } else if (finalStatus.contains("未检测到人体") || finalStatus.contains("分析中")) {
-                    actionStatusText.setBackgroundColor(android.graphics.Color.parseColor("#88000000")); // Black
-                } else {
-                    actionStatusText.setBackgroundColor(android.graphics.Color.parseColor("#88FF9800")); // Orange
+    private Runnable[] createStatusUpdaters() {
+        ActionStatus[] statuses = ActionStatus.values();
+        Runnable[] updaters = new Runnable[statuses.length];
+        for (ActionStatus status : statuses) {
+            updaters[status.ordinal()] = () -> {
+                if (actionStatusText != null) {
+                    actionStatusText.setText(status.getLabel());
+                    actionStatusText.setBackgroundColor(status.getBackgroundColor());
                 }
-            }
-        });
+            };
+        }
+        return updaters;
     }
 
     private void startCamera() {
@@ -265,22 +330,18 @@ public class MainActivity extends AppCompatActivity {
                 ImageAnalysis imageAnalysis = new ImageAnalysis.Builder()
                         .setBackpressureStrategy(ImageAnalysis.STRATEGY_KEEP_ONLY_LATEST)
                         .setOutputImageFormat(ImageAnalysis.OUTPUT_IMAGE_FORMAT_RGBA_8888)
+                        .setResolutionSelector(resolutionPolicy.buildResolutionSelector())
                         .build();
 
+                // Until both models are warmed up frames are closed unprocessed; after that every
+                // frame is offered to both models and the scheduler and in-flight limits decide which run
                 imageAnalysis.setAnalyzer(cameraExecutor, image -> {
-                    frameCounter++;
-                    if (frameCounter % 2 == 0) {
-                        if (poseLandmarkerHelper != null) {
-                            poseLandmarkerHelper.detectLiveStream(image, isFrontCamera);
-                        } else {
-                            image.close();
-                        }
+                    if (framePipeline != null && detectorInitializer.isReady()) {
+                        framePipeline.onFrame(image, isFrontCamera);
+                        // Frames without a fresh result still get a predicted pose
+                        fusionBuffer.tick(SystemClock.uptimeMillis());
                     } else {
-                        if (objectDetectorHelper != null) {
-                            objectDetectorHelper.detectLiveStream(image, isFrontCamera);
-                        } else {
-                            image.close();
-                        }
+                        image.close();
                     }
                 });
 
@@ -319,6 +380,32 @@ public class MainActivity extends AppCompatActivity {
     @Override
     protected void onDestroy() {
         super.onDestroy();
+        if (metricsReporter != null) {
+            metricsReporter.close();
+        }
+        if (ruleFileWatcher != null) {
+            ruleFileWatcher.stop();
+        }
+        if (timelineRecorder != null) {
+            timelineRecorder.close();
+            Log.i(TAG, "Action timeline: " + timelineRecorder.getWrittenCount() + " written, "
+                    + timelineRecorder.getDroppedCount() + " dropped");
+            if (timelineRecorder.getFailure() != null) {
+                Log.e(TAG, "Action timeline write failed", timelineRecorder.getFailure());
+            }
+        }
+        if (evidenceCapture != null) {
+            evidenceCapture.close();
+        }
+        if (tierGovernor != null) {
+            tierGovernor.close();
+        }
+        if (detectorInitializer != null) {
+            detectorInitializer.close();
+        }
+        if (framePipeline != null) {
+            framePipeline.close();
+        }
         if (poseLandmarkerHelper != null) {
             poseLandmarkerHelper.close();
         }
@@ -0,0 +1,138 @@
+package com.example.mediapipedemo;
+
+import android.util.Log;
+import android.widget.TextView;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically drains {@link PipelineMetrics} and the pipeline counters into
+ * one report, and writes it to logcat, to a file, and optionally to an
+ * on-screen HUD. Runs on its own thread, so the hot paths only ever pay for
+ * recording.
+ */
+public class MetricsReporter {
+    private static final String TAG = "PipelineMetrics";
+    // The log file is rolled over to a single ".1" backup past this size
+    private static final long MAX_LOG_BYTES = 1024 * 1024;
+
+    private final PipelineMetrics metrics;
+    private final FramePipeline pipeline;
+    private final ResultFusionBuffer fusionBuffer;
+    private final File logFile;
+    private final TextView hud;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    private final StringBuilder report = new StringBuilder(1024);
+    private volatile ModelTierGovernor tierGovernor;
+
+    /**
+     * @param logFile file to append reports to, or null for logcat only
+     * @param hud     view to show the latest report in, or null for no HUD
+     */
+    public MetricsReporter(PipelineMetrics metrics, FramePipeline pipeline, ResultFusionBuffer fusionBuffer,
+            File logFile, TextView hud) {
+        this.metrics = metrics;
+        this.pipeline = pipeline;
+        this.fusionBuffer = fusionBuffer;
+        this.logFile = logFile;
+        this.hud = hud;
+    }
+
+    /** Adds the live model tiers to the report; null to leave them out. */
+    public void setTierGovernor(ModelTierGovernor governor) {
+        this.tierGovernor = governor;
+    }
+
+    public void start(long intervalMs) {
+        executor.scheduleAtFixedRate(this::report, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void close() {
+        executor.shutdown();
+    }
+
+    private void report() {
+        report.setLength(0);
+        report.append("frames recv=").append(pipeline.getFramesReceived())
+                .append(" dropped=").append(pipeline.getFramesDropped())
+                .append(" skipped=").append(pipeline.getFramesSkipped())
+                .append(" pose=").append(pipeline.getPoseSubmitted())
+                .append(" objects=").append(pipeline.getObjectSubmitted())
+                .append(" cropped=").append(pipeline.getObjectCropped())
+                .append('\n');
+        report.append("fusion published=").append(fusionBuffer.getPublishedCount())
+                .append(" stale=").append(fusionBuffer.getStaleCount())
+                .append(" unpaired=").append(fusionBuffer.getUnpairedCount())
+                .append(" pooled_created=").append(fusionBuffer.getPooledCreatedCount())
+                .append('\n');
+        appendDrops("pose", pipeline.getPoseGate());
+        appendDrops("objects", pipeline.getObjectGate());
+        InferenceScheduler scheduler = pipeline.getScheduler();
+        report.append("rate pose=").append(scheduler.getCurrentFps(InferenceScheduler.Model.POSE))
+                .append(" objects=").append(scheduler.getCurrentFps(InferenceScheduler.Model.OBJECTS))
+                .append('\n');
+        ModelTierGovernor governor = tierGovernor;
+        if (governor != null) {
+            report.append("tier pose=").append(governor.getTier(InferenceScheduler.Model.POSE))
+                    .append(" objects=").append(governor.getTier(InferenceScheduler.Model.OBJECTS))
+                    .append(" switches=").append(governor.getSwitchCount())
+                    .append('\n');
+        }
+        MotionGate gate = pipeline.getMotionGate();
+        if (gate != null) {
+            report.append("motion_gate skip_rate pose=").append(gate.getSkipRate(InferenceScheduler.Model.POSE))
+                    .append(" objects=").append(gate.getSkipRate(InferenceScheduler.Model.OBJECTS))
+                    .append('\n');
+        }
+        EvidenceCapture capture = pipeline.getEvidenceCapture();
+        if (capture != null) {
+            report.append("evidence saved=").append(capture.getSavedCount())
+                    .append(" dropped=").append(capture.getDroppedCount())
+                    .append(" rate_limited=").append(capture.getRateLimitedCount())
+                    .append(" evicted=").append(capture.getEvictedCount())
+                    .append('\n');
+        }
+        metrics.appendReport(report);
+
+        String text = report.toString();
+        Log.i(TAG, text);
+        if (logFile != null) {
+            writeToFile(text);
+        }
+        if (hud != null) {
+            hud.post(() -> hud.setText(text));
+        }
+    }
+
+    private void appendDrops(String model, SubmissionGate gate) {
+        if (gate == null) {
+            return;
+        }
+        report.append("drops ").append(model).append(' ');
+        gate.appendDrops(report);
+        report.append(" expired=").append(gate.getExpiredCount())
+                .append('\n');
+    }
+
+    private void writeToFile(String text) {
+        if (logFile.length() > MAX_LOG_BYTES) {
+            File backup = new File(logFile.getPath() + ".1");
+            if (!logFile.renameTo(backup)) {
+                Log.w(TAG, "Could not roll over " + logFile);
+            }
+        }
+        try (Writer writer = new FileWriter(logFile, true)) {
+            writer.write(Long.toString(System.currentTimeMillis()));
+            writer.write('\n');
+            writer.write(text);
+        } catch (IOException e) {
+            Log.w(TAG, "Could not write metrics: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.mediapipedemo;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Process-wide cache of model files, so each model is mapped once and shared
+ * by every helper instance, including the ones created after an activity is
+ * recreated.
+ *
+ * Models are memory-mapped straight out of the APK. That needs them stored
+ * uncompressed (see noCompress in app/build.gradle); a compressed asset is
+ * read into a direct buffer instead, which is still only done once.
+ */
+public final class ModelAssetCache {
+    private static final String TAG = "ModelAssetCache";
+
+    private static final Map<String, ByteBuffer> buffers = new HashMap<>();
+
+    private ModelAssetCache() {
+    }
+
+    /**
+     * Returns the model at {@code assetPath}, mapping it on first use. The
+     * returned buffer is shared; callers must not change its position or limit.
+     */
+    public static synchronized ByteBuffer get(Context context, String assetPath) throws IOException {
+        ByteBuffer buffer = buffers.get(assetPath);
+        if (buffer != null) {
+            return buffer;
+        }
+        long start = SystemClock.uptimeMillis();
+        try {
+            buffer = map(context, assetPath);
+        } catch (FileNotFoundException e) {
+            // openFd fails for compressed assets
+            Log.w(TAG, assetPath + " is compressed in the APK; reading it into memory instead");
+            buffer = read(context, assetPath);
+        }
+        buffers.put(assetPath, buffer);
+        Log.i(TAG, "Loaded " + assetPath + " (" + buffer.capacity() + " bytes) in "
+                + (SystemClock.uptimeMillis() - start) + " ms");
+        return buffer;
+    }
+
+    private static ByteBuffer map(Context context, String assetPath) throws IOException {
+        try (AssetFileDescriptor descriptor = context.getAssets().openFd(assetPath);
+                FileInputStream input = new FileInputStream(descriptor.getFileDescriptor())) {
+            // The mapping stays valid after the channel is closed
+            FileChannel channel = input.getChannel();
+            return channel.map(FileChannel.MapMode.READ_ONLY, descriptor.getStartOffset(),
+                    descriptor.getDeclaredLength());
+        }
+    }
+
+    private static ByteBuffer read(Context context, String assetPath) throws IOException {
+        try (InputStream input = context.getAssets().open(assetPath)) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] chunk = new byte[64 * 1024];
+            int read;
+            while ((read = input.read(chunk)) != -1) {
+                bytes.write(chunk, 0, read);
+            }
+            // Exactly sized, since the native side may look at the capacity
+            ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.size()).order(ByteOrder.nativeOrder());
+            buffer.put(bytes.toByteArray());
+            buffer.flip();
+            return buffer;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.mediapipedemo;
+
+/**
+ * One cost/accuracy setting of a model: which model file to load, and how many
+ * results at what minimum score to ask for. For the pose landmarker those are
+ * the number of poses and the minimum pose detection confidence.
+ */
+public final class ModelTier {
+    private final String name;
+    private final String modelPath;
+    private final int maxResults;
+    private final float scoreThreshold;
+
+    public ModelTier(String name, String modelPath, int maxResults, float scoreThreshold) {
+        this.name = name;
+        this.modelPath = modelPath;
+        this.maxResults = maxResults;
+        this.scoreThreshold = scoreThreshold;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getModelPath() {
+        return modelPath;
+    }
+
+    public int getMaxResults() {
+        return maxResults;
+    }
+
+    public float getScoreThreshold() {
+        return scoreThreshold;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
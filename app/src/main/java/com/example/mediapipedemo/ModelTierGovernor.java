@@ -0,0 +1,122 @@
+package com.example.mediapipedemo;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moves each model between its {@link ModelTier}s at runtime to hold a latency
+ * target.
+ *
+ * Every {@link #EVALUATION_INTERVAL_MS} it looks at the model's smoothed
+ * latency from the {@link InferenceScheduler} and at queue pressure: the
+ * scheduler having cut the model's rate well below target, or every in-flight
+ * slot being taken. A {@link TierPolicy} per model decides from those when to
+ * go down or up a tier without flapping.
+ *
+ * Switches run on the governor's own thread through
+ * {@link TieredDetector#switchTo}, which warms up the new detector before
+ * swapping it in, so frames keep flowing throughout. The replaced detector is
+ * closed once its in-flight frames have had time to come back.
+ */
+public class ModelTierGovernor {
+    private static final String TAG = "ModelTierGovernor";
+
+    private static final long EVALUATION_INTERVAL_MS = 2000;
+    // The scheduler running a model below this fraction of its target rate counts as pressure
+    private static final float PRESSURE_RATE_FRACTION = 0.8f;
+    // Longer than the helpers' in-flight expiry, so the old detector's results are all in
+    private static final long RETIRE_DELAY_MS = 1500;
+
+    private final InferenceScheduler scheduler;
+    private final ModelState[] states = new ModelState[InferenceScheduler.Model.values().length];
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    private final AtomicLong switchCount = new AtomicLong();
+
+    public ModelTierGovernor(InferenceScheduler scheduler, TieredDetector poseDetector, long poseTargetLatencyMs,
+            TieredDetector objectDetector, long objectTargetLatencyMs) {
+        this.scheduler = scheduler;
+        states[InferenceScheduler.Model.POSE.ordinal()] = new ModelState(
+                InferenceScheduler.Model.POSE, poseDetector, poseTargetLatencyMs);
+        states[InferenceScheduler.Model.OBJECTS.ordinal()] = new ModelState(
+                InferenceScheduler.Model.OBJECTS, objectDetector, objectTargetLatencyMs);
+    }
+
+    /** Starts evaluating; call once the detectors are set up. */
+    public void start() {
+        long now = SystemClock.uptimeMillis();
+        for (ModelState state : states) {
+            state.policy.start(now);
+        }
+        executor.scheduleWithFixedDelay(this::evaluate, EVALUATION_INTERVAL_MS, EVALUATION_INTERVAL_MS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /** The live tier of {@code model}. */
+    public ModelTier getTier(InferenceScheduler.Model model) {
+        TieredDetector detector = states[model.ordinal()].detector;
+        return detector.getTiers()[detector.getTierIndex()];
+    }
+
+    public long getSwitchCount() {
+        return switchCount.get();
+    }
+
+    private void evaluate() {
+        long now = SystemClock.uptimeMillis();
+        for (ModelState state : states) {
+            evaluate(state, now);
+        }
+    }
+
+    private void evaluate(ModelState state, long now) {
+        TieredDetector detector = state.detector;
+        float latency = scheduler.getSmoothedLatencyMs(state.model);
+        boolean pressure = scheduler.getCurrentFps(state.model)
+                < scheduler.getTargetFps(state.model) * PRESSURE_RATE_FRACTION
+                || detector.getInFlightCount() >= detector.getMaxInFlight();
+        int index = state.policy.evaluate(latency, pressure, detector.getTierIndex(), now);
+        if (index >= 0) {
+            switchTier(state, index, latency);
+        }
+    }
+
+    private void switchTier(ModelState state, int index, float latency) {
+        TieredDetector detector = state.detector;
+        ModelTier from = detector.getTiers()[detector.getTierIndex()];
+        ModelTier to = detector.getTiers()[index];
+        Log.i(TAG, state.model + ": " + from + " -> " + to + " at " + latency + " ms smoothed latency, target "
+                + state.policy.getTargetLatencyMs() + " ms");
+        // Blocks this thread for the load and warm-up; nothing else runs on it
+        boolean switched = detector.switchTo(index);
+        long now = SystemClock.uptimeMillis();
+        if (switched) {
+            switchCount.incrementAndGet();
+            executor.schedule(detector::closeRetired, RETIRE_DELAY_MS, TimeUnit.MILLISECONDS);
+        } else {
+            Log.w(TAG, state.model + ": could not switch to " + to + ", leaving it out");
+        }
+        state.policy.onSwitch(index, switched, now);
+    }
+
+    private static final class ModelState {
+        final InferenceScheduler.Model model;
+        final TieredDetector detector;
+        // Governor thread only
+        final TierPolicy policy;
+
+        ModelState(InferenceScheduler.Model model, TieredDetector detector, long targetLatencyMs) {
+            this.model = model;
+            this.detector = detector;
+            this.policy = new TierPolicy(detector.getTiers().length, targetLatencyMs);
+        }
+    }
+}
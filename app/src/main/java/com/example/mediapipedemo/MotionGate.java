@@ -0,0 +1,142 @@
+package com.example.mediapipedemo;
+
+import androidx.camera.core.ImageProxy;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides whether a model needs to see a frame at all, by comparing a tiny
+ * luma thumbnail of it with the thumbnail of the last frame that model ran on.
+ *
+ * The thumbnail is {@link #THUMB_WIDTH} x {@link #THUMB_HEIGHT} cells, each the
+ * mean luma of four pixels sampled straight from the RGBA plane, so building
+ * one touches about 3k pixels. A cell has changed when its luma moved by more
+ * than the luma threshold; the scene has changed when enough cells did.
+ * Comparing against the model's last input rather than the previous frame
+ * means slow drift still adds up to a change.
+ *
+ * Object detection is skipped on unchanged scenes, and pose too if enabled,
+ * but never for longer than each model's refresh interval, so results cannot
+ * go stale. Pose's interval has to stay under PersonTracker's track timeout.
+ *
+ * {@link #sample} and the decisions run on the camera thread only; the
+ * counters may be read from any thread.
+ */
+public class MotionGate {
+    static final int THUMB_WIDTH = 32;
+    static final int THUMB_HEIGHT = 24;
+    private static final int CELLS = THUMB_WIDTH * THUMB_HEIGHT;
+
+    private final int lumaThreshold;
+    private final int minChangedCells;
+    private final boolean gatePose;
+    private final long poseRefreshMs;
+    private final long objectRefreshMs;
+
+    private final int[] thumbnail = new int[CELLS];
+    // Per model: the thumbnail it last ran on, and when
+    private final int[][] references = new int[InferenceScheduler.Model.values().length][CELLS];
+    private final long[] lastRunMs = new long[InferenceScheduler.Model.values().length];
+    private final boolean[] hasReference = new boolean[InferenceScheduler.Model.values().length];
+
+    private final AtomicLong[] skipped = new AtomicLong[InferenceScheduler.Model.values().length];
+    private final AtomicLong[] run = new AtomicLong[InferenceScheduler.Model.values().length];
+
+    /**
+     * @param lumaThreshold luma change (0-255) above which a cell counts as changed
+     * @param minChangedFraction fraction of cells that must change for the scene to have changed
+     * @param gatePose whether pose may be skipped as well as object detection
+     * @param poseRefreshMs pose runs at least this often, even on an unchanged scene
+     * @param objectRefreshMs object detection runs at least this often
+     */
+    public MotionGate(int lumaThreshold, float minChangedFraction, boolean gatePose,
+            long poseRefreshMs, long objectRefreshMs) {
+        this.lumaThreshold = lumaThreshold;
+        this.minChangedCells = Math.max(1, Math.round(minChangedFraction * CELLS));
+        this.gatePose = gatePose;
+        this.poseRefreshMs = poseRefreshMs;
+        this.objectRefreshMs = objectRefreshMs;
+        for (int i = 0; i < skipped.length; i++) {
+            skipped[i] = new AtomicLong();
+            run[i] = new AtomicLong();
+        }
+    }
+
+    /** Builds the thumbnail of an RGBA camera frame. Does not move the plane's position. */
+    public void sample(ImageProxy imageProxy) {
+        ImageProxy.PlaneProxy plane = imageProxy.getPlanes()[0];
+        ByteBuffer pixels = plane.getBuffer();
+        int rowStride = plane.getRowStride();
+        int pixelStride = plane.getPixelStride();
+        int width = imageProxy.getWidth();
+        int height = imageProxy.getHeight();
+        for (int ty = 0; ty < THUMB_HEIGHT; ty++) {
+            // Two rows and two columns per cell, at a quarter and three quarters across it
+            int y0 = (ty * 4 + 1) * height / (THUMB_HEIGHT * 4);
+            int y1 = (ty * 4 + 3) * height / (THUMB_HEIGHT * 4);
+            for (int tx = 0; tx < THUMB_WIDTH; tx++) {
+                int x0 = (tx * 4 + 1) * width / (THUMB_WIDTH * 4) * pixelStride;
+                int x1 = (tx * 4 + 3) * width / (THUMB_WIDTH * 4) * pixelStride;
+                thumbnail[ty * THUMB_WIDTH + tx] = (luma(pixels, y0 * rowStride + x0)
+                        + luma(pixels, y0 * rowStride + x1)
+                        + luma(pixels, y1 * rowStride + x0)
+                        + luma(pixels, y1 * rowStride + x1)) >> 2;
+            }
+        }
+    }
+
+    /**
+     * True if {@code model} can skip the frame last passed to {@link #sample}:
+     * it is allowed to, it ran recently enough, and the scene has not changed
+     * since. Counts the frame as skipped if so.
+     */
+    public boolean shouldSkip(InferenceScheduler.Model model, long frameTimeMs) {
+        int m = model.ordinal();
+        long refreshMs = model == InferenceScheduler.Model.POSE ? poseRefreshMs : objectRefreshMs;
+        if ((model == InferenceScheduler.Model.POSE && !gatePose) || !hasReference[m]
+                || frameTimeMs - lastRunMs[m] >= refreshMs || changed(references[m])) {
+            return false;
+        }
+        skipped[m].incrementAndGet();
+        return true;
+    }
+
+    /** Records that {@code model} was given the frame last passed to {@link #sample}. */
+    public void onRun(InferenceScheduler.Model model, long frameTimeMs) {
+        int m = model.ordinal();
+        System.arraycopy(thumbnail, 0, references[m], 0, CELLS);
+        hasReference[m] = true;
+        lastRunMs[m] = frameTimeMs;
+        run[m].incrementAndGet();
+    }
+
+    public long getSkippedCount(InferenceScheduler.Model model) {
+        return skipped[model.ordinal()].get();
+    }
+
+    /** Fraction of due frames the model skipped, since start. */
+    public float getSkipRate(InferenceScheduler.Model model) {
+        long skippedCount = skipped[model.ordinal()].get();
+        long total = skippedCount + run[model.ordinal()].get();
+        return total > 0 ? (float) skippedCount / total : 0f;
+    }
+
+    private boolean changed(int[] reference) {
+        int changedCells = 0;
+        for (int i = 0; i < CELLS; i++) {
+            if (Math.abs(thumbnail[i] - reference[i]) > lumaThreshold && ++changedCells >= minChangedCells) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // BT.601 luma in 8-bit fixed point from the R, G and B bytes at offset
+    private static int luma(ByteBuffer pixels, int offset) {
+        int r = pixels.get(offset) & 0xFF;
+        int g = pixels.get(offset + 1) & 0xFF;
+        int b = pixels.get(offset + 2) & 0xFF;
+        return (r * 77 + g * 150 + b * 29) >> 8;
+    }
+}
@@ -1,111 +1,78 @@
 package com.example.mediapipedemo;
 
 import android.content.Context;
-import android.graphics.Bitmap;
-import android.graphics.Matrix;
-import android.os.SystemClock;
-import android.util.Log;
 
-import androidx.camera.core.ImageProxy;
-
-import com.google.mediapipe.framework.image.BitmapImageBuilder;
 import com.google.mediapipe.framework.image.MPImage;
 import com.google.mediapipe.tasks.core.BaseOptions;
+import com.google.mediapipe.tasks.core.ErrorListener;
+import com.google.mediapipe.tasks.core.OutputHandler;
+import com.google.mediapipe.tasks.vision.core.ImageProcessingOptions;
 import com.google.mediapipe.tasks.vision.core.RunningMode;
 import com.google.mediapipe.tasks.vision.objectdetector.ObjectDetector;
 import com.google.mediapipe.tasks.vision.objectdetector.ObjectDetectorResult;
 
-public class ObjectDetectorHelper {
-    private static final String TAG = "ObjectDetectorHelper";
-    // We download the int8 quantized efficientdet lite model which is very fast on
-    // mobile
-    private static final String MODEL_PATH = "efficientdet_lite0.tflite";
-
-    private final Context context;
-    private final DetectorListener listener;
-    private ObjectDetector objectDetector;
-
-    public interface DetectorListener {
-        void onError(String error);
+import java.io.IOException;
 
-        void onResults(ObjectDetectorResult results, long inferenceTime, int imageHeight, int imageWidth);
+public class ObjectDetectorHelper extends TieredDetectorHelper<ObjectDetector, ObjectDetectorResult> {
+    private static final String TAG = "ObjectDetectorHelper";
+    // Cheapest first. We download the int8 quantized EfficientDet-Lite models,
+    // which are very fast on mobile; lite2 is slower but finds small phones better.
+    private static final ModelTier[] TIERS = {
+            new ModelTier("lite0-3", "efficientdet_lite0.tflite", 3, 0.65f),
+            new ModelTier("lite0-5", "efficientdet_lite0.tflite", 5, 0.6f),
+            new ModelTier("lite2-5", "efficientdet_lite2.tflite", 5, 0.55f),
+    };
+    private static final int DEFAULT_TIER = 1;
+
+    public interface DetectorListener extends Listener<ObjectDetectorResult> {
     }
 
     public ObjectDetectorHelper(Context context, DetectorListener listener) {
-        this.context = context;
-        this.listener = listener;
-        setupObjectDetector();
+        super(TAG, "ObjectDetector", context, TIERS, DEFAULT_TIER, listener);
     }
 
-    private void setupObjectDetector() {
-        try {
-            BaseOptions baseOptions = BaseOptions.builder()
-                    .setModelAssetPath(MODEL_PATH)
-                    .build();
-
-            ObjectDetector.ObjectDetectorOptions options = ObjectDetector.ObjectDetectorOptions.builder()
-                    .setBaseOptions(baseOptions)
-                    .setRunningMode(RunningMode.LIVE_STREAM)
-                    .setMaxResults(5) // Don't need to find too many things
-                    .setScoreThreshold(0.6f) // Only care about confident detections
-                    .setResultListener(this::returnLivestreamResult)
-                    .setErrorListener(this::returnLivestreamError)
-                    .build();
-
-            objectDetector = ObjectDetector.createFromOptions(context, options);
-        } catch (Exception e) {
-            Log.e(TAG, "ObjectDetector failed to initialize. Error: " + e.getMessage());
-            if (listener != null) {
-                listener.onError("ObjectDetector failed to initialize.");
-            }
-        }
+    @Override
+    protected ObjectDetector createLiveStream(ModelTier tier,
+            OutputHandler.ResultListener<ObjectDetectorResult, MPImage> resultListener,
+            ErrorListener errorListener) throws IOException {
+        ObjectDetector.ObjectDetectorOptions options = optionsFor(context, tier)
+                .setRunningMode(RunningMode.LIVE_STREAM)
+                .setResultListener(resultListener)
+                .setErrorListener(errorListener)
+                .build();
+        return ObjectDetector.createFromOptions(context, options);
     }
 
-    public void detectLiveStream(ImageProxy imageProxy, boolean isFrontCamera) {
-        if (objectDetector == null)
-            return;
-
-        long frameTime = SystemClock.uptimeMillis();
-
-        Bitmap bitmapBuffer = imageProxy.toBitmap();
-
-        Matrix matrix = new Matrix();
-        matrix.postRotate(imageProxy.getImageInfo().getRotationDegrees());
-        if (isFrontCamera) {
-            // Important: The object detector needs to see the image just like the Pose
-            // Landmarker
-            matrix.postScale(-1f, 1f, bitmapBuffer.getWidth() / 2f, bitmapBuffer.getHeight() / 2f);
-        }
-
-        Bitmap rotatedBitmap = Bitmap.createBitmap(
-                bitmapBuffer, 0, 0, bitmapBuffer.getWidth(), bitmapBuffer.getHeight(), matrix, false);
-
-        MPImage mpImage = new BitmapImageBuilder(rotatedBitmap).build();
-
-        objectDetector.detectAsync(mpImage, frameTime);
-
-        // Required to close imageProxy to free memory for CameraX to produce next frame
-        imageProxy.close();
+    /**
+     * Creates a default-tier detector in IMAGE mode, for callers that run frames
+     * one at a time and own the instance, such as {@link StreamAnalysisEngine}.
+     * It keeps no state between frames, so any stream can use it.
+     */
+    public static ObjectDetector createForImages(Context context) throws IOException {
+        ObjectDetector.ObjectDetectorOptions options = optionsFor(context, TIERS[DEFAULT_TIER])
+                .setRunningMode(RunningMode.IMAGE)
+                .build();
+        return ObjectDetector.createFromOptions(context, options);
     }
 
-    private void returnLivestreamResult(ObjectDetectorResult result, MPImage inputImage) {
-        long finishTimeMs = SystemClock.uptimeMillis();
-        long inferenceTime = finishTimeMs - result.timestampMs();
-
-        if (listener != null) {
-            listener.onResults(result, inferenceTime, inputImage.getHeight(), inputImage.getWidth());
-        }
-    }
+    private static ObjectDetector.ObjectDetectorOptions.Builder optionsFor(Context context, ModelTier tier)
+            throws IOException {
+        BaseOptions baseOptions = BaseOptions.builder()
+                .setModelAssetBuffer(ModelAssetCache.get(context, tier.getModelPath()))
+                .build();
 
-    private void returnLivestreamError(RuntimeException error) {
-        if (listener != null) {
-            listener.onError(error.getMessage() != null ? error.getMessage() : "Unknown error");
-        }
+        return ObjectDetector.ObjectDetectorOptions.builder()
+                .setBaseOptions(baseOptions)
+                .setMaxResults(tier.getMaxResults()) // Don't need to find too many things
+                .setScoreThreshold(tier.getScoreThreshold()); // Only care about confident detections
     }
 
-    public void close() {
-        if (objectDetector != null) {
-            objectDetector.close();
-        }
+    @Override
+    protected void detectAsync(ObjectDetector detector, MPImage image, ImageProcessingOptions options,
+            long timestampMs) {
+        // Important: The object detector needs to see the image just like the Pose
+        // Landmarker, so both get the same prepared frame (or a crop of it, whose
+        // transform maps the boxes back to the full frame).
+        detector.detectAsync(image, options, timestampMs);
     }
 }
@@ -0,0 +1,94 @@
+package com.example.mediapipedemo;
+
+import android.graphics.RectF;
+
+import com.google.mediapipe.tasks.components.containers.Category;
+import com.google.mediapipe.tasks.components.containers.Detection;
+import com.google.mediapipe.tasks.vision.objectdetector.ObjectDetectorResult;
+
+import java.util.List;
+
+/**
+ * The detections of one object result: boxes mapped into the upright frame in
+ * pixels, and up to {@link ActionFrame#MAX_CATEGORIES} categories each as
+ * {@link LabelMap} ids with scores. The first category's model index and name
+ * are kept too, for labelling the box on screen.
+ */
+public final class ObjectSnapshot extends PooledSnapshot {
+    private static final int MAX_DETECTIONS = ActionFrame.MAX_DETECTIONS;
+    private static final int MAX_CATEGORIES = ActionFrame.MAX_CATEGORIES;
+
+    private final float[] boxes = new float[MAX_DETECTIONS * 4];
+    private final int[] labelIds = new int[MAX_DETECTIONS * MAX_CATEGORIES];
+    private final float[] scores = new float[MAX_DETECTIONS * MAX_CATEGORIES];
+    private final int[] categoryCounts = new int[MAX_DETECTIONS];
+    private final int[] topIndices = new int[MAX_DETECTIONS];
+    // The detector's own label strings; references only, nothing is copied
+    private final String[] topNames = new String[MAX_DETECTIONS];
+    private int detectionCount;
+    private int imageWidth;
+    private int imageHeight;
+
+    /** Copies {@code result} in; indexed loops only, so no iterators are created. */
+    void copyFrom(ObjectDetectorResult result, FrameTransform transform, LabelMap labelMap) {
+        imageWidth = transform.getOutputWidth();
+        imageHeight = transform.getOutputHeight();
+        List<Detection> detections = result.detections();
+        int count = Math.min(detections.size(), MAX_DETECTIONS);
+        for (int d = 0; d < count; d++) {
+            Detection detection = detections.get(d);
+            RectF box = detection.boundingBox();
+            transform.mapBox(box.left, box.top, box.right, box.bottom, boxes, d * 4);
+            List<Category> categories = detection.categories();
+            int categoryCount = Math.min(categories.size(), MAX_CATEGORIES);
+            for (int c = 0; c < categoryCount; c++) {
+                Category category = categories.get(c);
+                labelIds[d * MAX_CATEGORIES + c] = labelMap.resolve(category.index(), category.categoryName());
+                scores[d * MAX_CATEGORIES + c] = category.score();
+            }
+            categoryCounts[d] = categoryCount;
+            topIndices[d] = categoryCount > 0 ? categories.get(0).index() : -1;
+            topNames[d] = categoryCount > 0 ? categories.get(0).categoryName() : null;
+        }
+        detectionCount = count;
+        setTimestampMs(result.timestampMs());
+    }
+
+    public int getDetectionCount() {
+        return detectionCount;
+    }
+
+    /** Left, top, right, bottom of detection {@code d}, in upright pixels. */
+    public float box(int d, int edge) {
+        return boxes[d * 4 + edge];
+    }
+
+    public int getCategoryCount(int d) {
+        return categoryCounts[d];
+    }
+
+    public int labelId(int d, int c) {
+        return labelIds[d * MAX_CATEGORIES + c];
+    }
+
+    public float score(int d, int c) {
+        return scores[d * MAX_CATEGORIES + c];
+    }
+
+    /** Model label index of the first category, or -1 if there is none. */
+    public int topIndex(int d) {
+        return topIndices[d];
+    }
+
+    public String topName(int d) {
+        return topNames[d];
+    }
+
+    public int getImageWidth() {
+        return imageWidth;
+    }
+
+    public int getImageHeight() {
+        return imageHeight;
+    }
+}
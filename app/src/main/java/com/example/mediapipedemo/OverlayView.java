@@ -8,38 +8,55 @@ import android.util.AttributeSet;
 import android.view.View;
 
 import androidx.annotation.Nullable;
-import androidx.core.content.ContextCompat;
 
-import androidx.annotation.Nullable;
-import androidx.core.content.ContextCompat;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
-import com.google.mediapipe.tasks.components.containers.Category;
-import com.google.mediapipe.tasks.components.containers.Detection;
-import com.google.mediapipe.tasks.components.containers.NormalizedLandmark;
-import com.google.mediapipe.tasks.vision.objectdetector.ObjectDetectorResult;
-import com.google.mediapipe.tasks.vision.poselandmarker.PoseLandmarkerResult;
+public class OverlayView extends View {
+    private static final int MAX_LABEL_INDEX = 128;
+    private static final int MAX_DETECTIONS = ActionFrame.MAX_DETECTIONS;
 
-import java.util.List;
+    private final AtomicBoolean invalidatePending = new AtomicBoolean();
+    private PipelineMetrics metrics;
 
-public class OverlayView extends View {
-    private PoseLandmarkerResult poseResults;
-    private ObjectDetectorResult objectResults;
+    // Filtered landmarks and boxes, handed over through a triple buffer: the writer
+    // fills its own slot and swaps it with the ready one, and onDraw swaps its slot
+    // for the ready one when that is newer. Neither side ever waits or allocates,
+    // and the snapshot is not touched after setResults returns.
+    private ResultSlot writeSlot = new ResultSlot();
+    private final AtomicReference<ResultSlot> readySlot = new AtomicReference<>(new ResultSlot());
+    private ResultSlot drawSlot = new ResultSlot();
+    private long resultSequence;
 
     private Paint pointPaint;
     private Paint linePaint;
     private Paint boxPaint;
     private Paint textPaint;
+    private Paint personTextPaint;
 
-    private float scaleFactor = 1f;
+    // Image-to-view transform, recomputed only when the view or image size changes
+    private final OverlayProjection projection = new OverlayProjection();
     private int imageWidth = 1;
     private int imageHeight = 1;
+    private boolean layoutDirty = true;
 
-    // Pairs of landmarks to draw lines showing the skeleton structure
-    private static final int[][] POSE_LANDMARKS_CONNECTIONS = {
-            { 11, 12 }, { 11, 13 }, { 13, 15 }, { 12, 14 }, { 14, 16 }, { 11, 23 }, { 12, 24 }, { 23, 24 }, { 23, 25 },
-            { 24, 26 }, { 25, 27 }, { 26, 28 }, { 27, 29 }, { 28, 30 }, { 29, 31 }, { 30, 32 }, { 27, 31 }, { 28, 32 },
-            { 15, 21 }, { 16, 22 }, { 15, 17 }, { 16, 18 }, { 15, 19 }, { 16, 20 }, { 17, 19 }, { 18, 20 }
-    };
+    // Buffers filled once per new slot and drawn in one call each
+    private long builtSequence = -1;
+    private final float[] lineBuffer = new float[OverlayProjection.MAX_LINE_FLOATS];
+    private final float[] pointBuffer = new float[ActionFrame.MAX_PERSONS * ActionFrame.NUM_LANDMARKS * 2];
+    private final float[] landmarkBuffer = new float[ActionFrame.NUM_LANDMARKS * 2];
+    // Per-person status labels, drawn above each head when more than one person is in frame
+    private final float[] personLabelBuffer = new float[ActionFrame.MAX_PERSONS * 2];
+    private final String[] personLabels = new String[ActionFrame.MAX_PERSONS];
+    private int personLabelCount;
+    private final float[] boxBuffer = new float[MAX_DETECTIONS * 4];
+    private final String[] labelBuffer = new String[MAX_DETECTIONS];
+    private int lineFloats;
+    private int pointFloats;
+    private int boxCount;
+
+    // "name NN%" strings, built once per label index and percentage; writer thread only
+    private final String[][] labelCache = new String[MAX_LABEL_INDEX][];
 
     public OverlayView(Context context, @Nullable AttributeSet attrs) {
         super(context, attrs);
@@ -52,9 +69,11 @@ public class OverlayView extends View {
         linePaint.setStrokeWidth(8f);
         linePaint.setStyle(Paint.Style.STROKE);
 
+        // Round caps turn drawPoints into filled circles of radius strokeWidth / 2
         pointPaint = new Paint();
         pointPaint.setColor(Color.RED);
-        pointPaint.setStrokeWidth(12f);
+        pointPaint.setStrokeWidth(16f);
+        pointPaint.setStrokeCap(Paint.Cap.ROUND);
         pointPaint.setStyle(Paint.Style.FILL);
 
         boxPaint = new Paint();
@@ -66,74 +85,185 @@ public class OverlayView extends View {
         textPaint.setColor(Color.RED);
         textPaint.setTextSize(50f);
         textPaint.setStyle(Paint.Style.FILL);
+
+        personTextPaint = new Paint();
+        personTextPaint.setColor(Color.WHITE);
+        personTextPaint.setTextSize(40f);
+        personTextPaint.setStyle(Paint.Style.FILL);
+    }
+
+    /**
+     * Hands the view a new snapshot, with the (filtered) poses taken from
+     * {@code frame} rather than the snapshot's raw result and one smoothed status
+     * per person. Safe to call from any single thread; however many snapshots
+     * arrive, the view redraws at most once per frame. Everything needed is
+     * copied before this returns, so the snapshot may be recycled right after.
+     */
+    public void setResults(FusedSnapshot snapshot, ActionFrame frame, ActionStatus[] statuses) {
+        ResultSlot slot = writeSlot;
+        slot.imageWidth = snapshot.getImageWidth();
+        slot.imageHeight = snapshot.getImageHeight();
+        int persons = frame.getPersonCount();
+        for (int p = 0; p < persons; p++) {
+            int count = frame.getLandmarkCount(p);
+            int offset = ActionFrame.landmarkOffset(p);
+            for (int i = 0; i < count; i++) {
+                slot.landmarks[offset + i * 2] = frame.landmarkX(p, i);
+                slot.landmarks[offset + i * 2 + 1] = frame.landmarkY(p, i);
+            }
+            slot.counts[p] = count;
+            slot.statuses[p] = statuses[p];
+        }
+        slot.personCount = persons;
+
+        ObjectSnapshot objects = snapshot.getObjects();
+        int boxes = objects != null ? Math.min(objects.getDetectionCount(), MAX_DETECTIONS) : 0;
+        for (int d = 0; d < boxes; d++) {
+            for (int edge = 0; edge < 4; edge++) {
+                slot.boxes[d * 4 + edge] = objects.box(d, edge);
+            }
+            slot.labels[d] = objects.getCategoryCount(d) > 0
+                    ? labelFor(objects.topIndex(d), objects.topName(d), objects.score(d, 0)) : null;
+        }
+        slot.boxCount = boxes;
+        slot.sequence = ++resultSequence;
+        writeSlot = readySlot.getAndSet(slot);
+
+        if (invalidatePending.compareAndSet(false, true)) {
+            postInvalidateOnAnimation();
+        }
+    }
+
+    /** Records draw time into {@code metrics}; null to disable. Main thread only. */
+    public void setMetrics(PipelineMetrics metrics) {
+        this.metrics = metrics;
     }
 
-    public void setResults(PoseLandmarkerResult poseResults, ObjectDetectorResult objectResults, int imageHeight,
-            int imageWidth) {
-        this.poseResults = poseResults;
-        this.objectResults = objectResults;
-        this.imageHeight = imageHeight;
-        this.imageWidth = imageWidth;
-        invalidate(); // Trigger a redraw
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        layoutDirty = true;
     }
 
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
+        invalidatePending.set(false);
 
-        // Calculate scaling assuming preview behavior is ScaleType.FILL_CENTER
-        scaleFactor = Math.max(getWidth() * 1f / imageWidth, getHeight() * 1f / imageHeight);
+        if (readySlot.get().sequence > drawSlot.sequence) {
+            drawSlot = readySlot.getAndSet(drawSlot);
+        }
+        ResultSlot slot = drawSlot;
+        if (slot.sequence == 0) {
+            return;
+        }
+        long start = System.nanoTime();
 
-        // Find center difference because ScaleType.FILL_CENTER zooms from center
-        float startX = (getWidth() - imageWidth * scaleFactor) / 2f;
-        float startY = (getHeight() - imageHeight * scaleFactor) / 2f;
+        if (slot.imageWidth != imageWidth || slot.imageHeight != imageHeight) {
+            imageWidth = slot.imageWidth;
+            imageHeight = slot.imageHeight;
+            layoutDirty = true;
+        }
+        if (layoutDirty) {
+            updateLayout();
+            builtSequence = -1;
+        }
+        if (slot.sequence != builtSequence) {
+            buildBoxes(slot);
+            buildSkeleton(slot);
+            builtSequence = slot.sequence;
+        }
 
         // Draw Object Bounding Boxes
-        if (objectResults != null) {
-            for (Detection detection : objectResults.detections()) {
-                android.graphics.RectF boundingBox = detection.boundingBox();
-
-                float left = boundingBox.left * scaleFactor + startX;
-                float top = boundingBox.top * scaleFactor + startY;
-                float right = boundingBox.right * scaleFactor + startX;
-                float bottom = boundingBox.bottom * scaleFactor + startY;
-
-                canvas.drawRect(left, top, right, bottom, boxPaint);
-
-                // Draw label
-                if (!detection.categories().isEmpty()) {
-                    Category category = detection.categories().get(0);
-                    String labelString = category.categoryName() + " " + Math.round(category.score() * 100) + "%";
-                    canvas.drawText(labelString, left, top - 20, textPaint);
-                }
+        for (int i = 0; i < boxCount; i++) {
+            float left = boxBuffer[i * 4];
+            float top = boxBuffer[i * 4 + 1];
+            canvas.drawRect(left, top, boxBuffer[i * 4 + 2], boxBuffer[i * 4 + 3], boxPaint);
+            if (labelBuffer[i] != null) {
+                canvas.drawText(labelBuffer[i], left, top - 20, textPaint);
             }
         }
 
-        // Draw Pose Skeleton
-        if (poseResults != null && !poseResults.landmarks().isEmpty()) {
-            List<NormalizedLandmark> landmarks = poseResults.landmarks().get(0);
+        // Draw Pose Skeleton: bones, then joints
+        if (lineFloats > 0) {
+            canvas.drawLines(lineBuffer, 0, lineFloats, linePaint);
+        }
+        if (pointFloats > 0) {
+            canvas.drawPoints(pointBuffer, 0, pointFloats, pointPaint);
+        }
+        for (int i = 0; i < personLabelCount; i++) {
+            canvas.drawText(personLabels[i], personLabelBuffer[i * 2], personLabelBuffer[i * 2 + 1], personTextPaint);
+        }
 
-            // Draw connections (bones)
-            for (int[] connection : POSE_LANDMARKS_CONNECTIONS) {
-                NormalizedLandmark startLandmark = landmarks.get(connection[0]);
-                NormalizedLandmark endLandmark = landmarks.get(connection[1]);
+        if (metrics != null) {
+            metrics.recordNanos(PipelineMetrics.Stage.RENDER, System.nanoTime() - start);
+        }
+    }
 
-                canvas.drawLine(
-                        startLandmark.x() * imageWidth * scaleFactor + startX,
-                        startLandmark.y() * imageHeight * scaleFactor + startY,
-                        endLandmark.x() * imageWidth * scaleFactor + startX,
-                        endLandmark.y() * imageHeight * scaleFactor + startY,
-                        linePaint);
-            }
+    private void updateLayout() {
+        projection.setLayout(getWidth(), getHeight(), imageWidth, imageHeight);
+        layoutDirty = false;
+    }
 
-            // Draw points (joints)
-            for (NormalizedLandmark landmark : landmarks) {
-                canvas.drawCircle(
-                        landmark.x() * imageWidth * scaleFactor + startX,
-                        landmark.y() * imageHeight * scaleFactor + startY,
-                        8f,
-                        pointPaint);
+    private void buildBoxes(ResultSlot slot) {
+        // Boxes are already upright, in image pixels
+        projection.mapBoxes(slot.boxes, slot.boxCount, boxBuffer);
+        for (int i = 0; i < slot.boxCount; i++) {
+            labelBuffer[i] = slot.labels[i];
+        }
+        boxCount = slot.boxCount;
+    }
+
+    private void buildSkeleton(ResultSlot pose) {
+        // Landmarks are already upright and normalized to the image
+        lineFloats = 0;
+        pointFloats = 0;
+        personLabelCount = 0;
+        for (int p = 0; p < pose.personCount; p++) {
+            int count = pose.counts[p];
+            int offset = ActionFrame.landmarkOffset(p);
+            projection.mapLandmarks(pose.landmarks, offset, count, landmarkBuffer);
+            System.arraycopy(landmarkBuffer, 0, pointBuffer, pointFloats, count * 2);
+            pointFloats += count * 2;
+            lineFloats = OverlayProjection.appendBones(landmarkBuffer, count, lineBuffer, lineFloats);
+            // The status banner covers a single person; label each one when there are more
+            if (pose.personCount > 1 && count > 0 && pose.statuses[p] != null) {
+                personLabels[personLabelCount] = pose.statuses[p].getLabel();
+                personLabelBuffer[personLabelCount * 2] = landmarkBuffer[0];
+                personLabelBuffer[personLabelCount * 2 + 1] = landmarkBuffer[1] - 60f;
+                personLabelCount++;
             }
         }
     }
+
+    private String labelFor(int index, String name, float score) {
+        int percent = Math.max(0, Math.min(100, Math.round(score * 100)));
+        if (index < 0 || index >= MAX_LABEL_INDEX) {
+            return name + " " + percent + "%";
+        }
+        String[] byPercent = labelCache[index];
+        if (byPercent == null) {
+            byPercent = new String[101];
+            labelCache[index] = byPercent;
+        }
+        String label = byPercent[percent];
+        if (label == null) {
+            label = name + " " + percent + "%";
+            byPercent[percent] = label;
+        }
+        return label;
+    }
+
+    private static final class ResultSlot {
+        final float[] landmarks = new float[ActionFrame.MAX_PERSONS * ActionFrame.NUM_LANDMARKS * 2];
+        final int[] counts = new int[ActionFrame.MAX_PERSONS];
+        final ActionStatus[] statuses = new ActionStatus[ActionFrame.MAX_PERSONS];
+        int personCount;
+        final float[] boxes = new float[MAX_DETECTIONS * 4];
+        final String[] labels = new String[MAX_DETECTIONS];
+        int boxCount;
+        int imageWidth;
+        int imageHeight;
+        volatile long sequence;
+    }
 }
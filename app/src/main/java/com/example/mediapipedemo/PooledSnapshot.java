@@ -0,0 +1,123 @@
+package com.example.mediapipedemo;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Base of the compact, primitive copies the fusion buffer makes of each model
+ * result, so the library's result objects can be dropped as soon as the
+ * callback returns.
+ *
+ * Instances are reference counted and come from a small {@link Pool}: every
+ * holder (the fusion history, each {@link FusedSnapshot} using it) owns one
+ * reference, and the last {@link #release} puts the instance back. Contents are
+ * written once, by the thread that acquired it, before the timestamp is set;
+ * they are read-only from then on until it is recycled.
+ */
+public abstract class PooledSnapshot {
+    private final AtomicInteger refs = new AtomicInteger();
+    // Long.MIN_VALUE while pooled or being filled
+    private volatile long timestampMs = Long.MIN_VALUE;
+    private Pool<?> pool;
+
+    /** Timestamp of the result this holds, or Long.MIN_VALUE if it holds none. */
+    public long getTimestampMs() {
+        return timestampMs;
+    }
+
+    /** Publishes the contents; call once, after filling them in. */
+    final void setTimestampMs(long timestampMs) {
+        this.timestampMs = timestampMs;
+    }
+
+    /** Adds a reference; the caller must already own one. */
+    final void retain() {
+        refs.incrementAndGet();
+    }
+
+    /**
+     * Adds a reference to an instance the caller found through a shared
+     * structure but does not own, as long as it is live and still holds the
+     * result at {@code expectedTimestampMs}. Fails if it was recycled since.
+     */
+    final boolean tryRetain(long expectedTimestampMs) {
+        while (true) {
+            int current = refs.get();
+            if (current <= 0) {
+                return false;
+            }
+            if (refs.compareAndSet(current, current + 1)) {
+                break;
+            }
+        }
+        if (timestampMs != expectedTimestampMs) {
+            release();
+            return false;
+        }
+        return true;
+    }
+
+    final void release() {
+        int remaining = refs.decrementAndGet();
+        if (remaining == 0) {
+            pool.recycle(this);
+        } else if (remaining < 0) {
+            throw new IllegalStateException("Snapshot released more often than retained");
+        }
+    }
+
+    /**
+     * Lock-free free list of snapshots. Acquiring when it is empty allocates a
+     * new one, and recycling when it is full leaves that one to the collector,
+     * so it never blocks; sized so that neither happens in steady state.
+     */
+    public static final class Pool<T extends PooledSnapshot> {
+        public interface Factory<T> {
+            T create();
+        }
+
+        private final AtomicReferenceArray<PooledSnapshot> free;
+        private final Factory<T> factory;
+        private final AtomicLong createdCount = new AtomicLong();
+
+        public Pool(int capacity, Factory<T> factory) {
+            this.free = new AtomicReferenceArray<>(capacity);
+            this.factory = factory;
+        }
+
+        /** Returns an empty snapshot with one reference, owned by the caller. */
+        @SuppressWarnings("unchecked")
+        public T acquire() {
+            T snapshot = null;
+            for (int i = 0; i < free.length() && snapshot == null; i++) {
+                PooledSnapshot candidate = free.get(i);
+                if (candidate != null && free.compareAndSet(i, candidate, null)) {
+                    snapshot = (T) candidate;
+                }
+            }
+            if (snapshot == null) {
+                snapshot = factory.create();
+                ((PooledSnapshot) snapshot).pool = this;
+                createdCount.incrementAndGet();
+            }
+            PooledSnapshot base = snapshot;
+            base.timestampMs = Long.MIN_VALUE;
+            base.refs.set(1);
+            return snapshot;
+        }
+
+        void recycle(PooledSnapshot snapshot) {
+            for (int i = 0; i < free.length(); i++) {
+                if (free.get(i) == null && free.compareAndSet(i, null, snapshot)) {
+                    return;
+                }
+            }
+        }
+
+        /** Snapshots allocated so far; stops growing once the pool has warmed up. */
+        public long getCreatedCount() {
+            return createdCount.get();
+        }
+    }
+}
@@ -1,108 +1,74 @@
 package com.example.mediapipedemo;
 
 import android.content.Context;
-import android.graphics.Bitmap;
-import android.graphics.Matrix;
-import android.os.SystemClock;
-import android.util.Log;
 
-import androidx.annotation.VisibleForTesting;
-import androidx.camera.core.ImageProxy;
-
-import com.google.mediapipe.framework.image.BitmapImageBuilder;
 import com.google.mediapipe.framework.image.MPImage;
 import com.google.mediapipe.tasks.core.BaseOptions;
+import com.google.mediapipe.tasks.core.ErrorListener;
+import com.google.mediapipe.tasks.core.OutputHandler;
+import com.google.mediapipe.tasks.vision.core.ImageProcessingOptions;
 import com.google.mediapipe.tasks.vision.core.RunningMode;
 import com.google.mediapipe.tasks.vision.poselandmarker.PoseLandmarker;
 import com.google.mediapipe.tasks.vision.poselandmarker.PoseLandmarkerResult;
 
-public class PoseLandmarkerHelper {
-    private static final String TAG = "PoseLandmarkerHelper";
-    private static final String MODEL_PATH = "pose_landmarker.task";
-
-    private final Context context;
-    private final PoseLandmarkerListener listener;
-    private PoseLandmarker poseLandmarker;
-
-    public interface PoseLandmarkerListener {
-        void onError(String error);
+import java.io.IOException;
 
-        void onResults(PoseLandmarkerResult result, long inferenceTime, int imageHeight, int imageWidth);
+public class PoseLandmarkerHelper extends TieredDetectorHelper<PoseLandmarker, PoseLandmarkerResult> {
+    private static final String TAG = "PoseLandmarkerHelper";
+    // Cheapest first; "full" is the model this app has always shipped with
+    private static final ModelTier[] TIERS = {
+            new ModelTier("lite", "pose_landmarker_lite.task", ActionFrame.MAX_PERSONS, 0.5f),
+            new ModelTier("full", "pose_landmarker.task", ActionFrame.MAX_PERSONS, 0.5f),
+            new ModelTier("heavy", "pose_landmarker_heavy.task", ActionFrame.MAX_PERSONS, 0.5f),
+    };
+    private static final int DEFAULT_TIER = 1;
+
+    public interface PoseLandmarkerListener extends Listener<PoseLandmarkerResult> {
     }
 
     public PoseLandmarkerHelper(Context context, PoseLandmarkerListener listener) {
-        this.context = context;
-        this.listener = listener;
-        setupPoseLandmarker();
+        super(TAG, "PoseLandmarker", context, TIERS, DEFAULT_TIER, listener);
     }
 
-    private void setupPoseLandmarker() {
-        try {
-            BaseOptions baseOptions = BaseOptions.builder()
-                    .setModelAssetPath(MODEL_PATH)
-                    .build();
-
-            PoseLandmarker.PoseLandmarkerOptions options = PoseLandmarker.PoseLandmarkerOptions.builder()
-                    .setBaseOptions(baseOptions)
-                    .setRunningMode(RunningMode.LIVE_STREAM)
-                    .setResultListener(this::returnLivestreamResult)
-                    .setErrorListener(this::returnLivestreamError)
-                    .build();
-
-            poseLandmarker = PoseLandmarker.createFromOptions(context, options);
-        } catch (Exception e) {
-            Log.e(TAG, "PoseLandmarker failed to initialize. Error: " + e.getMessage());
-            if (listener != null) {
-                listener.onError("PoseLandmarker failed to initialize.");
-            }
-        }
+    @Override
+    protected PoseLandmarker createLiveStream(ModelTier tier,
+            OutputHandler.ResultListener<PoseLandmarkerResult, MPImage> resultListener,
+            ErrorListener errorListener) throws IOException {
+        PoseLandmarker.PoseLandmarkerOptions options = optionsFor(context, tier)
+                .setRunningMode(RunningMode.LIVE_STREAM)
+                .setResultListener(resultListener)
+                .setErrorListener(errorListener)
+                .build();
+        return PoseLandmarker.createFromOptions(context, options);
     }
 
-    public void detectLiveStream(ImageProxy imageProxy, boolean isFrontCamera) {
-        if (poseLandmarker == null)
-            return;
-
-        long frameTime = SystemClock.uptimeMillis();
-
-        Bitmap bitmapBuffer = imageProxy.toBitmap();
-
-        Matrix matrix = new Matrix();
-        matrix.postRotate(imageProxy.getImageInfo().getRotationDegrees());
-        if (isFrontCamera) {
-            matrix.postScale(-1f, 1f, bitmapBuffer.getWidth() / 2f, bitmapBuffer.getHeight() / 2f);
-        }
-
-        Bitmap rotatedBitmap = Bitmap.createBitmap(
-                bitmapBuffer, 0, 0, bitmapBuffer.getWidth(), bitmapBuffer.getHeight(), matrix, false);
-
-        MPImage mpImage = new BitmapImageBuilder(rotatedBitmap).build();
-
-        poseLandmarker.detectAsync(mpImage, frameTime);
-
-        // Don't forget to close the ImageProxy when using MediaPipe detectAsync which
-        // doesn't automatically close it in some version wrappers or handled upstream.
-        // Actually, we should close it after image copied.
-        imageProxy.close();
+    /**
+     * Creates a default-tier detector in IMAGE mode, for callers that run frames
+     * one at a time and own the instance, such as {@link StreamAnalysisEngine}.
+     * It keeps no state between frames, so any stream can use it.
+     */
+    public static PoseLandmarker createForImages(Context context) throws IOException {
+        PoseLandmarker.PoseLandmarkerOptions options = optionsFor(context, TIERS[DEFAULT_TIER])
+                .setRunningMode(RunningMode.IMAGE)
+                .build();
+        return PoseLandmarker.createFromOptions(context, options);
     }
 
-    private void returnLivestreamResult(PoseLandmarkerResult result, MPImage inputImage) {
-        long finishTimeMs = SystemClock.uptimeMillis();
-        long inferenceTime = finishTimeMs - result.timestampMs();
-
-        if (listener != null) {
-            listener.onResults(result, inferenceTime, inputImage.getHeight(), inputImage.getWidth());
-        }
-    }
+    private static PoseLandmarker.PoseLandmarkerOptions.Builder optionsFor(Context context, ModelTier tier)
+            throws IOException {
+        BaseOptions baseOptions = BaseOptions.builder()
+                .setModelAssetBuffer(ModelAssetCache.get(context, tier.getModelPath()))
+                .build();
 
-    private void returnLivestreamError(RuntimeException error) {
-        if (listener != null) {
-            listener.onError(error.getMessage() != null ? error.getMessage() : "An unknown error has occurred");
-        }
+        return PoseLandmarker.PoseLandmarkerOptions.builder()
+                .setBaseOptions(baseOptions)
+                .setNumPoses(tier.getMaxResults()) // Several students can be in frame
+                .setMinPoseDetectionConfidence(tier.getScoreThreshold());
     }
 
-    public void close() {
-        if (poseLandmarker != null) {
-            poseLandmarker.close();
-        }
+    @Override
+    protected void detectAsync(PoseLandmarker detector, MPImage image, ImageProcessingOptions options,
+            long timestampMs) {
+        detector.detectAsync(image, options, timestampMs);
     }
 }
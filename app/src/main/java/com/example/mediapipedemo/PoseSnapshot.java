@@ -0,0 +1,65 @@
+package com.example.mediapipedemo;
+
+import com.google.mediapipe.tasks.components.containers.NormalizedLandmark;
+import com.google.mediapipe.tasks.vision.poselandmarker.PoseLandmarkerResult;
+
+import java.util.List;
+
+/**
+ * Every person's landmarks from one pose result, mapped into the upright frame
+ * and stored as normalized x, y pairs in the same layout as {@link ActionFrame}.
+ */
+public final class PoseSnapshot extends PooledSnapshot {
+    private final float[] landmarks = new float[ActionFrame.MAX_PERSONS * ActionFrame.NUM_LANDMARKS * 2];
+    private final int[] landmarkCounts = new int[ActionFrame.MAX_PERSONS];
+    private int personCount;
+    private int imageWidth;
+    private int imageHeight;
+
+    /** Copies {@code result} in; indexed loops only, so no iterators are created. */
+    void copyFrom(PoseLandmarkerResult result, FrameTransform transform) {
+        imageWidth = transform.getOutputWidth();
+        imageHeight = transform.getOutputHeight();
+        List<List<NormalizedLandmark>> poses = result.landmarks();
+        int persons = Math.min(poses.size(), ActionFrame.MAX_PERSONS);
+        for (int p = 0; p < persons; p++) {
+            List<NormalizedLandmark> pose = poses.get(p);
+            int count = Math.min(pose.size(), ActionFrame.NUM_LANDMARKS);
+            int offset = ActionFrame.landmarkOffset(p);
+            for (int i = 0; i < count; i++) {
+                NormalizedLandmark landmark = pose.get(i);
+                float x = landmark.x();
+                float y = landmark.y();
+                landmarks[offset + i * 2] = transform.mapNormalizedX(x, y);
+                landmarks[offset + i * 2 + 1] = transform.mapNormalizedY(x, y);
+            }
+            landmarkCounts[p] = count;
+        }
+        personCount = persons;
+        setTimestampMs(result.timestampMs());
+    }
+
+    public int getPersonCount() {
+        return personCount;
+    }
+
+    public int getLandmarkCount(int person) {
+        return landmarkCounts[person];
+    }
+
+    public float landmarkX(int person, int index) {
+        return landmarks[ActionFrame.landmarkOffset(person) + index * 2];
+    }
+
+    public float landmarkY(int person, int index) {
+        return landmarks[ActionFrame.landmarkOffset(person) + index * 2 + 1];
+    }
+
+    public int getImageWidth() {
+        return imageWidth;
+    }
+
+    public int getImageHeight() {
+        return imageHeight;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.mediapipedemo;
+
+import android.graphics.Bitmap;
+
+import androidx.camera.core.ImageProxy;
+
+import com.google.mediapipe.framework.image.MPImage;
+import com.google.mediapipe.tasks.vision.core.ImageProcessingOptions;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A camera frame ready to be handed to a MediaPipe task: the image, the
+ * processing options that go with it, and the transform that maps results
+ * back into the upright preview frame.
+ *
+ * The frame owns its ImageProxy and is reference counted so it can be submitted
+ * to several models at once; the camera frame and staging buffer are given back
+ * when the last reference is released.
+ */
+public class PreparedFrame {
+    private final MPImage image;
+    private final ImageProcessingOptions processingOptions;
+    private final FrameTransform transform;
+    private final BufferPool pool;
+    private final ImageProxy imageProxy;
+    private final AtomicInteger refCount = new AtomicInteger(1);
+    private ByteBuffer pooledBuffer;
+
+    // The pixels behind the image, kept so a crop can be taken from the same frame.
+    // Exactly one of these is set: the upright Bitmap, or the tightly packed RGBA buffer.
+    private final Bitmap bitmap;
+    private final ByteBuffer pixels;
+
+    PreparedFrame(MPImage image, ImageProcessingOptions processingOptions, FrameTransform transform,
+            BufferPool pool, ByteBuffer pooledBuffer, ImageProxy imageProxy, Bitmap bitmap, ByteBuffer pixels) {
+        this.image = image;
+        this.processingOptions = processingOptions;
+        this.transform = transform;
+        this.pool = pool;
+        this.pooledBuffer = pooledBuffer;
+        this.imageProxy = imageProxy;
+        this.bitmap = bitmap;
+        this.pixels = pixels;
+    }
+
+    public MPImage getImage() {
+        return image;
+    }
+
+    public ImageProcessingOptions getProcessingOptions() {
+        return processingOptions;
+    }
+
+    public FrameTransform getTransform() {
+        return transform;
+    }
+
+    Bitmap getBitmap() {
+        return bitmap;
+    }
+
+    ByteBuffer getPixels() {
+        return pixels;
+    }
+
+    /** Adds a reference for an additional consumer. */
+    public void retain() {
+        refCount.incrementAndGet();
+    }
+
+    /**
+     * Drops a reference. MediaPipe copies the pixels into its own packet inside
+     * detectAsync, so a consumer may release as soon as that call returns.
+     */
+    public void release() {
+        if (refCount.decrementAndGet() != 0) {
+            return;
+        }
+        if (pooledBuffer != null) {
+            pool.release(pooledBuffer);
+            pooledBuffer = null;
+        }
+        // Required to close imageProxy to free memory for CameraX to produce next frame.
+        // Crops own a copy of their pixels and have no camera frame of their own.
+        if (imageProxy != null) {
+            imageProxy.close();
+        }
+    }
+}
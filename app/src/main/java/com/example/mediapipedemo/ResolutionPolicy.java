@@ -0,0 +1,63 @@
+package com.example.mediapipedemo;
+
+import android.util.Size;
+
+import androidx.camera.core.resolutionselector.AspectRatioStrategy;
+import androidx.camera.core.resolutionselector.ResolutionSelector;
+import androidx.camera.core.resolutionselector.ResolutionStrategy;
+
+/**
+ * Decides how many pixels each stage works on: the resolution CameraX is asked
+ * to deliver for analysis, and how far each model's full-frame input is
+ * downscaled from there.
+ *
+ * Frames are downscaled by halving, one pyramid level at a time, so a level is
+ * only ever built once per frame and two models that want the same level
+ * share it. Each model gets the smallest level whose long edge is still at
+ * least its minimum; the models resample to their own input size anyway, so
+ * anything bigger is just conversion work and memory bandwidth.
+ */
+public class ResolutionPolicy {
+    /** Level 0 is the camera frame; each further level halves both sides. */
+    public static final int MAX_LEVELS = 4;
+
+    private final Size analysisSize;
+    private final int poseMinLongEdge;
+    private final int objectMinLongEdge;
+
+    /**
+     * @param analysisSize the analysis resolution to ask the camera for
+     * @param poseMinLongEdge smallest long edge the pose landmarker should get
+     * @param objectMinLongEdge smallest long edge the object detector should get
+     */
+    public ResolutionPolicy(Size analysisSize, int poseMinLongEdge, int objectMinLongEdge) {
+        this.analysisSize = analysisSize;
+        this.poseMinLongEdge = poseMinLongEdge;
+        this.objectMinLongEdge = objectMinLongEdge;
+    }
+
+    /** For ImageAnalysis.Builder: the closest 4:3 size to the target, preferring larger. */
+    public ResolutionSelector buildResolutionSelector() {
+        return new ResolutionSelector.Builder()
+                .setAspectRatioStrategy(AspectRatioStrategy.RATIO_4_3_FALLBACK_AUTO_STRATEGY)
+                .setResolutionStrategy(new ResolutionStrategy(analysisSize,
+                        ResolutionStrategy.FALLBACK_RULE_CLOSEST_HIGHER_THEN_LOWER))
+                .build();
+    }
+
+    public Size getAnalysisSize() {
+        return analysisSize;
+    }
+
+    /** The pyramid level {@code model} should run on for a {@code width x height} frame. */
+    public int levelFor(InferenceScheduler.Model model, int width, int height) {
+        int minLongEdge = model == InferenceScheduler.Model.POSE ? poseMinLongEdge : objectMinLongEdge;
+        int longEdge = Math.max(width, height);
+        int level = 0;
+        while (level < MAX_LEVELS - 1 && longEdge / 2 >= minLongEdge) {
+            longEdge /= 2;
+            level++;
+        }
+        return level;
+    }
+}
@@ -0,0 +1,343 @@
+package com.example.mediapipedemo;
+
+import com.google.mediapipe.tasks.vision.objectdetector.ObjectDetectorResult;
+import com.google.mediapipe.tasks.vision.poselandmarker.PoseLandmarkerResult;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Pairs pose and object results by frame timestamp without taking locks on the
+ * MediaPipe callback threads.
+ *
+ * Each model keeps a short history of its latest results. When a result
+ * arrives it is paired with the counterpart whose timestamp is nearest, as long
+ * as that is within {@code maxSkewMs}, and the pair is published as a
+ * {@link FusedSnapshot}. Snapshots only move forward in time; a result that would
+ * publish something older than what is already out is counted as stale.
+ *
+ * Results are copied into pooled primitive snapshots on the callback thread, so
+ * the library's result objects are not kept past the callback. The fused
+ * snapshots are pooled too, so nothing is allocated per result or per frame.
+ * The history, the published slot and the consumer each hold a reference on
+ * what they use, and everything goes back to its pool once none does. The
+ * published snapshot is retained before anything is read from it, since it
+ * may be recycled under us (see {@link #retainPublished}).
+ *
+ * The consumer is never run concurrently with itself: whichever callback thread
+ * publishes takes a drain flag and delivers the newest snapshot, and a thread
+ * that finds the flag taken leaves its snapshot to the current drainer.
+ *
+ * {@link #tick} republishes the latest pair for every camera frame, so the
+ * consumer runs at camera rate even when the models run slower.
+ *
+ * When a model skips frames because the scene has not changed, {@link #holdPose}
+ * and {@link #holdObjects} let its latest result stand in for the skipped ones,
+ * so the other model's results are still paired with it.
+ */
+public class ResultFusionBuffer {
+    public interface Consumer {
+        /** {@code snapshot} is only valid until this returns. */
+        void onFused(FusedSnapshot snapshot);
+    }
+
+    private static final int HISTORY_SIZE = 8;
+    // The history, plus what the published slot, the consumer and a pairing in
+    // progress can hold on to at once
+    private static final int POOL_SIZE = HISTORY_SIZE + 8;
+    // The published slot and the consumer, plus a current and a next snapshot
+    // for each thread that may be publishing at once
+    private static final int FUSED_POOL_SIZE = 8;
+
+    private final long maxSkewMs;
+    private final Consumer consumer;
+    private volatile PipelineMetrics metrics;
+
+    private final PooledSnapshot.Pool<PoseSnapshot> posePool =
+            new PooledSnapshot.Pool<>(POOL_SIZE, PoseSnapshot::new);
+    private final PooledSnapshot.Pool<ObjectSnapshot> objectPool =
+            new PooledSnapshot.Pool<>(POOL_SIZE, ObjectSnapshot::new);
+    private final FusedSnapshot.Pool fusedPool = new FusedSnapshot.Pool(FUSED_POOL_SIZE);
+    // Only used on the object callback thread
+    private final LabelMap labelMap = new LabelMap();
+
+    private final AtomicReferenceArray<PoseSnapshot> poseHistory = new AtomicReferenceArray<>(HISTORY_SIZE);
+    private final AtomicReferenceArray<ObjectSnapshot> objectHistory = new AtomicReferenceArray<>(HISTORY_SIZE);
+    private final AtomicInteger poseWriteIndex = new AtomicInteger();
+    private final AtomicInteger objectWriteIndex = new AtomicInteger();
+
+    // Frame time up to which each model's latest result stands in for skipped frames
+    private volatile long poseHeldThroughMs = Long.MIN_VALUE;
+    private volatile long objectsHeldThroughMs = Long.MIN_VALUE;
+
+    private final AtomicReference<FusedSnapshot> published = new AtomicReference<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    // Sequence of the last snapshot delivered, 0 for none; written only by the
+    // thread holding the drain flag
+    private volatile long lastDeliveredSequence;
+
+    private final AtomicLong publishedCount = new AtomicLong();
+    private final AtomicLong staleCount = new AtomicLong();
+    private final AtomicLong unpairedCount = new AtomicLong();
+
+    public ResultFusionBuffer(long maxSkewMs, Consumer consumer) {
+        this.maxSkewMs = maxSkewMs;
+        this.consumer = consumer;
+    }
+
+    /** Records the copying and pairing time (not the consumer's) into {@code metrics}; null to disable. */
+    public void setMetrics(PipelineMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public void offerPose(PoseLandmarkerResult result, FrameTransform transform) {
+        long start = System.nanoTime();
+        PoseSnapshot pose = posePool.acquire();
+        pose.copyFrom(result, transform);
+        // The history takes over the reference; only this thread replaces it
+        store(poseHistory, poseWriteIndex, pose);
+        ObjectSnapshot objects = nearest(objectHistory, pose.getTimestampMs(), objectsHeldThroughMs);
+        boolean fresh = publish(pose, objects);
+        if (objects != null) {
+            objects.release();
+        }
+        recordFusion(start);
+        if (fresh) {
+            drain();
+        }
+    }
+
+    public void offerObjects(ObjectDetectorResult result, FrameTransform transform) {
+        long start = System.nanoTime();
+        ObjectSnapshot objects = objectPool.acquire();
+        objects.copyFrom(result, transform, labelMap);
+        store(objectHistory, objectWriteIndex, objects);
+        PoseSnapshot pose = nearest(poseHistory, objects.getTimestampMs(), poseHeldThroughMs);
+        boolean fresh = publish(pose, objects);
+        if (pose != null) {
+            pose.release();
+        }
+        recordFusion(start);
+        if (fresh) {
+            drain();
+        }
+    }
+
+    /**
+     * Republishes the latest pair for the camera frame at {@code frameTimeMs}.
+     * Does nothing if that frame is not newer than what is already out, or if a
+     * fresh result gets published concurrently.
+     */
+    public void tick(long frameTimeMs) {
+        FusedSnapshot current = retainPublished();
+        if (current == null) {
+            return;
+        }
+        if (frameTimeMs <= current.getDisplayTimestampMs()) {
+            current.release();
+            return;
+        }
+        // Keeps the result timestamp, so results for older frames still in
+        // flight are not mistaken for stale ones. Holding current until the
+        // swap keeps it from being recycled and republished in between.
+        FusedSnapshot next = current.atDisplayTime(frameTimeMs);
+        boolean swapped = published.compareAndSet(current, next);
+        current.release();
+        if (swapped) {
+            current.release();
+            drain();
+        } else {
+            next.release();
+        }
+    }
+
+    /**
+     * Pose was skipped for the frame at {@code frameTimeMs} because nothing
+     * changed; results near that frame pair with the latest pose instead.
+     * Call from the camera thread.
+     */
+    public void holdPose(long frameTimeMs) {
+        poseHeldThroughMs = frameTimeMs;
+    }
+
+    /** Like {@link #holdPose}, for object detection. */
+    public void holdObjects(long frameTimeMs) {
+        objectsHeldThroughMs = frameTimeMs;
+    }
+
+    public long getPublishedCount() {
+        return publishedCount.get();
+    }
+
+    /** Results dropped because a newer snapshot had already been published. */
+    public long getStaleCount() {
+        return staleCount.get();
+    }
+
+    /** Snapshots published one-sided because no counterpart was within the skew. */
+    public long getUnpairedCount() {
+        return unpairedCount.get();
+    }
+
+    /** Snapshots allocated because the pools ran dry; flat once warmed up. */
+    public long getPooledCreatedCount() {
+        return posePool.getCreatedCount() + objectPool.getCreatedCount() + fusedPool.getCreatedCount();
+    }
+
+    private static <R extends PooledSnapshot> void store(AtomicReferenceArray<R> history, AtomicInteger writeIndex,
+            R entry) {
+        // Each model's results arrive on a single callback thread, so there is one writer per history.
+        int index = writeIndex.getAndIncrement() & (HISTORY_SIZE - 1);
+        R replaced = history.getAndSet(index, entry);
+        if (replaced != null) {
+            replaced.release();
+        }
+    }
+
+    /** Returns the match with a reference the caller must release, or null. */
+    private <R extends PooledSnapshot> R nearest(AtomicReferenceArray<R> history, long timestampMs,
+            long heldThroughMs) {
+        while (true) {
+            R best = null;
+            long bestTimestampMs = 0;
+            long bestDistance = Long.MAX_VALUE;
+            // Newest entry not after timestampMs, in case the result is being held
+            R latest = null;
+            long latestTimestampMs = Long.MIN_VALUE;
+            boolean any = false;
+            for (int i = 0; i < HISTORY_SIZE; i++) {
+                R entry = history.get(i);
+                if (entry == null) {
+                    continue;
+                }
+                // Read once: the entry may be recycled under us, which tryRetain catches
+                long entryTimestampMs = entry.getTimestampMs();
+                if (entryTimestampMs == Long.MIN_VALUE) {
+                    continue;
+                }
+                any = true;
+                long distance = Math.abs(entryTimestampMs - timestampMs);
+                if (distance <= maxSkewMs && distance < bestDistance) {
+                    best = entry;
+                    bestTimestampMs = entryTimestampMs;
+                    bestDistance = distance;
+                }
+                if (entryTimestampMs <= timestampMs && (latest == null || entryTimestampMs > latestTimestampMs)) {
+                    latest = entry;
+                    latestTimestampMs = entryTimestampMs;
+                }
+            }
+            if (best == null && latest != null && heldThroughMs != Long.MIN_VALUE
+                    && Math.abs(timestampMs - heldThroughMs) <= maxSkewMs) {
+                best = latest;
+                bestTimestampMs = latestTimestampMs;
+            }
+            if (best == null) {
+                if (any) {
+                    unpairedCount.incrementAndGet();
+                }
+                return null;
+            }
+            if (best.tryRetain(bestTimestampMs)) {
+                return best;
+            }
+            // Its model replaced it meanwhile; look again among the newer entries
+        }
+    }
+
+    private void recordFusion(long startNanos) {
+        PipelineMetrics metrics = this.metrics;
+        if (metrics != null) {
+            metrics.recordNanos(PipelineMetrics.Stage.FUSION, System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * Returns the published snapshot with a reference the caller must release,
+     * or null if nothing has been published yet.
+     */
+    private FusedSnapshot retainPublished() {
+        while (true) {
+            FusedSnapshot current = published.get();
+            if (current == null) {
+                return null;
+            }
+            if (current.tryRetain(current.getSequence())) {
+                // Still in the slot, so not recycled and refilled since it was read
+                if (published.get() == current) {
+                    return current;
+                }
+                current.release();
+            }
+            // Replaced meanwhile; look at the newer one
+        }
+    }
+
+    /** Returns true if the snapshot went out and the consumer should be run. */
+    private boolean publish(PoseSnapshot pose, ObjectSnapshot objects) {
+        long poseTs = pose != null ? pose.getTimestampMs() : Long.MIN_VALUE;
+        long objectTs = objects != null ? objects.getTimestampMs() : Long.MIN_VALUE;
+        long timestampMs = Math.max(poseTs, objectTs);
+
+        while (true) {
+            FusedSnapshot current = retainPublished();
+            try {
+                // Equal timestamps are allowed through: the second half of a frame
+                // replaces the approximate pairing made when the first half arrived.
+                if (current != null && timestampMs < current.getTimestampMs()) {
+                    staleCount.incrementAndGet();
+                    return false;
+                }
+                // A tick may already have moved the display time past this result
+                long displayTimestampMs = current != null
+                        ? Math.max(current.getDisplayTimestampMs(), timestampMs) : timestampMs;
+                FusedSnapshot next = fusedPool.acquire(timestampMs, displayTimestampMs, pose, objects);
+                if (published.compareAndSet(current, next)) {
+                    if (current != null) {
+                        current.release();
+                    }
+                    break;
+                }
+                next.release();
+            } finally {
+                if (current != null) {
+                    current.release();
+                }
+            }
+        }
+        publishedCount.incrementAndGet();
+        return true;
+    }
+
+    private void drain() {
+        while (draining.compareAndSet(false, true)) {
+            try {
+                FusedSnapshot snapshot;
+                while ((snapshot = retainPublished()) != null) {
+                    long sequence = snapshot.getSequence();
+                    if (sequence == lastDeliveredSequence) {
+                        snapshot.release();
+                        break;
+                    }
+                    lastDeliveredSequence = sequence;
+                    try {
+                        consumer.onFused(snapshot);
+                    } finally {
+                        snapshot.release();
+                    }
+                }
+            } finally {
+                draining.set(false);
+            }
+            // Something may have been published between the last check and
+            // releasing the flag; go round again if so.
+            FusedSnapshot latest = published.get();
+            if (latest == null || latest.getSequence() == lastDeliveredSequence) {
+                return;
+            }
+        }
+    }
+}
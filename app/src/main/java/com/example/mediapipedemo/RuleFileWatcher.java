@@ -0,0 +1,77 @@
+package com.example.mediapipedemo;
+
+import android.os.FileObserver;
+import android.util.Log;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Loads the action rules from a file and reloads them whenever the file is
+ * written or replaced, swapping the compiled {@link RuleSet} into the
+ * {@link ActionPipeline} without pausing analysis.
+ *
+ * If the file does not exist it is created with {@link RuleSet#DEFAULT_RULES}
+ * so there is something to edit. A file that fails to compile is logged and
+ * ignored; the rules in use stay as they were.
+ */
+public class RuleFileWatcher {
+    private static final String TAG = "RuleFileWatcher";
+
+    private final File file;
+    private final ActionPipeline pipeline;
+    private final FileObserver observer;
+
+    public RuleFileWatcher(File file, ActionPipeline pipeline) {
+        this.file = file;
+        this.pipeline = pipeline;
+        // Watch the directory, so a file replaced by a rename is picked up too
+        observer = new FileObserver(file.getParent(), FileObserver.CLOSE_WRITE | FileObserver.MOVED_TO) {
+            @Override
+            public void onEvent(int event, String path) {
+                if (file.getName().equals(path)) {
+                    load();
+                }
+            }
+        };
+    }
+
+    /** Loads the file, writing the defaults first if it is missing, and starts watching. */
+    public void start() {
+        if (!file.exists()) {
+            writeDefaults();
+        }
+        load();
+        observer.startWatching();
+    }
+
+    public void stop() {
+        observer.stopWatching();
+    }
+
+    private void load() {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            RuleSet rules = RuleSet.parse(file.getName(), reader);
+            pipeline.setRuleSet(rules);
+            Log.i(TAG, "Loaded " + rules.getRuleCount() + " rules from " + file);
+        } catch (IOException e) {
+            Log.e(TAG, "Keeping the current rules: " + e.getMessage());
+        }
+    }
+
+    private void writeDefaults() {
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write(RuleSet.DEFAULT_RULES);
+        } catch (IOException e) {
+            Log.w(TAG, "Could not write default rules: " + e.getMessage());
+        }
+    }
+}
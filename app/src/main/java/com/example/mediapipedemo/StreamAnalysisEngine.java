@@ -0,0 +1,331 @@
+package com.example.mediapipedemo;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.google.mediapipe.framework.image.BitmapImageBuilder;
+import com.google.mediapipe.framework.image.MPImage;
+import com.google.mediapipe.tasks.vision.objectdetector.ObjectDetector;
+import com.google.mediapipe.tasks.vision.poselandmarker.PoseLandmarker;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Analyzes many recorded streams at once, without a camera or a UI.
+ *
+ * A fixed pool of workers each owns one pose detector and one object detector
+ * in IMAGE mode. Those keep no state from frame to frame, so a worker can run
+ * any stream; everything that does carry over (tracking, landmark filtering,
+ * the feature windows, smoothing) lives in the stream's own
+ * {@link ActionPipeline}, exactly as in the app. Both models see the same
+ * frame, so pose and objects pair exactly and no fusion buffer is needed.
+ *
+ * Streams are dealt out to per-worker deques. A worker runs
+ * {@link #SLICE_FRAMES} frames of the stream at the head of its own deque and
+ * puts it back at the tail; a worker with nothing left takes a stream from the
+ * tail of another's. A stream is in at most one deque or one worker's hands at
+ * a time, so its frames stay in order without any locking, and the only shared
+ * writes are one deque operation and one counter update per slice. Throughput
+ * therefore grows with the number of workers until the cores run out.
+ */
+public class StreamAnalysisEngine {
+    private static final String TAG = "StreamAnalysisEngine";
+    // Frames run from one stream before moving on; short enough to rebalance
+    // quickly, long enough that the deques stay out of the profile
+    private static final int SLICE_FRAMES = 8;
+    // How long an idle worker waits before looking for work again
+    private static final long IDLE_PARK_NANOS = 1_000_000L;
+
+    public interface Listener {
+        /**
+         * The smoothed status of frame {@code timestampMs} of stream
+         * {@code stream}, its index in the list given to {@link #run}. Called
+         * on a worker thread; calls for one stream come in frame order and
+         * never overlap. {@code personStatuses} is only valid until this returns.
+         */
+        void onStatus(int stream, long timestampMs, ActionStatus status, ActionStatus[] personStatuses);
+
+        /** The stream ended after {@code frames} frames; {@code error} is null unless it failed. */
+        void onStreamFinished(int stream, long frames, Exception error);
+    }
+
+    public static final class Result {
+        private long frames;
+        private long elapsedNanos;
+        private long loadMs;
+        private int workers;
+        private long steals;
+
+        public long getFrames() {
+            return frames;
+        }
+
+        /** Frames per second over all streams, not counting model loading. */
+        public double getFramesPerSecond() {
+            return elapsedNanos > 0 ? frames * 1e9 / elapsedNanos : 0;
+        }
+
+        /** Time until every worker had its detectors loaded. */
+        public long getLoadMs() {
+            return loadMs;
+        }
+
+        /** Workers that loaded their detectors and took part. */
+        public int getWorkers() {
+            return workers;
+        }
+
+        /** Times a worker took a stream from another worker's deque. */
+        public long getSteals() {
+            return steals;
+        }
+    }
+
+    private final Context context;
+    private final int workerCount;
+    private final RuleSet ruleSet;
+    private final Listener listener;
+    private final ActionFrameBuilder frameBuilder = new ActionFrameBuilder();
+
+    private final AtomicLong processedFrames = new AtomicLong();
+
+    /**
+     * @param workerCount detector pairs to load; {@link #defaultWorkerCount} is
+     *         one per core, and more than the number of streams buys nothing
+     */
+    public StreamAnalysisEngine(Context context, int workerCount, RuleSet ruleSet, Listener listener) {
+        this.context = context.getApplicationContext();
+        this.workerCount = workerCount;
+        this.ruleSet = ruleSet;
+        this.listener = listener;
+    }
+
+    public static int defaultWorkerCount() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /** Frames analyzed so far by the current or last {@link #run}, for progress reports. */
+    public long getProcessedFrames() {
+        return processedFrames.get();
+    }
+
+    /**
+     * Runs every source to its end, then closes it, and returns once all are
+     * done. Throws if no worker could load its detectors.
+     */
+    public Result run(List<FrameSource> sources) throws IOException, InterruptedException {
+        processedFrames.set(0);
+        if (sources.isEmpty()) {
+            return new Result();
+        }
+        int workers = Math.max(1, Math.min(workerCount, sources.size()));
+        Run run = new Run(workers, sources.size());
+        for (int i = 0; i < sources.size(); i++) {
+            run.deques[i % workers].offerLast(new Stream(i, sources.get(i), ruleSet));
+        }
+
+        long loadStart = SystemClock.uptimeMillis();
+        Thread[] threads = new Thread[workers];
+        for (int i = 0; i < workers; i++) {
+            int self = i;
+            threads[i] = new Thread(() -> work(run, self), TAG + "-" + i);
+            threads[i].start();
+        }
+        run.ready.await();
+        long start = System.nanoTime();
+        long loadMs = SystemClock.uptimeMillis() - loadStart;
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        // Streams are left over only if every worker failed to load
+        int abandoned = 0;
+        for (ConcurrentLinkedDeque<Stream> deque : run.deques) {
+            Stream stream;
+            while ((stream = deque.pollFirst()) != null) {
+                closeQuietly(stream.source);
+                abandoned++;
+            }
+        }
+        if (abandoned > 0) {
+            throw new IOException("No detectors could be loaded; " + abandoned + " streams not analyzed",
+                    run.loadError);
+        }
+
+        Result result = new Result();
+        result.frames = processedFrames.get();
+        result.elapsedNanos = elapsedNanos;
+        result.loadMs = loadMs;
+        result.workers = run.loadedWorkers.get();
+        result.steals = run.steals.get();
+        Log.i(TAG, String.format(Locale.US, "%d streams, %d frames, %.1f fps on %d workers, %d steals",
+                sources.size(), result.frames, result.getFramesPerSecond(), result.workers, result.steals));
+        return result;
+    }
+
+    private void work(Run run, int self) {
+        PoseLandmarker pose;
+        ObjectDetector objects;
+        try {
+            pose = PoseLandmarkerHelper.createForImages(context);
+        } catch (Exception e) {
+            run.onLoadFailed(self, e);
+            return;
+        }
+        try {
+            objects = ObjectDetectorHelper.createForImages(context);
+        } catch (Exception e) {
+            pose.close();
+            run.onLoadFailed(self, e);
+            return;
+        }
+        run.loadedWorkers.incrementAndGet();
+        run.ready.countDown();
+
+        try {
+            while (run.remaining.get() > 0) {
+                Stream stream = run.deques[self].pollFirst();
+                if (stream == null) {
+                    stream = steal(run, self);
+                    if (stream == null) {
+                        // Whatever is left is in other workers' hands right now
+                        LockSupport.parkNanos(IDLE_PARK_NANOS);
+                        continue;
+                    }
+                }
+                if (runSlice(stream, pose, objects)) {
+                    run.deques[self].offerLast(stream);
+                } else {
+                    run.remaining.decrementAndGet();
+                }
+            }
+        } finally {
+            pose.close();
+            objects.close();
+        }
+    }
+
+    private static Stream steal(Run run, int self) {
+        int workers = run.deques.length;
+        for (int i = 1; i < workers; i++) {
+            Stream stream = run.deques[(self + i) % workers].pollLast();
+            if (stream != null) {
+                run.steals.incrementAndGet();
+                return stream;
+            }
+        }
+        return null;
+    }
+
+    /** Returns false once the stream has ended, after reporting and closing it. */
+    private boolean runSlice(Stream stream, PoseLandmarker pose, ObjectDetector objects) {
+        int frames = 0;
+        try {
+            for (; frames < SLICE_FRAMES; frames++) {
+                Bitmap bitmap = stream.source.next();
+                if (bitmap == null) {
+                    finish(stream, frames, null);
+                    return false;
+                }
+                long timestampMs = stream.source.getTimestampMs();
+                MPImage image = new BitmapImageBuilder(bitmap).build();
+                FrameTransform transform = stream.transformFor(bitmap.getWidth(), bitmap.getHeight());
+                stream.pose.copyFrom(pose.detect(image), transform);
+                stream.objects.copyFrom(objects.detect(image), transform, stream.labelMap);
+                frameBuilder.fill(stream.pose, stream.objects, transform.getOutputWidth(),
+                        transform.getOutputHeight(), stream.frame);
+                ActionStatus status = stream.pipeline.process(stream.frame, timestampMs, timestampMs);
+                if (listener != null) {
+                    listener.onStatus(stream.index, timestampMs, status, stream.pipeline.getPersonStatuses());
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "Stream " + stream.source.getName() + " failed: " + e.getMessage());
+            finish(stream, frames, e);
+            return false;
+        }
+        stream.frames += frames;
+        processedFrames.addAndGet(frames);
+        return true;
+    }
+
+    private void finish(Stream stream, int sliceFrames, Exception error) {
+        stream.frames += sliceFrames;
+        processedFrames.addAndGet(sliceFrames);
+        closeQuietly(stream.source);
+        if (listener != null) {
+            listener.onStreamFinished(stream.index, stream.frames, error);
+        }
+    }
+
+    private static void closeQuietly(FrameSource source) {
+        try {
+            source.close();
+        } catch (IOException e) {
+            Log.w(TAG, "Could not close " + source.getName() + ": " + e.getMessage());
+        }
+    }
+
+    /** Shared by the workers of one {@link #run}. */
+    private static final class Run {
+        final ConcurrentLinkedDeque<Stream>[] deques;
+        final AtomicInteger remaining;
+        final CountDownLatch ready;
+        final AtomicInteger loadedWorkers = new AtomicInteger();
+        final AtomicLong steals = new AtomicLong();
+        volatile Exception loadError;
+
+        @SuppressWarnings("unchecked")
+        Run(int workers, int streams) {
+            deques = new ConcurrentLinkedDeque[workers];
+            for (int i = 0; i < workers; i++) {
+                deques[i] = new ConcurrentLinkedDeque<>();
+            }
+            remaining = new AtomicInteger(streams);
+            ready = new CountDownLatch(workers);
+        }
+
+        void onLoadFailed(int worker, Exception e) {
+            Log.e(TAG, "Worker " + worker + " could not load its detectors: " + e.getMessage());
+            loadError = e;
+            ready.countDown();
+        }
+    }
+
+    /** Everything one stream carries from frame to frame; used by one worker at a time. */
+    private static final class Stream {
+        final int index;
+        final FrameSource source;
+        final ActionPipeline pipeline = new ActionPipeline();
+        final ActionFrame frame = new ActionFrame();
+        final PoseSnapshot pose = new PoseSnapshot();
+        final ObjectSnapshot objects = new ObjectSnapshot();
+        final LabelMap labelMap = new LabelMap();
+        FrameTransform transform;
+        long frames;
+
+        Stream(int index, FrameSource source, RuleSet ruleSet) {
+            this.index = index;
+            this.source = source;
+            pipeline.setRuleSet(ruleSet);
+        }
+
+        /** Decoded frames are already upright, so this only changes if the frame size does. */
+        FrameTransform transformFor(int width, int height) {
+            if (transform == null || transform.getInputWidth() != width || transform.getInputHeight() != height) {
+                transform = FrameTransform.identity(width, height);
+            }
+            return transform;
+        }
+    }
+}
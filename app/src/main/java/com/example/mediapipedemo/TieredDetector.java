@@ -0,0 +1,27 @@
+package com.example.mediapipedemo;
+
+/**
+ * A detector helper that can be switched between {@link ModelTier}s while
+ * frames keep flowing; see {@link ModelTierGovernor}.
+ */
+public interface TieredDetector {
+    /** The available tiers, cheapest first. */
+    ModelTier[] getTiers();
+
+    /** Index into {@link #getTiers()} of the live tier. */
+    int getTierIndex();
+
+    /**
+     * Builds and warms up tier {@code index} next to the live detector, then
+     * swaps it in. Blocks until done; returns false, leaving the live detector
+     * in place, if the new one could not be set up.
+     */
+    boolean switchTo(int index);
+
+    /** Closes the detector replaced by the last switch, once its results are in. */
+    void closeRetired();
+
+    int getInFlightCount();
+
+    int getMaxInFlight();
+}
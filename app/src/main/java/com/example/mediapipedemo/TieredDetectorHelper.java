@@ -0,0 +1,308 @@
+package com.example.mediapipedemo;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.mediapipe.framework.image.BitmapImageBuilder;
+import com.google.mediapipe.framework.image.MPImage;
+import com.google.mediapipe.tasks.core.ErrorListener;
+import com.google.mediapipe.tasks.core.OutputHandler;
+import com.google.mediapipe.tasks.core.TaskResult;
+import com.google.mediapipe.tasks.vision.core.BaseVisionTaskApi;
+import com.google.mediapipe.tasks.vision.core.ImageProcessingOptions;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What the pose and object helpers have in common: a LIVE_STREAM detector of
+ * type {@code D} on one of a fixed list of {@link ModelTier}s, its warm-up,
+ * tier switches, the {@link SubmissionGate}, and the transform of each frame
+ * until its result of type {@code R} comes back. Subclasses only build the
+ * detector for a tier and submit a frame to it.
+ */
+public abstract class TieredDetectorHelper<D extends BaseVisionTaskApi, R extends TaskResult>
+        implements TieredDetector {
+    // One frame running plus one queued behind it keeps the model busy without
+    // letting a backlog build up inside the graph.
+    private static final int DEFAULT_MAX_IN_FLIGHT = 2;
+    // A submission with no answer after this long was dropped by the graph.
+    private static final long IN_FLIGHT_EXPIRY_MS = 1000;
+    // Side of the blank frame used to warm up the model
+    private static final int WARM_UP_SIZE = 256;
+    private static final long SWITCH_WARM_UP_TIMEOUT_MS = 5000;
+
+    protected final Context context;
+    private final String tag;
+    private final String name;
+    private final ModelTier[] tiers;
+    private final Listener<R> listener;
+    private final SubmissionGate gate = new SubmissionGate(DEFAULT_MAX_IN_FLIGHT, IN_FLIGHT_EXPIRY_MS);
+    // Created on the initializer or governor thread, used from the camera thread.
+    // A tier switch warms up the new detector before swapping it in, so once set
+    // up this is never null.
+    private volatile D detector;
+    private volatile int tierIndex;
+    // The detector replaced by the last switch, until its last results are in
+    private D retired;
+    private boolean closed;
+    // Warm-up of the detector created by setup()
+    private DetectorWarmUp setupWarmUp;
+    private final FrameTransformHistory transforms = new FrameTransformHistory();
+
+    /** Results and errors of the camera frames; warm-up results never get here. */
+    public interface Listener<R> {
+        void onError(String error);
+
+        void onResults(R result, FrameTransform transform, long inferenceTime, int imageHeight, int imageWidth);
+    }
+
+    /**
+     * {@code name} is the MediaPipe task, for log and error messages;
+     * {@code tiers} are cheapest first.
+     */
+    protected TieredDetectorHelper(String tag, String name, Context context, ModelTier[] tiers, int defaultTier,
+            Listener<R> listener) {
+        this.tag = tag;
+        this.name = name;
+        this.context = context;
+        this.tiers = tiers;
+        this.tierIndex = defaultTier;
+        this.listener = listener;
+    }
+
+    /**
+     * Builds a LIVE_STREAM detector for {@code tier} that reports to the given
+     * listeners.
+     */
+    protected abstract D createLiveStream(ModelTier tier, OutputHandler.ResultListener<R, MPImage> resultListener,
+            ErrorListener errorListener) throws Exception;
+
+    /** Calls {@code detector.detectAsync} with these arguments. */
+    protected abstract void detectAsync(D detector, MPImage image, ImageProcessingOptions options, long timestampMs);
+
+    /**
+     * Loads and compiles the model. Blocks for as long as that takes, so call it
+     * off the main thread (see {@link DetectorInitializer}). Returns false if the
+     * model could not be created.
+     */
+    public boolean setup() {
+        DetectorWarmUp warmUp = new DetectorWarmUp();
+        D created = create(tiers[tierIndex], warmUp);
+        if (created == null) {
+            if (listener != null) {
+                listener.onError(name + " failed to initialize.");
+            }
+            return false;
+        }
+        synchronized (this) {
+            if (closed) {
+                created.close();
+                return false;
+            }
+            detector = created;
+            setupWarmUp = warmUp;
+        }
+        return true;
+    }
+
+    /**
+     * Creates a LIVE_STREAM detector whose callbacks go to {@code warmUp} first.
+     * Returns null, after logging why, if it could not be created.
+     */
+    private D create(ModelTier tier, DetectorWarmUp warmUp) {
+        try {
+            return createLiveStream(tier,
+                    (result, inputImage) -> {
+                        if (!warmUp.onResult(result.timestampMs())) {
+                            returnLivestreamResult(result, inputImage);
+                        }
+                    },
+                    error -> {
+                        if (!warmUp.onError(error)) {
+                            returnLivestreamError(error);
+                        }
+                    });
+        } catch (Exception e) {
+            Log.e(tag, name + " (" + tier + ") failed to initialize. Error: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Runs one inference on a blank frame so the first camera frame does not pay
+     * for lazy graph and delegate initialization. The future completes when that
+     * result (or an error) comes back; the result is not passed to the listener.
+     * Call once, after {@link #setup}.
+     */
+    public ListenableFuture<Void> warmUp() {
+        D current;
+        DetectorWarmUp warmUp;
+        synchronized (this) {
+            current = detector;
+            warmUp = setupWarmUp;
+        }
+        if (current == null) {
+            SettableFuture<Void> failed = SettableFuture.create();
+            failed.setException(new IllegalStateException(name + " is not set up"));
+            return failed;
+        }
+        return warmUp(current, warmUp);
+    }
+
+    private ListenableFuture<Void> warmUp(D target, DetectorWarmUp warmUp) {
+        MPImage image = new BitmapImageBuilder(
+                Bitmap.createBitmap(WARM_UP_SIZE, WARM_UP_SIZE, Bitmap.Config.ARGB_8888)).build();
+        warmUp.begin();
+        try {
+            detectAsync(target, image, ImageProcessingOptions.builder().build(), DetectorWarmUp.TIMESTAMP_MS);
+        } catch (RuntimeException e) {
+            warmUp.fail(e);
+        }
+        return warmUp.getFuture();
+    }
+
+    @Override
+    public ModelTier[] getTiers() {
+        return tiers;
+    }
+
+    @Override
+    public int getTierIndex() {
+        return tierIndex;
+    }
+
+    /**
+     * Call from a background thread; the live detector keeps serving frames
+     * until the new one is warmed up. Only one warm-up may run at a time.
+     */
+    @Override
+    public boolean switchTo(int index) {
+        DetectorWarmUp warmUp = new DetectorWarmUp();
+        D created = create(tiers[index], warmUp);
+        if (created == null) {
+            return false;
+        }
+        try {
+            warmUp(created, warmUp).get(SWITCH_WARM_UP_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            Log.w(tag, "Warm-up of " + tiers[index] + " did not complete: " + e);
+            warmUp.getFuture().cancel(false);
+            created.close();
+            return false;
+        }
+        synchronized (this) {
+            if (closed) {
+                created.close();
+                return false;
+            }
+            if (retired != null) {
+                retired.close();
+            }
+            retired = detector;
+            detector = created;
+            tierIndex = index;
+        }
+        Log.i(tag, "Switched to " + tiers[index]);
+        return true;
+    }
+
+    @Override
+    public synchronized void closeRetired() {
+        if (retired != null) {
+            retired.close();
+            retired = null;
+        }
+    }
+
+    /**
+     * True if the current frame should be prepared and submitted: the
+     * detector is set up, {@code due} says the scheduler wants it, and the
+     * in-flight limit allows. Call before any conversion work on the frame.
+     */
+    public boolean admit(boolean due) {
+        return gate.admit(detector != null, due, SystemClock.uptimeMillis());
+    }
+
+    /** Admission, submission and drop counts for this detector. */
+    public SubmissionGate getSubmissionGate() {
+        return gate;
+    }
+
+    public void setMaxInFlight(int maxInFlight) {
+        gate.setMaxInFlight(maxInFlight);
+    }
+
+    @Override
+    public int getInFlightCount() {
+        return gate.getInFlightCount();
+    }
+
+    @Override
+    public int getMaxInFlight() {
+        return gate.getMaxInFlight();
+    }
+
+    /**
+     * Submits a prepared frame. The caller keeps its reference to the frame and
+     * may release it as soon as this returns. {@code frameTime} must be after
+     * the previous frame's; returns false if the frame was dropped instead.
+     */
+    public boolean detect(PreparedFrame frame, long frameTime) {
+        D current = detector;
+        if (current == null) {
+            gate.drop(SubmissionGate.DropReason.NOT_READY);
+            return false;
+        }
+        if (!gate.beginSubmit(frameTime)) {
+            return false;
+        }
+
+        transforms.put(frameTime, frame.getTransform());
+
+        try {
+            detectAsync(current, frame.getImage(), frame.getProcessingOptions(), frameTime);
+        } catch (RuntimeException e) {
+            gate.onSubmitFailed();
+            throw e;
+        }
+        return true;
+    }
+
+    private void returnLivestreamResult(R result, MPImage inputImage) {
+        long finishTimeMs = SystemClock.uptimeMillis();
+        long inferenceTime = finishTimeMs - result.timestampMs();
+        gate.onResult(result.timestampMs());
+
+        FrameTransform transform = transforms.get(result.timestampMs());
+        if (transform == null) {
+            transform = FrameTransform.identity(inputImage.getWidth(), inputImage.getHeight());
+        }
+
+        if (listener != null) {
+            listener.onResults(result, transform, inferenceTime, transform.getOutputHeight(),
+                    transform.getOutputWidth());
+        }
+    }
+
+    private void returnLivestreamError(RuntimeException error) {
+        gate.onError();
+        if (listener != null) {
+            listener.onError(error.getMessage() != null ? error.getMessage() : "An unknown error has occurred");
+        }
+    }
+
+    public synchronized void close() {
+        closed = true;
+        if (detector != null) {
+            detector.close();
+        }
+        closeRetired();
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.mediapipedemo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * {@link ActionAnalyzer#analyze}, which was analyzeAction in MainActivity: the
+ * grid-based wrist-to-object association followed by the rules, per frame.
+ */
+@State(Scope.Thread)
+public class AssociationBenchmark {
+    @Param({"1", "4"})
+    public int persons;
+
+    @Param({"2", "10"})
+    public int detections;
+
+    private final ActionAnalyzer analyzer = new ActionAnalyzer();
+    private final ActionStatus[] statuses = new ActionStatus[ActionFrame.MAX_PERSONS];
+    private ActionFrame frame;
+
+    @Setup
+    public void setUp() {
+        frame = SyntheticFrames.classroom(persons, detections, 42L);
+    }
+
+    @Benchmark
+    public ActionStatus analyze() {
+        analyzer.analyze(frame, statuses);
+        return statuses[0];
+    }
+}
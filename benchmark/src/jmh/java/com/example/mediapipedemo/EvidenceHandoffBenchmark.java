@@ -0,0 +1,67 @@
+package com.example.mediapipedemo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What evidence capture adds to each frame: {@link EvidenceRequests#onStatus}
+ * on the fusion consumer and {@link EvidenceRequests#poll} on the camera
+ * thread. Almost every frame has no capture pending; the rare one that does
+ * also copies the 640x480 RGBA frame, as zero-copy mode does, while the boxes
+ * copy and the request are the only allocation.
+ */
+@State(Scope.Thread)
+public class EvidenceHandoffBenchmark {
+    private static final int WIDTH = 640;
+    private static final int HEIGHT = 480;
+    private static final int FRAME_BYTES = WIDTH * HEIGHT * 4;
+    private static final long FRAME_MS = 33;
+    private static final long MIN_INTERVAL_MS = 10_000;
+
+    private final RgbaPixels.ReadView frameView = new RgbaPixels.ReadView();
+    private EvidenceRequests requests;
+    private ActionFrame frame;
+    private ByteBuffer pixels;
+    private ByteBuffer jobPixels;
+    private long timestampMs;
+
+    @Setup
+    public void setUp() {
+        requests = new EvidenceRequests(EnumSet.of(ActionStatus.PHONE_CONFIRMED), MIN_INTERVAL_MS,
+                Integer.MAX_VALUE);
+        frame = SyntheticFrames.classroom(2, 8, 1L);
+        pixels = ByteBuffer.allocateDirect(FRAME_BYTES).order(ByteOrder.nativeOrder());
+        for (int i = 0; i < FRAME_BYTES; i++) {
+            pixels.put(i, (byte) (i * 31));
+        }
+        jobPixels = ByteBuffer.allocateDirect(FRAME_BYTES).order(ByteOrder.nativeOrder());
+    }
+
+    @Benchmark
+    public EvidenceRequests.Request noCapturePending() {
+        timestampMs += FRAME_MS;
+        requests.onStatus(ActionStatus.NORMAL, frame, timestampMs);
+        return requests.poll();
+    }
+
+    // A whole frame copy takes tens of microseconds
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int captureWithCopy() {
+        // Leave and re-enter the trigger status after the interval, so every call captures
+        timestampMs += MIN_INTERVAL_MS;
+        requests.onStatus(ActionStatus.NORMAL, frame, timestampMs);
+        requests.onStatus(ActionStatus.PHONE_CONFIRMED, frame, timestampMs);
+        EvidenceRequests.Request request = requests.poll();
+        RgbaPixels.copy(pixels, FRAME_BYTES, jobPixels, frameView);
+        return request.getBoxes().length + jobPixels.remaining();
+    }
+}
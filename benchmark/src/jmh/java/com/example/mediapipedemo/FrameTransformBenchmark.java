@@ -0,0 +1,76 @@
+package com.example.mediapipedemo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The rotate/mirror side of preprocessing on the zero-copy path, where the
+ * pixels stay in sensor orientation and {@link FrameTransform} does the work:
+ * mapping a full pose result and a full set of boxes into the upright frame,
+ * and mapping the hand region back to sensor pixels for the crop.
+ */
+@State(Scope.Thread)
+public class FrameTransformBenchmark {
+    private static final int SENSOR_WIDTH = 640;
+    private static final int SENSOR_HEIGHT = 480;
+
+    @Param({"0", "90", "180", "270"})
+    public int rotation;
+
+    @Param({"false", "true"})
+    public boolean mirrored;
+
+    private final float[] normalized = new float[ActionFrame.MAX_PERSONS * ActionFrame.NUM_LANDMARKS * 2];
+    private final float[] sensorBoxes = new float[ActionFrame.MAX_DETECTIONS * 4];
+    private final float[] mapped = new float[ActionFrame.MAX_PERSONS * ActionFrame.NUM_LANDMARKS * 2];
+    private final float[] region = { 0.3f, 0.4f, 0.7f, 0.7f };
+    private FrameTransform transform;
+
+    @Setup
+    public void setUp() {
+        transform = FrameTransform.forOrientation(SENSOR_WIDTH, SENSOR_HEIGHT, rotation, mirrored);
+        for (int i = 0; i < normalized.length; i++) {
+            normalized[i] = (i * 37 % 100) / 100f;
+        }
+        for (int d = 0; d < ActionFrame.MAX_DETECTIONS; d++) {
+            sensorBoxes[d * 4] = d * 40f;
+            sensorBoxes[d * 4 + 1] = d * 30f;
+            sensorBoxes[d * 4 + 2] = d * 40f + 80f;
+            sensorBoxes[d * 4 + 3] = d * 30f + 120f;
+        }
+    }
+
+    @Benchmark
+    public float mapPose() {
+        for (int i = 0; i < normalized.length; i += 2) {
+            mapped[i] = transform.mapNormalizedX(normalized[i], normalized[i + 1]);
+            mapped[i + 1] = transform.mapNormalizedY(normalized[i], normalized[i + 1]);
+        }
+        return mapped[mapped.length - 1];
+    }
+
+    @Benchmark
+    public float mapBoxes() {
+        for (int d = 0; d < ActionFrame.MAX_DETECTIONS; d++) {
+            transform.mapBox(sensorBoxes[d * 4], sensorBoxes[d * 4 + 1], sensorBoxes[d * 4 + 2],
+                    sensorBoxes[d * 4 + 3], mapped, d * 4);
+        }
+        return mapped[ActionFrame.MAX_DETECTIONS * 4 - 1];
+    }
+
+    @Benchmark
+    public float cropRegion() {
+        float outLeft = region[0] * transform.getOutputWidth();
+        float outTop = region[1] * transform.getOutputHeight();
+        float outRight = region[2] * transform.getOutputWidth();
+        float outBottom = region[3] * transform.getOutputHeight();
+        float x0 = transform.inverseX(outLeft, outTop);
+        float y0 = transform.inverseY(outLeft, outTop);
+        float x1 = transform.inverseX(outRight, outBottom);
+        float y1 = transform.inverseY(outRight, outBottom);
+        return Math.min(x0, x1) + Math.min(y0, y1) + Math.max(x0, x1) + Math.max(y0, y1);
+    }
+}
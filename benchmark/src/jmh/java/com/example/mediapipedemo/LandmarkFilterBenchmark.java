@@ -0,0 +1,63 @@
+package com.example.mediapipedemo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The per-frame {@link LandmarkFilter} work for every person in frame, each
+ * with their own filter as {@link PersonTracker} keeps them, over all 33
+ * landmarks: a frame with a fresh pose result (update, then predict for
+ * display), and a frame between pose results (predict only).
+ */
+@State(Scope.Thread)
+public class LandmarkFilterBenchmark {
+    private static final long FRAME_MS = 33;
+
+    @Param({"1", "2", "4"})
+    public int persons;
+
+    // Two poses measured slightly apart, alternated so the filter always has movement to follow
+    private final ActionFrame[] poses = new ActionFrame[2];
+    private final float[] out = new float[ActionFrame.MAX_PERSONS * ActionFrame.NUM_LANDMARKS * 2];
+    private LandmarkFilter[] filters;
+    private long timestampMs;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        poses[0] = SyntheticFrames.classroom(persons, 0, 1L);
+        poses[1] = SyntheticFrames.classroom(persons, 0, 2L);
+        filters = new LandmarkFilter[persons];
+        for (int p = 0; p < persons; p++) {
+            filters[p] = new LandmarkFilter(ActionPipeline.LANDMARK_MIN_CUTOFF_HZ, ActionPipeline.LANDMARK_BETA,
+                    ActionPipeline.LANDMARK_DERIVATIVE_CUTOFF_HZ);
+            filters[p].update(poses[0].landmarks, ActionFrame.landmarkOffset(p), ActionFrame.NUM_LANDMARKS, 0);
+        }
+    }
+
+    @Benchmark
+    public float updateWithResult() {
+        timestampMs += FRAME_MS;
+        ActionFrame pose = poses[next];
+        next ^= 1;
+        for (int p = 0; p < persons; p++) {
+            int offset = ActionFrame.landmarkOffset(p);
+            filters[p].update(pose.landmarks, offset, ActionFrame.NUM_LANDMARKS, timestampMs);
+            filters[p].predict(timestampMs, out, offset);
+        }
+        return out[0];
+    }
+
+    @Benchmark
+    public float predictOnly() {
+        // Stays within the prediction horizon of the last update, as between pose results
+        long displayMs = filters[0].getLastTimestampMs() + FRAME_MS;
+        for (int p = 0; p < persons; p++) {
+            filters[p].predict(displayMs, out, ActionFrame.landmarkOffset(p));
+        }
+        return out[0];
+    }
+}
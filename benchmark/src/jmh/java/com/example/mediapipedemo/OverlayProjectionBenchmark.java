@@ -0,0 +1,59 @@
+package com.example.mediapipedemo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * What OverlayView.onDraw computes for each new result before drawing: the
+ * boxes and every person's skeleton mapped to view pixels on a phone-sized view.
+ */
+@State(Scope.Thread)
+public class OverlayProjectionBenchmark {
+    private static final int VIEW_WIDTH = 1080;
+    private static final int VIEW_HEIGHT = 2400;
+
+    @Param({"1", "4"})
+    public int persons;
+
+    private final OverlayProjection projection = new OverlayProjection();
+    private final float[] landmarks = new float[ActionFrame.MAX_PERSONS * ActionFrame.NUM_LANDMARKS * 2];
+    private final float[] boxes = new float[ActionFrame.MAX_DETECTIONS * 4];
+    private final float[] boxBuffer = new float[ActionFrame.MAX_DETECTIONS * 4];
+    private final float[] landmarkBuffer = new float[ActionFrame.NUM_LANDMARKS * 2];
+    private final float[] pointBuffer = new float[ActionFrame.MAX_PERSONS * ActionFrame.NUM_LANDMARKS * 2];
+    private final float[] lineBuffer = new float[OverlayProjection.MAX_LINE_FLOATS];
+    private int boxCount;
+
+    @Setup
+    public void setUp() {
+        ActionFrame frame = SyntheticFrames.classroom(persons, ActionFrame.MAX_DETECTIONS, 42L);
+        for (int p = 0; p < persons; p++) {
+            for (int i = 0; i < ActionFrame.NUM_LANDMARKS; i++) {
+                landmarks[ActionFrame.landmarkOffset(p) + i * 2] = frame.landmarkX(p, i);
+                landmarks[ActionFrame.landmarkOffset(p) + i * 2 + 1] = frame.landmarkY(p, i);
+            }
+        }
+        boxCount = frame.getDetectionCount();
+        System.arraycopy(frame.boxes, 0, boxes, 0, boxCount * 4);
+        projection.setLayout(VIEW_WIDTH, VIEW_HEIGHT, SyntheticFrames.WIDTH, SyntheticFrames.HEIGHT);
+    }
+
+    @Benchmark
+    public int project() {
+        projection.mapBoxes(boxes, boxCount, boxBuffer);
+        int pointFloats = 0;
+        int lineFloats = 0;
+        for (int p = 0; p < persons; p++) {
+            projection.mapLandmarks(landmarks, ActionFrame.landmarkOffset(p), ActionFrame.NUM_LANDMARKS,
+                    landmarkBuffer);
+            System.arraycopy(landmarkBuffer, 0, pointBuffer, pointFloats, ActionFrame.NUM_LANDMARKS * 2);
+            pointFloats += ActionFrame.NUM_LANDMARKS * 2;
+            lineFloats = OverlayProjection.appendBones(landmarkBuffer, ActionFrame.NUM_LANDMARKS, lineBuffer,
+                    lineFloats);
+        }
+        return pointFloats + lineFloats;
+    }
+}
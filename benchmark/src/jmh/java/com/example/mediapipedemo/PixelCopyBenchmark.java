@@ -0,0 +1,66 @@
+package com.example.mediapipedemo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The pixel copies of the zero-copy path on a synthetic 640x480 RGBA frame:
+ * dropping row padding into a pooled buffer, copying out the hand crop, and
+ * halving for the downscale pyramid.
+ */
+// Whole frames take milliseconds, not microseconds
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class PixelCopyBenchmark {
+    private static final int WIDTH = 640;
+    private static final int HEIGHT = 480;
+    // Some devices pad each row of the RGBA plane
+    private static final int ROW_STRIDE = WIDTH * 4 + 64;
+
+    private final BufferPool pool = new BufferPool(4);
+    private final RgbaPixels.ReadView frameView = new RgbaPixels.ReadView();
+    private ByteBuffer padded;
+    private ByteBuffer frame;
+    private ByteBuffer crop;
+    private ByteBuffer half;
+
+    @Setup
+    public void setUp() {
+        padded = ByteBuffer.allocateDirect(ROW_STRIDE * HEIGHT).order(ByteOrder.nativeOrder());
+        for (int i = 0; i < padded.capacity(); i++) {
+            padded.put(i, (byte) (i * 31));
+        }
+        frame = ByteBuffer.allocateDirect(WIDTH * HEIGHT * 4).order(ByteOrder.nativeOrder());
+        RgbaPixels.compactRows(padded, ROW_STRIDE, WIDTH * 4, HEIGHT, frame);
+        crop = ByteBuffer.allocateDirect(WIDTH * HEIGHT * 4).order(ByteOrder.nativeOrder());
+        half = ByteBuffer.allocateDirect(WIDTH * HEIGHT).order(ByteOrder.nativeOrder());
+    }
+
+    @Benchmark
+    public int compactRowsPooled() {
+        ByteBuffer pooled = pool.acquire(WIDTH * 4 * HEIGHT);
+        RgbaPixels.compactRows(padded, ROW_STRIDE, WIDTH * 4, HEIGHT, pooled);
+        int remaining = pooled.remaining();
+        pool.release(pooled);
+        return remaining;
+    }
+
+    @Benchmark
+    public int copyHandRegion() {
+        RgbaPixels.copyRegion(frame, WIDTH, 192, 168, 256, 192, crop, frameView);
+        return crop.remaining();
+    }
+
+    @Benchmark
+    public int halve() {
+        RgbaPixels.halve(frame, WIDTH, WIDTH / 2, HEIGHT / 2, half);
+        return half.remaining();
+    }
+}
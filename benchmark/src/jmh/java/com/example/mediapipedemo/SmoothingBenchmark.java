@@ -0,0 +1,47 @@
+package com.example.mediapipedemo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * One {@link StatusSmoother} update per frame, with the pipeline's window and
+ * hysteresis, as done for the status text: a steady status, and one that
+ * flickers between two statuses every few frames.
+ */
+@State(Scope.Thread)
+public class SmoothingBenchmark {
+    private static final int SEQUENCE_LENGTH = 1024;
+
+    @Param({"steady", "flicker"})
+    public String pattern;
+
+    private final ActionStatus[] sequence = new ActionStatus[SEQUENCE_LENGTH];
+    private StatusSmoother smoother;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7L);
+        for (int i = 0; i < SEQUENCE_LENGTH; i++) {
+            if ("steady".equals(pattern)) {
+                sequence[i] = ActionStatus.WRITING;
+            } else {
+                sequence[i] = random.nextInt(4) == 0 ? ActionStatus.PHONE_SUSPECTED : ActionStatus.WRITING;
+            }
+        }
+        smoother = new StatusSmoother(ActionPipeline.SMOOTHING_WINDOW_SIZE, ActionPipeline.SMOOTHING_ENTER_COUNT,
+                ActionPipeline.SMOOTHING_EXIT_COUNT);
+    }
+
+    @Benchmark
+    public ActionStatus update() {
+        smoother.update(sequence[next]);
+        next = (next + 1) & (SEQUENCE_LENGTH - 1);
+        return smoother.getSmoothed();
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.mediapipedemo;
+
+import java.util.Random;
+
+/**
+ * Reproducible fused frames for the benchmarks: people standing side by side
+ * across the frame with their hands in front of them, and detections spread
+ * around the wrists, a phone in some hands and a person box around each body.
+ */
+final class SyntheticFrames {
+    static final int WIDTH = 480;
+    static final int HEIGHT = 640;
+
+    private SyntheticFrames() {
+    }
+
+    static ActionFrame classroom(int persons, int detections, long seed) {
+        Random random = new Random(seed);
+        ActionFrame frame = new ActionFrame();
+        frame.reset(WIDTH, HEIGHT);
+        for (int p = 0; p < persons; p++) {
+            int person = frame.addPerson(ActionFrame.NUM_LANDMARKS);
+            float centerX = (p + 0.5f) / persons;
+            for (int i = 0; i < ActionFrame.NUM_LANDMARKS; i++) {
+                // Head at the top, feet at the bottom, roughly a body's width across
+                float y = 0.15f + 0.7f * i / ActionFrame.NUM_LANDMARKS;
+                float x = centerX + (random.nextFloat() - 0.5f) * 0.2f / persons;
+                frame.setLandmark(person, i, x, y);
+            }
+            // Hands together, below the shoulders
+            frame.setLandmark(person, ActionAnalyzer.LEFT_SHOULDER, centerX - 0.05f / persons, 0.35f);
+            frame.setLandmark(person, ActionAnalyzer.RIGHT_SHOULDER, centerX + 0.05f / persons, 0.35f);
+            frame.setLandmark(person, ActionAnalyzer.LEFT_WRIST, centerX - 0.01f, 0.55f);
+            frame.setLandmark(person, ActionAnalyzer.RIGHT_WRIST, centerX + 0.01f, 0.55f);
+        }
+        for (int d = 0; d < detections; d++) {
+            int person = persons > 0 ? d % persons : 0;
+            float centerX = (person + 0.5f) / Math.max(1, persons) * WIDTH;
+            if (d < persons) {
+                int index = frame.addDetection(centerX - 60f, 60f, centerX + 60f, HEIGHT - 40f);
+                frame.addCategory(index, LabelMap.PERSON, 0.9f);
+            } else {
+                float x = centerX + (random.nextFloat() - 0.5f) * 80f;
+                float y = 0.55f * HEIGHT + (random.nextFloat() - 0.5f) * 80f;
+                int index = frame.addDetection(x - 25f, y - 40f, x + 25f, y + 40f);
+                frame.addCategory(index, d % 2 == 0 ? LabelMap.CELL_PHONE : LabelMap.OTHER,
+                        0.5f + random.nextFloat() * 0.4f);
+            }
+        }
+        return frame;
+    }
+}
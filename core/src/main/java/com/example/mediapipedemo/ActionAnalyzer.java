@@ -0,0 +1,194 @@
+package com.example.mediapipedemo;
+
+/**
+ * The fused pose + object analysis that used to live in MainActivity.analyzeAction,
+ * working on a flat {@link ActionFrame} so that a call allocates nothing.
+ *
+ * Every person is classified separately: their {@link RuleSet.Feature}s are
+ * computed once and handed to the current {@link RuleSet}, which can be
+ * replaced from any thread and takes effect on the next frame. Each detection
+ * goes to at most one person: the one whose wrist is inside the padded box and
+ * nearest its center.
+ * Candidate boxes for a wrist come from a {@link DetectionGrid}, so the
+ * association stays near-linear in people and detections.
+ */
+public class ActionAnalyzer {
+    static final int LEFT_SHOULDER = 11;
+    static final int RIGHT_SHOULDER = 12;
+    static final int LEFT_WRIST = 15;
+    static final int RIGHT_WRIST = 16;
+    private static final int MIN_LANDMARKS = 17;
+
+    private static final int NO_OWNER = -1;
+
+    private volatile RuleSet ruleSet = RuleSet.defaults();
+    private final float[] features = new float[RuleSet.FEATURE_COUNT];
+
+    private final DetectionGrid grid = new DetectionGrid();
+    // Person each detection is assigned to, and that person's wrist distance (squared px)
+    private final int[] owner = new int[ActionFrame.MAX_DETECTIONS];
+    private final float[] ownerDistance = new float[ActionFrame.MAX_DETECTIONS];
+
+    /**
+     * Classifies every person in {@code frame}, writing one status per person
+     * into {@code out}. Returns the number of people; with none, the frame's
+     * status is {@link ActionStatus#NO_PERSON}.
+     */
+    public int analyze(ActionFrame frame, ActionStatus[] out) {
+        return analyze(frame, out, null, 0L);
+    }
+
+    /**
+     * Like {@link #analyze(ActionFrame, ActionStatus[])}, but also feeds each
+     * tracked person's {@link FeatureWindow} in {@code tracker} with this frame,
+     * taken at {@code timestampMs}, so the rules can use windowed features and
+     * run at the window's decision rate.
+     */
+    public int analyze(ActionFrame frame, ActionStatus[] out, PersonTracker tracker, long timestampMs) {
+        // One rule set for the whole frame, even if it is swapped meanwhile
+        RuleSet rules = ruleSet;
+        assignDetections(frame, rules.getWristPaddingPx());
+        for (int p = 0; p < frame.personCount; p++) {
+            int slot = frame.trackSlots[p];
+            FeatureWindow window = tracker != null && slot >= 0 ? tracker.getFeatureWindow(slot) : null;
+            out[p] = classify(frame, p, rules, window, timestampMs);
+        }
+        return frame.personCount;
+    }
+
+    /** Replaces the rules; safe to call from any thread while frames are analyzed. */
+    public void setRuleSet(RuleSet ruleSet) {
+        this.ruleSet = ruleSet;
+    }
+
+    public RuleSet getRuleSet() {
+        return ruleSet;
+    }
+
+    private void assignDetections(ActionFrame frame, float paddingPx) {
+        int count = frame.detectionCount;
+        for (int d = 0; d < count; d++) {
+            owner[d] = NO_OWNER;
+            ownerDistance[d] = Float.MAX_VALUE;
+        }
+        int width = frame.imageWidth;
+        int height = frame.imageHeight;
+        if (count == 0 || width <= 0 || height <= 0) {
+            return;
+        }
+
+        grid.build(frame.boxes, count, paddingPx, width, height);
+        float[] landmarks = frame.landmarks;
+        for (int p = 0; p < frame.personCount; p++) {
+            if (frame.landmarkCounts[p] < MIN_LANDMARKS) {
+                continue;
+            }
+            int offset = ActionFrame.landmarkOffset(p);
+            assignWrist(frame, p, landmarks[offset + LEFT_WRIST * 2] * width,
+                    landmarks[offset + LEFT_WRIST * 2 + 1] * height, paddingPx);
+            assignWrist(frame, p, landmarks[offset + RIGHT_WRIST * 2] * width,
+                    landmarks[offset + RIGHT_WRIST * 2 + 1] * height, paddingPx);
+        }
+    }
+
+    private void assignWrist(ActionFrame frame, int person, float x, float y, float paddingPx) {
+        float[] boxes = frame.boxes;
+        int cell = grid.cellAt(x, y);
+        for (int i = grid.cellStart(cell), end = grid.cellEnd(cell); i < end; i++) {
+            int d = grid.entry(i);
+            // Does the wrist fall inside the padded bounding box?
+            float left = boxes[d * 4];
+            float top = boxes[d * 4 + 1];
+            float right = boxes[d * 4 + 2];
+            float bottom = boxes[d * 4 + 3];
+            if (!contains(left - paddingPx, top - paddingPx, right + paddingPx, bottom + paddingPx, x, y)) {
+                continue;
+            }
+            float dx = x - (left + right) / 2f;
+            float dy = y - (top + bottom) / 2f;
+            float distance = dx * dx + dy * dy;
+            if (distance < ownerDistance[d]) {
+                owner[d] = person;
+                ownerDistance[d] = distance;
+            }
+        }
+    }
+
+    private ActionStatus classify(ActionFrame frame, int person, RuleSet rules, FeatureWindow window,
+            long timestampMs) {
+        if (frame.landmarkCounts[person] < MIN_LANDMARKS) {
+            return ActionStatus.ANALYZING;
+        }
+
+        float[] landmarks = frame.landmarks;
+        int offset = ActionFrame.landmarkOffset(person);
+        float shoulderAvgY = (landmarks[offset + LEFT_SHOULDER * 2 + 1]
+                + landmarks[offset + RIGHT_SHOULDER * 2 + 1]) / 2f;
+        float leftWristX = landmarks[offset + LEFT_WRIST * 2];
+        float leftWristY = landmarks[offset + LEFT_WRIST * 2 + 1];
+        float rightWristX = landmarks[offset + RIGHT_WRIST * 2];
+        float rightWristY = landmarks[offset + RIGHT_WRIST * 2 + 1];
+        float handsBelowShoulders = (leftWristY + rightWristY) / 2f - shoulderAvgY;
+        float handsApart = Math.abs(leftWristX - rightWristX);
+        features[RuleSet.Feature.HANDS_BELOW_SHOULDERS.ordinal()] = handsBelowShoulders;
+        features[RuleSet.Feature.HANDS_APART.ordinal()] = handsApart;
+
+        if (window != null) {
+            window.add(handsBelowShoulders, handsApart, leftWristX, leftWristY, rightWristX, rightWristY,
+                    timestampMs);
+            if (!window.isDecisionDue()) {
+                return window.getDecision();
+            }
+            features[RuleSet.Feature.HANDS_BELOW_SHOULDERS_MEAN.ordinal()] =
+                    window.mean(FeatureWindow.HANDS_BELOW_SHOULDERS);
+            features[RuleSet.Feature.HANDS_BELOW_SHOULDERS_STD.ordinal()] =
+                    window.standardDeviation(FeatureWindow.HANDS_BELOW_SHOULDERS);
+            features[RuleSet.Feature.HANDS_APART_MEAN.ordinal()] = window.mean(FeatureWindow.HANDS_APART);
+            features[RuleSet.Feature.WRIST_SPEED_MEAN.ordinal()] = window.mean(FeatureWindow.WRIST_SPEED);
+            features[RuleSet.Feature.WRIST_SPEED_STD.ordinal()] =
+                    window.standardDeviation(FeatureWindow.WRIST_SPEED);
+        } else {
+            features[RuleSet.Feature.HANDS_BELOW_SHOULDERS_MEAN.ordinal()] = handsBelowShoulders;
+            features[RuleSet.Feature.HANDS_BELOW_SHOULDERS_STD.ordinal()] = 0f;
+            features[RuleSet.Feature.HANDS_APART_MEAN.ordinal()] = handsApart;
+            features[RuleSet.Feature.WRIST_SPEED_MEAN.ordinal()] = 0f;
+            features[RuleSet.Feature.WRIST_SPEED_STD.ordinal()] = 0f;
+        }
+
+        // Fused features: the best scores of what is in this person's hands
+        float phoneScore = 0f;
+        float objectScore = 0f;
+        for (int d = 0; d < frame.detectionCount; d++) {
+            if (owner[d] != person) {
+                continue;
+            }
+            int base = d * ActionFrame.MAX_CATEGORIES;
+            for (int c = 0; c < frame.categoryCounts[d]; c++) {
+                int labelId = frame.labelIds[base + c];
+                float score = frame.scores[base + c];
+                // Ignore the person class. The user themselves is a person,
+                // and their hands naturally intersect with their person bounding box!
+                if (labelId == LabelMap.PERSON) {
+                    continue;
+                }
+                objectScore = Math.max(objectScore, score);
+                if (labelId == LabelMap.CELL_PHONE) {
+                    phoneScore = Math.max(phoneScore, score);
+                }
+            }
+        }
+        features[RuleSet.Feature.PHONE_SCORE.ordinal()] = phoneScore;
+        features[RuleSet.Feature.OBJECT_SCORE.ordinal()] = objectScore;
+
+        ActionStatus status = rules.evaluate(features);
+        if (window != null) {
+            window.setDecision(status);
+        }
+        return status;
+    }
+
+    // Same semantics as RectF.contains: left/top inclusive, right/bottom exclusive
+    private static boolean contains(float left, float top, float right, float bottom, float x, float y) {
+        return left < right && top < bottom && x >= left && x < right && y >= top && y < bottom;
+    }
+}
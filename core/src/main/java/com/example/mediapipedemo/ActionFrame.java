@@ -0,0 +1,138 @@
+package com.example.mediapipedemo;
+
+/**
+ * Reusable, flat input for {@link ActionAnalyzer}: every person's landmarks and
+ * the detections of one fused frame, already mapped into the upright frame.
+ *
+ * Landmarks are stored as normalized x, y pairs, {@link #NUM_LANDMARKS} pairs
+ * per person; boxes as left, top, right, bottom in pixels; categories as label
+ * ids from {@link LabelMap} with scores. Nothing in here is allocated after
+ * construction.
+ */
+public final class ActionFrame {
+    public static final int MAX_PERSONS = 4;
+    public static final int NUM_LANDMARKS = 33;
+    public static final int MAX_DETECTIONS = 10;
+    public static final int MAX_CATEGORIES = 4;
+
+    final float[] landmarks = new float[MAX_PERSONS * NUM_LANDMARKS * 2];
+    final int[] landmarkCounts = new int[MAX_PERSONS];
+    // Stable track slot per person, assigned by PersonTracker; -1 if untracked
+    final int[] trackSlots = new int[MAX_PERSONS];
+    int personCount;
+
+    final float[] boxes = new float[MAX_DETECTIONS * 4];
+    final int[] labelIds = new int[MAX_DETECTIONS * MAX_CATEGORIES];
+    final float[] scores = new float[MAX_DETECTIONS * MAX_CATEGORIES];
+    final int[] categoryCounts = new int[MAX_DETECTIONS];
+    int detectionCount;
+
+    int imageWidth;
+    int imageHeight;
+
+    public void reset(int imageWidth, int imageHeight) {
+        this.imageWidth = imageWidth;
+        this.imageHeight = imageHeight;
+        personCount = 0;
+        detectionCount = 0;
+    }
+
+    /** Makes this an exact copy of {@code other}, without allocating. */
+    public void copyFrom(ActionFrame other) {
+        reset(other.imageWidth, other.imageHeight);
+        personCount = other.personCount;
+        System.arraycopy(other.landmarks, 0, landmarks, 0, landmarkOffset(personCount));
+        System.arraycopy(other.landmarkCounts, 0, landmarkCounts, 0, personCount);
+        System.arraycopy(other.trackSlots, 0, trackSlots, 0, personCount);
+        detectionCount = other.detectionCount;
+        System.arraycopy(other.boxes, 0, boxes, 0, detectionCount * 4);
+        System.arraycopy(other.labelIds, 0, labelIds, 0, detectionCount * MAX_CATEGORIES);
+        System.arraycopy(other.scores, 0, scores, 0, detectionCount * MAX_CATEGORIES);
+        System.arraycopy(other.categoryCounts, 0, categoryCounts, 0, detectionCount);
+    }
+
+    /**
+     * Adds a person; landmarks follow through {@link #setLandmark}. Returns the
+     * new person's index, or -1 if the buffer is full.
+     */
+    public int addPerson(int landmarkCount) {
+        if (personCount == MAX_PERSONS) {
+            return -1;
+        }
+        int person = personCount++;
+        landmarkCounts[person] = Math.min(landmarkCount, NUM_LANDMARKS);
+        trackSlots[person] = -1;
+        return person;
+    }
+
+    public void setLandmark(int person, int index, float x, float y) {
+        int offset = landmarkOffset(person) + index * 2;
+        landmarks[offset] = x;
+        landmarks[offset + 1] = y;
+    }
+
+    /** Index of the person's first x in {@link #landmarks}. */
+    static int landmarkOffset(int person) {
+        return person * NUM_LANDMARKS * 2;
+    }
+
+    /** Returns the new detection's index, or -1 if the buffer is full. */
+    public int addDetection(float left, float top, float right, float bottom) {
+        if (detectionCount == MAX_DETECTIONS) {
+            return -1;
+        }
+        int index = detectionCount++;
+        boxes[index * 4] = left;
+        boxes[index * 4 + 1] = top;
+        boxes[index * 4 + 2] = right;
+        boxes[index * 4 + 3] = bottom;
+        categoryCounts[index] = 0;
+        return index;
+    }
+
+    public void addCategory(int detection, int labelId, float score) {
+        int count = categoryCounts[detection];
+        if (count == MAX_CATEGORIES) {
+            return;
+        }
+        labelIds[detection * MAX_CATEGORIES + count] = labelId;
+        scores[detection * MAX_CATEGORIES + count] = score;
+        categoryCounts[detection] = count + 1;
+    }
+
+    public boolean hasPose() {
+        return personCount > 0;
+    }
+
+    public int getPersonCount() {
+        return personCount;
+    }
+
+    public int getLandmarkCount(int person) {
+        return landmarkCounts[person];
+    }
+
+    public float landmarkX(int person, int index) {
+        return landmarks[landmarkOffset(person) + index * 2];
+    }
+
+    public float landmarkY(int person, int index) {
+        return landmarks[landmarkOffset(person) + index * 2 + 1];
+    }
+
+    public int getTrackSlot(int person) {
+        return trackSlots[person];
+    }
+
+    public int getDetectionCount() {
+        return detectionCount;
+    }
+
+    public int getImageWidth() {
+        return imageWidth;
+    }
+
+    public int getImageHeight() {
+        return imageHeight;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.mediapipedemo;
+
+/**
+ * Everything that happens to a fused frame once it is an {@link ActionFrame}:
+ * per-person tracking and landmark filtering, the action rules, and status
+ * smoothing. The app runs it on live results and the replay harness on
+ * recorded ones, so both exercise exactly the same code and tuning.
+ *
+ * Allocates nothing per frame. Not thread-safe; the app only calls it from the
+ * fusion consumer.
+ */
+public class ActionPipeline {
+    // One-Euro smoothing of the landmarks, with prediction for frames pose skipped
+    static final float LANDMARK_MIN_CUTOFF_HZ = 1.5f;
+    static final float LANDMARK_BETA = 0.5f;
+    static final float LANDMARK_DERIVATIVE_CUTOFF_HZ = 1f;
+
+    // Windowed features over about a second at camera rate; the rules run on
+    // every other frame and the decision is reused in between
+    static final int FEATURE_WINDOW_FRAMES = 30;
+    static final int DECISION_INTERVAL_FRAMES = 2;
+
+    // Smoothing to prevent rapid flickering of status: majority of the last 10 frames,
+    // entering a new status at 6 votes or once the current one is down to 3
+    static final int SMOOTHING_WINDOW_SIZE = 10;
+    static final int SMOOTHING_ENTER_COUNT = 6;
+    static final int SMOOTHING_EXIT_COUNT = 3;
+
+    // Each person in frame gets their own landmark filter and status smoother
+    private final PersonTracker personTracker = new PersonTracker(
+            LANDMARK_MIN_CUTOFF_HZ, LANDMARK_BETA, LANDMARK_DERIVATIVE_CUTOFF_HZ,
+            FEATURE_WINDOW_FRAMES, DECISION_INTERVAL_FRAMES,
+            SMOOTHING_WINDOW_SIZE, SMOOTHING_ENTER_COUNT, SMOOTHING_EXIT_COUNT);
+    private final ActionAnalyzer actionAnalyzer = new ActionAnalyzer();
+    private final ActionStatus[] personStatuses = new ActionStatus[ActionFrame.MAX_PERSONS];
+    private PipelineMetrics metrics;
+
+    /** Times the FILTER, ANALYSIS and SMOOTHING stages from now on. */
+    public void setMetrics(PipelineMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Runs one frame. The landmarks in {@code frame} are replaced by the filtered
+     * pose predicted for {@code displayTimestampMs}; {@code poseTimestampMs} is
+     * when that pose was measured. Returns the smoothed status for the whole
+     * frame; per-person statuses are in {@link #getPersonStatuses}.
+     */
+    public ActionStatus process(ActionFrame frame, long poseTimestampMs, long displayTimestampMs) {
+        long filterStart = System.nanoTime();
+        personTracker.update(frame, poseTimestampMs, displayTimestampMs);
+        long analysisStart = System.nanoTime();
+
+        actionAnalyzer.analyze(frame, personStatuses, personTracker, displayTimestampMs);
+        long smoothingStart = System.nanoTime();
+
+        ActionStatus overallStatus = personTracker.smooth(frame, personStatuses);
+        if (metrics != null) {
+            metrics.recordNanos(PipelineMetrics.Stage.FILTER, analysisStart - filterStart);
+            metrics.recordNanos(PipelineMetrics.Stage.ANALYSIS, smoothingStart - analysisStart);
+            metrics.recordNanos(PipelineMetrics.Stage.SMOOTHING, System.nanoTime() - smoothingStart);
+        }
+        return overallStatus;
+    }
+
+    /** Swaps in new rules; safe from any thread, used from the next frame on. */
+    public void setRuleSet(RuleSet ruleSet) {
+        actionAnalyzer.setRuleSet(ruleSet);
+    }
+
+    public RuleSet getRuleSet() {
+        return actionAnalyzer.getRuleSet();
+    }
+
+    /** Smoothed status of each person in the last frame processed, by person index. */
+    public ActionStatus[] getPersonStatuses() {
+        return personStatuses;
+    }
+
+    public PersonTracker getPersonTracker() {
+        return personTracker;
+    }
+}
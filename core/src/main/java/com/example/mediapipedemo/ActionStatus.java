@@ -0,0 +1,38 @@
+package com.example.mediapipedemo;
+
+/**
+ * The states the action analysis can report, in place of the raw status strings,
+ * each with its precomputed status banner color and a priority for picking the
+ * one status to show when several people are in frame.
+ */
+public enum ActionStatus {
+    NO_PERSON("未检测到人体", 0x88000000, 0), // Black
+    ANALYZING("分析中...", 0x88000000, 1), // Black
+    PHONE_CONFIRMED("📱 抓到啦！正在玩手机！", 0x88F44336, 5), // Red
+    PHONE_SUSPECTED("📱 疑似在玩手机/手持物", 0x88F44336, 4), // Red
+    WRITING("✍️ 努力写字中...", 0x884CAF50, 3), // Green
+    NORMAL("🤔 正常姿态 / 未知动作", 0x88FF9800, 2); // Orange
+
+    private final String label;
+    private final int backgroundColor;
+    private final int priority;
+
+    ActionStatus(String label, int backgroundColor, int priority) {
+        this.label = label;
+        this.backgroundColor = backgroundColor;
+        this.priority = priority;
+    }
+
+    /** The status to show for a group: the one that most needs attention. */
+    public static ActionStatus mostUrgent(ActionStatus a, ActionStatus b) {
+        return b.priority > a.priority ? b : a;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public int getBackgroundColor() {
+        return backgroundColor;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.mediapipedemo;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Small lock-free pool of direct ByteBuffers used as frame staging buffers.
+ *
+ * Acquire and release never allocate once the pool is warm; a buffer is only
+ * allocated when every slot is empty or too small for the requested size.
+ * A pooled buffer may be larger than asked for, and MediaPipe rejects an
+ * image whose buffer is not exactly its size, so pixels handed to it go
+ * through {@link #exactView}.
+ */
+public class BufferPool {
+    private final AtomicReferenceArray<ByteBuffer> slots;
+
+    public BufferPool(int capacity) {
+        slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * Returns the smallest pooled buffer of at least {@code minBytes}, so a crop
+     * does not take the buffer the next full frame needs, with its limit set
+     * to {@code minBytes}.
+     */
+    public ByteBuffer acquire(int minBytes) {
+        while (true) {
+            int best = -1;
+            ByteBuffer bestBuffer = null;
+            for (int i = 0; i < slots.length(); i++) {
+                ByteBuffer buffer = slots.get(i);
+                if (buffer != null && buffer.capacity() >= minBytes
+                        && (bestBuffer == null || buffer.capacity() < bestBuffer.capacity())) {
+                    best = i;
+                    bestBuffer = buffer;
+                }
+            }
+            if (bestBuffer == null) {
+                break;
+            }
+            if (slots.compareAndSet(best, bestBuffer, null)) {
+                bestBuffer.clear();
+                bestBuffer.limit(minBytes);
+                return bestBuffer;
+            }
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(minBytes).order(ByteOrder.nativeOrder());
+        buffer.limit(minBytes);
+        return buffer;
+    }
+
+    /**
+     * Returns a view of {@code buffer} from its position to its limit whose
+     * capacity is exactly that size, in the same byte order. Release the
+     * pooled buffer, not the view.
+     */
+    public static ByteBuffer exactView(ByteBuffer buffer) {
+        return buffer.slice().order(buffer.order());
+    }
+
+    public void release(ByteBuffer buffer) {
+        if (buffer == null) {
+            return;
+        }
+        for (int i = 0; i < slots.length(); i++) {
+            if (slots.get(i) == null && slots.compareAndSet(i, null, buffer)) {
+                return;
+            }
+        }
+        // Pool is full. Evict a smaller buffer (left over from a lower resolution)
+        // in favour of this one, otherwise let it be collected. Acquire takes the
+        // best fit, so smaller requests still get the smaller buffers.
+        for (int i = 0; i < slots.length(); i++) {
+            ByteBuffer current = slots.get(i);
+            if (current != null && current.capacity() < buffer.capacity()
+                    && slots.compareAndSet(i, current, buffer)) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.mediapipedemo;
+
+/**
+ * Uniform grid over the image that buckets detection boxes by the cells they
+ * cover, so finding the boxes around a point only looks at one cell instead
+ * of every detection.
+ *
+ * Built with a counting sort into flat arrays: {@code cellStart[c]} to
+ * {@code cellStart[c + 1]} in {@code entries} are the detections touching
+ * cell {@code c}. Rebuilt per frame without allocating.
+ */
+public final class DetectionGrid {
+    private static final int COLUMNS = 8;
+    private static final int ROWS = 8;
+    private static final int CELLS = COLUMNS * ROWS;
+
+    private final int[] cellStart = new int[CELLS + 1];
+    private final int[] cellFill = new int[CELLS];
+    private final int[] entries = new int[ActionFrame.MAX_DETECTIONS * CELLS];
+    private float cellWidth = 1f;
+    private float cellHeight = 1f;
+
+    /**
+     * Buckets {@code count} boxes (left, top, right, bottom in pixels), each
+     * grown by {@code padding} on every side, over a {@code width x height} image.
+     */
+    public void build(float[] boxes, int count, float padding, int width, int height) {
+        cellWidth = Math.max(1f, width / (float) COLUMNS);
+        cellHeight = Math.max(1f, height / (float) ROWS);
+        for (int c = 0; c <= CELLS; c++) {
+            cellStart[c] = 0;
+        }
+
+        // Pass 1: count entries per cell (shifted by one, for the prefix sum)
+        for (int d = 0; d < count; d++) {
+            int c0 = column(boxes[d * 4] - padding);
+            int c1 = column(boxes[d * 4 + 2] + padding);
+            int r0 = row(boxes[d * 4 + 1] - padding);
+            int r1 = row(boxes[d * 4 + 3] + padding);
+            for (int r = r0; r <= r1; r++) {
+                for (int c = c0; c <= c1; c++) {
+                    cellStart[r * COLUMNS + c + 1]++;
+                }
+            }
+        }
+        for (int c = 0; c < CELLS; c++) {
+            cellStart[c + 1] += cellStart[c];
+            cellFill[c] = cellStart[c];
+        }
+
+        // Pass 2: place the detection indices
+        for (int d = 0; d < count; d++) {
+            int c0 = column(boxes[d * 4] - padding);
+            int c1 = column(boxes[d * 4 + 2] + padding);
+            int r0 = row(boxes[d * 4 + 1] - padding);
+            int r1 = row(boxes[d * 4 + 3] + padding);
+            for (int r = r0; r <= r1; r++) {
+                for (int c = c0; c <= c1; c++) {
+                    entries[cellFill[r * COLUMNS + c]++] = d;
+                }
+            }
+        }
+    }
+
+    /** Cell holding the pixel (x, y); points outside the image clamp to the edge. */
+    public int cellAt(float x, float y) {
+        return row(y) * COLUMNS + column(x);
+    }
+
+    public int cellStart(int cell) {
+        return cellStart[cell];
+    }
+
+    public int cellEnd(int cell) {
+        return cellStart[cell + 1];
+    }
+
+    /** Detection index stored at position {@code i}, between a cell's start and end. */
+    public int entry(int i) {
+        return entries[i];
+    }
+
+    private int column(float x) {
+        return Math.max(0, Math.min(COLUMNS - 1, (int) (x / cellWidth)));
+    }
+
+    private int row(float y) {
+        return Math.max(0, Math.min(ROWS - 1, (int) (y / cellHeight)));
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.mediapipedemo;
+
+import java.util.EnumSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The hand-off between the fusion consumer, which decides that a frame should
+ * be kept as evidence, and the camera thread, which has the frame. The
+ * consumer calls {@link #onStatus} with every smoothed status; the camera
+ * thread calls {@link #poll} with every frame, which costs one volatile read
+ * until a capture is requested.
+ *
+ * A request is made when the status enters a trigger status, at most one per
+ * {@code minIntervalMs} and {@code maxPerSession} in all. A request the camera
+ * thread has not picked up yet is replaced by the next one.
+ */
+public final class EvidenceRequests {
+    private final EnumSet<ActionStatus> triggers;
+    private final long minIntervalMs;
+    private final int maxPerSession;
+
+    // Consumer thread only
+    private ActionStatus lastStatus;
+    private long lastCaptureMs = Long.MIN_VALUE;
+    private int requestedCount;
+
+    private final AtomicReference<Request> pending = new AtomicReference<>();
+    private final AtomicLong rateLimitedCount = new AtomicLong();
+
+    /**
+     * @param minIntervalMs shortest time between two captures
+     * @param maxPerSession captures allowed for the lifetime of this instance
+     */
+    public EvidenceRequests(EnumSet<ActionStatus> triggers, long minIntervalMs, int maxPerSession) {
+        this.triggers = triggers;
+        this.minIntervalMs = minIntervalMs;
+        this.maxPerSession = maxPerSession;
+    }
+
+    /**
+     * Call with every smoothed status from the fusion consumer; {@code frame} is
+     * the frame the status came from. Requests a capture when the status enters
+     * a trigger status and the rate limit allows.
+     */
+    public void onStatus(ActionStatus status, ActionFrame frame, long timestampMs) {
+        boolean entered = status != lastStatus && triggers.contains(status);
+        lastStatus = status;
+        if (!entered) {
+            return;
+        }
+        if (requestedCount >= maxPerSession
+                || (lastCaptureMs != Long.MIN_VALUE && timestampMs - lastCaptureMs < minIntervalMs)) {
+            rateLimitedCount.incrementAndGet();
+            return;
+        }
+        lastCaptureMs = timestampMs;
+        requestedCount++;
+        // Rare, so a small allocation here is fine
+        float[] boxes = new float[frame.getDetectionCount() * 4];
+        System.arraycopy(frame.boxes, 0, boxes, 0, boxes.length);
+        pending.set(new Request(status, boxes));
+    }
+
+    /** Call on the camera thread; takes the pending request, or returns null if there is none. */
+    public Request poll() {
+        if (pending.get() == null) {
+            return null;
+        }
+        return pending.getAndSet(null);
+    }
+
+    /** Trigger entries ignored because of the interval or the session limit. */
+    public long getRateLimitedCount() {
+        return rateLimitedCount.get();
+    }
+
+    /** A requested capture: the status that triggered it and the frame's detection boxes. */
+    public static final class Request {
+        private final ActionStatus status;
+        private final float[] boxes;
+
+        Request(ActionStatus status, float[] boxes) {
+            this.status = status;
+            this.boxes = boxes;
+        }
+
+        public ActionStatus getStatus() {
+            return status;
+        }
+
+        /** Left, top, right, bottom in pixels, four floats per detection. */
+        public float[] getBoxes() {
+            return boxes;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.mediapipedemo;
+
+/**
+ * The last N frames of one person's pose features, with running sums so the
+ * windowed mean and variance of each come out in O(1) per frame: adding a
+ * frame adds its values and squares, and subtracts those of the frame it
+ * pushes out of the ring.
+ *
+ * Besides the per-frame features the rules already see, it tracks wrist
+ * speed, from the wrist positions of consecutive frames and their timestamps.
+ * That is what tells writing, where the hands keep moving a little, apart from
+ * hands merely resting low.
+ *
+ * Also holds the person's last classification, so the rules can be run at a
+ * lower rate than frames arrive. Memory is fixed at construction.
+ * Not thread-safe; owned by a PersonTracker track.
+ */
+public final class FeatureWindow {
+    static final int HANDS_BELOW_SHOULDERS = 0;
+    static final int HANDS_APART = 1;
+    static final int WRIST_SPEED = 2;
+    private static final int CHANNELS = 3;
+
+    private final int capacity;
+    private final float[] samples;
+    // Doubles, so that adding and subtracting for hours does not drift
+    private final double[] sums = new double[CHANNELS];
+    private final double[] sumSquares = new double[CHANNELS];
+    private int head;
+    private int size;
+
+    private boolean hasWrists;
+    private float lastLeftX;
+    private float lastLeftY;
+    private float lastRightX;
+    private float lastRightY;
+    private long lastTimestampMs;
+
+    private final int decisionInterval;
+    private int framesSinceDecision;
+    private ActionStatus decision;
+
+    /**
+     * @param capacity frames in the window
+     * @param decisionInterval run the rules on every this many frames
+     */
+    public FeatureWindow(int capacity, int decisionInterval) {
+        if (capacity < 1 || decisionInterval < 1) {
+            throw new IllegalArgumentException("Need capacity >= 1 and decisionInterval >= 1");
+        }
+        this.capacity = capacity;
+        this.samples = new float[capacity * CHANNELS];
+        this.decisionInterval = decisionInterval;
+    }
+
+    public void reset() {
+        for (int c = 0; c < CHANNELS; c++) {
+            sums[c] = 0;
+            sumSquares[c] = 0;
+        }
+        head = 0;
+        size = 0;
+        hasWrists = false;
+        decision = null;
+    }
+
+    /** Adds a frame; wrist positions are normalized, speed comes out in units per second. */
+    public void add(float handsBelowShoulders, float handsApart, float leftWristX, float leftWristY,
+            float rightWristX, float rightWristY, long timestampMs) {
+        float wristSpeed = 0f;
+        if (hasWrists && timestampMs > lastTimestampMs) {
+            float seconds = (timestampMs - lastTimestampMs) / 1000f;
+            wristSpeed = (distance(leftWristX - lastLeftX, leftWristY - lastLeftY)
+                    + distance(rightWristX - lastRightX, rightWristY - lastRightY)) / (2f * seconds);
+        }
+        hasWrists = true;
+        lastLeftX = leftWristX;
+        lastLeftY = leftWristY;
+        lastRightX = rightWristX;
+        lastRightY = rightWristY;
+        lastTimestampMs = timestampMs;
+
+        int base = head * CHANNELS;
+        if (size == capacity) {
+            for (int c = 0; c < CHANNELS; c++) {
+                float old = samples[base + c];
+                sums[c] -= old;
+                sumSquares[c] -= (double) old * old;
+            }
+        } else {
+            size++;
+        }
+        put(base + HANDS_BELOW_SHOULDERS, handsBelowShoulders);
+        put(base + HANDS_APART, handsApart);
+        put(base + WRIST_SPEED, wristSpeed);
+        head = (head + 1) % capacity;
+        framesSinceDecision++;
+    }
+
+    private void put(int index, float value) {
+        samples[index] = value;
+        int channel = index % CHANNELS;
+        sums[channel] += value;
+        sumSquares[channel] += (double) value * value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public float mean(int channel) {
+        return size > 0 ? (float) (sums[channel] / size) : 0f;
+    }
+
+    public float standardDeviation(int channel) {
+        if (size < 2) {
+            return 0f;
+        }
+        double mean = sums[channel] / size;
+        return (float) Math.sqrt(Math.max(0.0, sumSquares[channel] / size - mean * mean));
+    }
+
+    /** True if the rules should run on this frame rather than reuse {@link #getDecision}. */
+    public boolean isDecisionDue() {
+        return decision == null || framesSinceDecision >= decisionInterval;
+    }
+
+    public void setDecision(ActionStatus decision) {
+        this.decision = decision;
+        framesSinceDecision = 0;
+    }
+
+    /** The last classification, or null before the first. */
+    public ActionStatus getDecision() {
+        return decision;
+    }
+
+    private static float distance(float dx, float dy) {
+        return (float) Math.sqrt(dx * dx + dy * dy);
+    }
+}
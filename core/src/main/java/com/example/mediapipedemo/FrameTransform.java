@@ -0,0 +1,198 @@
+package com.example.mediapipedemo;
+
+/**
+ * Maps coordinates from the image a model actually saw into the upright,
+ * (optionally) mirrored frame that the overlay and the action logic work in.
+ *
+ * In the Bitmap path the model already sees the upright frame, so the transform
+ * is the identity. In the zero-copy path MediaPipe reports results in the
+ * unrotated sensor frame, and mirroring is never applied to the pixels at all,
+ * so both have to be undone here. A model fed a downscaled copy of the frame
+ * gets a transform that also scales its results back up to the full frame.
+ */
+public final class FrameTransform {
+    // Affine map from input pixels to output pixels:
+    // outX = a * x + b * y + tx, outY = c * x + d * y + ty
+    private final float a;
+    private final float b;
+    private final float c;
+    private final float d;
+    private final float tx;
+    private final float ty;
+
+    private final int inputWidth;
+    private final int inputHeight;
+    private final int outputWidth;
+    private final int outputHeight;
+    private final int rotationDegrees;
+    private final boolean mirrored;
+
+    private FrameTransform(float a, float b, float c, float d, float tx, float ty,
+            int inputWidth, int inputHeight, int outputWidth, int outputHeight,
+            int rotationDegrees, boolean mirrored) {
+        this.a = a;
+        this.b = b;
+        this.c = c;
+        this.d = d;
+        this.tx = tx;
+        this.ty = ty;
+        this.inputWidth = inputWidth;
+        this.inputHeight = inputHeight;
+        this.outputWidth = outputWidth;
+        this.outputHeight = outputHeight;
+        this.rotationDegrees = rotationDegrees;
+        this.mirrored = mirrored;
+    }
+
+    public static FrameTransform identity(int width, int height) {
+        return new FrameTransform(1f, 0f, 0f, 1f, 0f, 0f, width, height, width, height, 0, false);
+    }
+
+    /**
+     * Builds the transform that rotates a {@code width x height} sensor image
+     * clockwise by {@code rotationDegrees} and then mirrors it horizontally,
+     * matching the Matrix the Bitmap path applies.
+     */
+    public static FrameTransform forOrientation(int width, int height, int rotationDegrees, boolean mirrored) {
+        int rotation = ((rotationDegrees % 360) + 360) % 360;
+        float a, b, c, d, tx, ty;
+        int outWidth = width;
+        int outHeight = height;
+        switch (rotation) {
+            case 90:
+                // (x, y) -> (H - y, x)
+                a = 0f; b = -1f; tx = height;
+                c = 1f; d = 0f; ty = 0f;
+                outWidth = height;
+                outHeight = width;
+                break;
+            case 180:
+                // (x, y) -> (W - x, H - y)
+                a = -1f; b = 0f; tx = width;
+                c = 0f; d = -1f; ty = height;
+                break;
+            case 270:
+                // (x, y) -> (y, W - x)
+                a = 0f; b = 1f; tx = 0f;
+                c = -1f; d = 0f; ty = width;
+                outWidth = height;
+                outHeight = width;
+                break;
+            case 0:
+                a = 1f; b = 0f; tx = 0f;
+                c = 0f; d = 1f; ty = 0f;
+                break;
+            default:
+                throw new IllegalArgumentException("Rotation must be a multiple of 90: " + rotationDegrees);
+        }
+        if (mirrored) {
+            // x -> outWidth - x, applied after the rotation
+            a = -a;
+            b = -b;
+            tx = outWidth - tx;
+        }
+        return new FrameTransform(a, b, c, d, tx, ty, width, height, outWidth, outHeight, rotation, mirrored);
+    }
+
+    /**
+     * Returns the transform for a {@code width x height} crop of this transform's
+     * input whose top-left corner is at ({@code left}, {@code top}). The output
+     * frame stays the same, so results on the crop land in full-frame coordinates.
+     */
+    public FrameTransform withCrop(int left, int top, int width, int height) {
+        return new FrameTransform(a, b, c, d, mapX(left, top), mapY(left, top),
+                width, height, outputWidth, outputHeight, rotationDegrees, mirrored);
+    }
+
+    /**
+     * Returns the transform for this transform's input downscaled by exactly 2
+     * in both directions, with odd sizes rounded down. The output frame stays
+     * the same, so results on the smaller image land in full-frame coordinates.
+     */
+    public FrameTransform halved() {
+        return new FrameTransform(a * 2f, b * 2f, c * 2f, d * 2f, tx, ty,
+                inputWidth / 2, inputHeight / 2, outputWidth, outputHeight, rotationDegrees, mirrored);
+    }
+
+    /** True if this transform was built for the same input geometry. */
+    public boolean matches(int width, int height, int rotationDegrees, boolean mirrored) {
+        return inputWidth == width && inputHeight == height
+                && this.rotationDegrees == ((rotationDegrees % 360) + 360) % 360
+                && this.mirrored == mirrored;
+    }
+
+    public float mapX(float x, float y) {
+        return a * x + b * y + tx;
+    }
+
+    public float mapY(float x, float y) {
+        return c * x + d * y + ty;
+    }
+
+    /** Maps an output pixel back into input pixels (x component). */
+    public float inverseX(float outX, float outY) {
+        // The linear part is a rotation by a multiple of 90, an optional flip and
+        // a uniform scale, so it is always invertible.
+        float det = a * d - b * c;
+        return (d * (outX - tx) - b * (outY - ty)) / det;
+    }
+
+    /** Maps an output pixel back into input pixels (y component). */
+    public float inverseY(float outX, float outY) {
+        float det = a * d - b * c;
+        return (a * (outY - ty) - c * (outX - tx)) / det;
+    }
+
+    /** Maps a landmark normalized to the input image into output-normalized x. */
+    public float mapNormalizedX(float nx, float ny) {
+        return mapX(nx * inputWidth, ny * inputHeight) / outputWidth;
+    }
+
+    /** Maps a landmark normalized to the input image into output-normalized y. */
+    public float mapNormalizedY(float nx, float ny) {
+        return mapY(nx * inputWidth, ny * inputHeight) / outputHeight;
+    }
+
+    /**
+     * Maps an input-pixel box into output pixels and writes
+     * left, top, right, bottom into {@code out} starting at {@code offset}.
+     */
+    public void mapBox(float left, float top, float right, float bottom, float[] out, int offset) {
+        float x0 = mapX(left, top);
+        float y0 = mapY(left, top);
+        float x1 = mapX(right, bottom);
+        float y1 = mapY(right, bottom);
+        out[offset] = Math.min(x0, x1);
+        out[offset + 1] = Math.min(y0, y1);
+        out[offset + 2] = Math.max(x0, x1);
+        out[offset + 3] = Math.max(y0, y1);
+    }
+
+    public boolean isIdentity() {
+        return a == 1f && b == 0f && c == 0f && d == 1f && tx == 0f && ty == 0f;
+    }
+
+    public int getInputWidth() {
+        return inputWidth;
+    }
+
+    public int getInputHeight() {
+        return inputHeight;
+    }
+
+    public int getOutputWidth() {
+        return outputWidth;
+    }
+
+    public int getOutputHeight() {
+        return outputHeight;
+    }
+
+    public int getRotationDegrees() {
+        return rotationDegrees;
+    }
+
+    public boolean isMirrored() {
+        return mirrored;
+    }
+}
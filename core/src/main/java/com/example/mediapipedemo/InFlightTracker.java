@@ -0,0 +1,96 @@
+package com.example.mediapipedemo;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts frames that have been submitted to a LIVE_STREAM task but not answered yet.
+ *
+ * MediaPipe's live stream graph silently drops inputs while it is busy, so a
+ * dropped frame never gets a callback. Results arrive in timestamp order though,
+ * so a result for timestamp T also retires every earlier submission, and anything
+ * older than {@code expiryMs} is assumed to have been dropped.
+ *
+ * Submissions come from one thread at a time; releases may come from any thread.
+ */
+public class InFlightTracker {
+    private final long[] submitted;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong(); // next submission index
+    private final AtomicLong tail = new AtomicLong(); // first unreleased index
+    private final AtomicLong expired = new AtomicLong();
+    private final long expiryMs;
+    private volatile int maxInFlight;
+
+    public InFlightTracker(int maxInFlight, long expiryMs) {
+        // Ring only has to hold the in-flight window; keep it a power of two.
+        int capacity = 16;
+        while (capacity < maxInFlight * 2) {
+            capacity <<= 1;
+        }
+        this.submitted = new long[capacity];
+        this.mask = capacity - 1;
+        this.maxInFlight = Math.min(maxInFlight, capacity);
+        this.expiryMs = expiryMs;
+    }
+
+    public void setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = Math.max(1, Math.min(maxInFlight, submitted.length));
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /** True if another frame may be submitted now. Also retires expired submissions. */
+    public boolean hasCapacity(long nowMs) {
+        expireOlderThan(nowMs - expiryMs);
+        return inFlight() < maxInFlight;
+    }
+
+    /** Records a submission. Callers should check {@link #hasCapacity} first. */
+    public void onSubmitted(long timestampMs) {
+        long index = head.get();
+        submitted[(int) (index & mask)] = timestampMs;
+        head.set(index + 1);
+    }
+
+    /** Retires every submission up to and including {@code timestampMs}. */
+    public void onResult(long timestampMs) {
+        while (true) {
+            long t = tail.get();
+            if (t >= head.get() || submitted[(int) (t & mask)] > timestampMs) {
+                return;
+            }
+            tail.compareAndSet(t, t + 1);
+        }
+    }
+
+    /** Errors carry no timestamp, so retire the oldest submission. */
+    public void onError() {
+        long t = tail.get();
+        if (t < head.get()) {
+            tail.compareAndSet(t, t + 1);
+        }
+    }
+
+    public int inFlight() {
+        return (int) (head.get() - tail.get());
+    }
+
+    /** Number of submissions that were retired without ever receiving a result. */
+    public long expiredCount() {
+        return expired.get();
+    }
+
+    private void expireOlderThan(long cutoffMs) {
+        while (true) {
+            long t = tail.get();
+            if (t >= head.get() || submitted[(int) (t & mask)] >= cutoffMs) {
+                return;
+            }
+            if (tail.compareAndSet(t, t + 1)) {
+                expired.incrementAndGet();
+            }
+        }
+    }
+}
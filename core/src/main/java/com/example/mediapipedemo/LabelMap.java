@@ -0,0 +1,49 @@
+package com.example.mediapipedemo;
+
+import java.util.Arrays;
+
+/**
+ * Resolves detector categories to the small set of integer label ids the
+ * action logic cares about.
+ *
+ * The detector reports each category with its index in the model's label map.
+ * The name is compared only the first time an index is seen; after that the id
+ * comes straight out of an array.
+ */
+public class LabelMap {
+    public static final int OTHER = 0;
+    public static final int PERSON = 1;
+    public static final int CELL_PHONE = 2;
+
+    private static final int UNRESOLVED = -1;
+    // COCO has 90 ids; leave room for label maps with a background slot or gaps
+    private static final int MAX_INDEX = 128;
+
+    private final int[] idsByIndex = new int[MAX_INDEX];
+
+    public LabelMap() {
+        Arrays.fill(idsByIndex, UNRESOLVED);
+    }
+
+    public int resolve(int index, String categoryName) {
+        if (index < 0 || index >= MAX_INDEX) {
+            return idForName(categoryName);
+        }
+        int id = idsByIndex[index];
+        if (id == UNRESOLVED) {
+            id = idForName(categoryName);
+            idsByIndex[index] = id;
+        }
+        return id;
+    }
+
+    static int idForName(String categoryName) {
+        if ("person".equals(categoryName)) {
+            return PERSON;
+        }
+        if ("cell phone".equals(categoryName)) {
+            return CELL_PHONE;
+        }
+        return OTHER;
+    }
+}
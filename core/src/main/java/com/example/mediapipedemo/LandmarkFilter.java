@@ -0,0 +1,117 @@
+package com.example.mediapipedemo;
+
+/**
+ * One-Euro filter over the pose landmarks, with constant-velocity prediction
+ * between inferences.
+ *
+ * Each coordinate keeps its filtered value and filtered velocity in flat
+ * arrays. The cutoff frequency rises with speed, so a still pose is smoothed
+ * hard (no jitter) while a fast arm movement follows with little lag. Between
+ * pose results, {@link #predict} extrapolates along the filtered velocity so
+ * the overlay and the action rules get a pose for every camera frame even when
+ * the landmarker runs at a fraction of the camera rate.
+ *
+ * One filter tracks one person (see {@link PersonTracker}). Not thread-safe;
+ * used only from the fusion consumer; {@link ActionPipeline} times it as the
+ * FILTER stage.
+ */
+public class LandmarkFilter {
+    // A gap longer than this means tracking was lost; start over rather than smear
+    private static final long RESET_GAP_MS = 500;
+    // Never extrapolate further than this past the last measurement
+    private static final long MAX_PREDICTION_MS = 150;
+
+    private final float minCutoffHz;
+    private final float beta;
+    private final float derivativeCutoffHz;
+
+    private final float[] value = new float[ActionFrame.NUM_LANDMARKS * 2];
+    private final float[] velocity = new float[ActionFrame.NUM_LANDMARKS * 2];
+    private int count;
+    private long lastTimestampMs = Long.MIN_VALUE;
+
+    public LandmarkFilter(float minCutoffHz, float beta, float derivativeCutoffHz) {
+        this.minCutoffHz = minCutoffHz;
+        this.beta = beta;
+        this.derivativeCutoffHz = derivativeCutoffHz;
+    }
+
+    /** Timestamp of the last measurement folded in, or Long.MIN_VALUE if none. */
+    public long getLastTimestampMs() {
+        return lastTimestampMs;
+    }
+
+    /**
+     * Filters one person's landmarks in {@code frame} in place: folds them in if
+     * they were measured after the last update, then replaces them with the
+     * filtered pose predicted for {@code displayTimestampMs}. Returns true if a
+     * new measurement was folded in.
+     */
+    public boolean apply(ActionFrame frame, int person, long measuredTimestampMs, long displayTimestampMs) {
+        int offset = ActionFrame.landmarkOffset(person);
+        boolean updated = measuredTimestampMs > lastTimestampMs;
+        if (updated) {
+            update(frame.landmarks, offset, frame.landmarkCounts[person], measuredTimestampMs);
+        }
+        predict(displayTimestampMs, frame.landmarks, offset);
+        return updated;
+    }
+
+    /**
+     * Folds in a new measurement of {@code landmarkCount} x, y pairs starting at
+     * {@code offset}. Measurements that are not newer than the last one are ignored.
+     */
+    public void update(float[] landmarks, int offset, int landmarkCount, long timestampMs) {
+        int floats = Math.min(landmarkCount, ActionFrame.NUM_LANDMARKS) * 2;
+
+        if (lastTimestampMs == Long.MIN_VALUE || landmarkCount != count
+                || timestampMs - lastTimestampMs > RESET_GAP_MS) {
+            System.arraycopy(landmarks, offset, value, 0, floats);
+            for (int i = 0; i < floats; i++) {
+                velocity[i] = 0f;
+            }
+            count = landmarkCount;
+            lastTimestampMs = timestampMs;
+        } else if (timestampMs > lastTimestampMs) {
+            float dt = (timestampMs - lastTimestampMs) / 1000f;
+            float derivativeAlpha = alpha(derivativeCutoffHz, dt);
+            for (int i = 0; i < floats; i++) {
+                float measured = landmarks[offset + i];
+                float rawVelocity = (measured - value[i]) / dt;
+                float v = velocity[i] + derivativeAlpha * (rawVelocity - velocity[i]);
+                velocity[i] = v;
+                float cutoff = minCutoffHz + beta * Math.abs(v);
+                value[i] += alpha(cutoff, dt) * (measured - value[i]);
+            }
+            lastTimestampMs = timestampMs;
+        }
+    }
+
+    /**
+     * Writes the filtered landmarks, extrapolated to {@code timestampMs}, into
+     * {@code out} from {@code offset}. Returns the number of landmarks written
+     * (0 if no pose yet).
+     */
+    public int predict(long timestampMs, float[] out, int offset) {
+        if (lastTimestampMs == Long.MIN_VALUE) {
+            return 0;
+        }
+        long ahead = Math.max(0, Math.min(timestampMs - lastTimestampMs, MAX_PREDICTION_MS));
+        float dt = ahead / 1000f;
+        int floats = count * 2;
+        for (int i = 0; i < floats; i++) {
+            out[offset + i] = value[i] + velocity[i] * dt;
+        }
+        return count;
+    }
+
+    public void reset() {
+        count = 0;
+        lastTimestampMs = Long.MIN_VALUE;
+    }
+
+    private static float alpha(float cutoffHz, float dt) {
+        float tau = 1f / (2f * (float) Math.PI * cutoffHz);
+        return 1f / (1f + tau / dt);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.mediapipedemo;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with fixed, roughly doubling buckets from 250 us
+ * to 1 s. Recording is a bucket search and a few atomic adds, with no
+ * allocation, so it can sit on every hot path.
+ *
+ * {@link #drainTo} moves the counts into a reusable {@link Summary} and starts
+ * the next interval from zero.
+ */
+public final class LatencyHistogram {
+    // Upper bounds in microseconds; the last bucket catches everything above
+    private static final long[] BOUNDS_US = {
+            250, 500, 1000, 2000, 4000, 8000, 16000, 33000, 66000, 133000, 266000, 533000, 1000000
+    };
+    public static final int BUCKET_COUNT = BOUNDS_US.length + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong sumUs = new AtomicLong();
+    private final AtomicLong maxUs = new AtomicLong();
+
+    public void recordNanos(long nanos) {
+        recordMicros(nanos / 1000);
+    }
+
+    public void recordMillis(long millis) {
+        recordMicros(millis * 1000);
+    }
+
+    public void recordMicros(long micros) {
+        if (micros < 0) {
+            return;
+        }
+        int bucket = 0;
+        while (bucket < BOUNDS_US.length && micros > BOUNDS_US[bucket]) {
+            bucket++;
+        }
+        counts.incrementAndGet(bucket);
+        sumUs.addAndGet(micros);
+        long max;
+        while (micros > (max = maxUs.get()) && !maxUs.compareAndSet(max, micros)) {
+            // retry
+        }
+    }
+
+    /**
+     * Moves everything recorded since the last drain into {@code out}. Samples
+     * recorded concurrently land in either this interval or the next.
+     */
+    public void drainTo(Summary out) {
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long count = counts.getAndSet(i, 0);
+            out.counts[i] = count;
+            total += count;
+        }
+        out.count = total;
+        out.sumUs = sumUs.getAndSet(0);
+        out.maxUs = maxUs.getAndSet(0);
+    }
+
+    /** One interval's worth of a histogram. Reused between drains. */
+    public static final class Summary {
+        final long[] counts = new long[BUCKET_COUNT];
+        long count;
+        long sumUs;
+        long maxUs;
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getMeanUs() {
+            return count == 0 ? 0 : sumUs / count;
+        }
+
+        public long getMaxUs() {
+            return maxUs;
+        }
+
+        /**
+         * Upper bound of the bucket holding the {@code percentile}th sample,
+         * capped at the observed maximum.
+         */
+        public long getPercentileUs(float percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(count * percentile / 100f);
+            long seen = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return i < BOUNDS_US.length ? Math.min(BOUNDS_US[i], maxUs) : maxUs;
+                }
+            }
+            return maxUs;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.mediapipedemo;
+
+/**
+ * The geometry of the overlay: maps upright image coordinates to view pixels
+ * the way the preview shows the frame (ScaleType.FILL_CENTER), and lays out
+ * the skeleton as flat line and point arrays that OverlayView draws in one
+ * call each. Allocates nothing.
+ */
+public final class OverlayProjection {
+    // Pairs of landmarks to draw lines showing the skeleton structure
+    private static final int[][] POSE_LANDMARKS_CONNECTIONS = {
+            { 11, 12 }, { 11, 13 }, { 13, 15 }, { 12, 14 }, { 14, 16 }, { 11, 23 }, { 12, 24 }, { 23, 24 }, { 23, 25 },
+            { 24, 26 }, { 25, 27 }, { 26, 28 }, { 27, 29 }, { 28, 30 }, { 29, 31 }, { 30, 32 }, { 27, 31 }, { 28, 32 },
+            { 15, 21 }, { 16, 22 }, { 15, 17 }, { 16, 18 }, { 15, 19 }, { 16, 20 }, { 17, 19 }, { 18, 20 }
+    };
+
+    /** Floats {@link #appendBones} writes at most, for every person in a frame. */
+    public static final int MAX_LINE_FLOATS = ActionFrame.MAX_PERSONS * POSE_LANDMARKS_CONNECTIONS.length * 4;
+
+    private float scaleFactor = 1f;
+    private float startX;
+    private float startY;
+    private int imageWidth = 1;
+    private int imageHeight = 1;
+
+    public void setLayout(int viewWidth, int viewHeight, int imageWidth, int imageHeight) {
+        this.imageWidth = imageWidth;
+        this.imageHeight = imageHeight;
+        // Calculate scaling assuming preview behavior is ScaleType.FILL_CENTER
+        scaleFactor = Math.max(viewWidth * 1f / imageWidth, viewHeight * 1f / imageHeight);
+
+        // Find center difference because ScaleType.FILL_CENTER zooms from center
+        startX = (viewWidth - imageWidth * scaleFactor) / 2f;
+        startY = (viewHeight - imageHeight * scaleFactor) / 2f;
+    }
+
+    /** Maps {@code count} boxes (left, top, right, bottom in image pixels) into {@code out}. */
+    public void mapBoxes(float[] boxes, int count, float[] out) {
+        for (int i = 0; i < count; i++) {
+            out[i * 4] = boxes[i * 4] * scaleFactor + startX;
+            out[i * 4 + 1] = boxes[i * 4 + 1] * scaleFactor + startY;
+            out[i * 4 + 2] = boxes[i * 4 + 2] * scaleFactor + startX;
+            out[i * 4 + 3] = boxes[i * 4 + 3] * scaleFactor + startY;
+        }
+    }
+
+    /**
+     * Maps {@code count} normalized landmarks, x, y pairs from {@code offset}
+     * in {@code landmarks}, to view pixels at the start of {@code out}.
+     */
+    public void mapLandmarks(float[] landmarks, int offset, int count, float[] out) {
+        float scaleX = imageWidth * scaleFactor;
+        float scaleY = imageHeight * scaleFactor;
+        for (int i = 0; i < count; i++) {
+            out[i * 2] = landmarks[offset + i * 2] * scaleX + startX;
+            out[i * 2 + 1] = landmarks[offset + i * 2 + 1] * scaleY + startY;
+        }
+    }
+
+    /**
+     * Appends the bones between one person's {@code count} mapped landmarks in
+     * {@code points} to {@code lines} from {@code lineFloats} on, as x0, y0, x1,
+     * y1 runs; returns the new number of floats in {@code lines}.
+     */
+    public static int appendBones(float[] points, int count, float[] lines, int lineFloats) {
+        for (int[] connection : POSE_LANDMARKS_CONNECTIONS) {
+            if (connection[0] >= count || connection[1] >= count) {
+                continue;
+            }
+            lines[lineFloats++] = points[connection[0] * 2];
+            lines[lineFloats++] = points[connection[0] * 2 + 1];
+            lines[lineFloats++] = points[connection[1] * 2];
+            lines[lineFloats++] = points[connection[1] * 2 + 1];
+        }
+        return lineFloats;
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.mediapipedemo;
+
+/**
+ * Gives each person in frame a stable track across results, so that every
+ * person gets their own landmark filter, feature window and status smoother.
+ *
+ * MediaPipe does not keep the order of poses stable, so people are matched to
+ * tracks greedily by the distance between torso centers. A person with no track
+ * nearby starts a new one; a track with nobody matched to it votes
+ * {@link ActionStatus#NO_PERSON} until it expires.
+ *
+ * Not thread-safe; used only from the fusion consumer.
+ */
+public class PersonTracker {
+    private static final int[] TORSO_LANDMARKS = { 11, 12, 23, 24 };
+    // Torso centers further apart than this (normalized) are different people
+    private static final float MAX_MATCH_DISTANCE = 0.2f;
+    // A track not seen in any pose result for this long is dropped
+    private static final long TRACK_TIMEOUT_MS = 1000;
+
+    private final Track[] tracks = new Track[ActionFrame.MAX_PERSONS];
+    private final float[] personCenters = new float[ActionFrame.MAX_PERSONS * 2];
+    private final boolean[] personMatched = new boolean[ActionFrame.MAX_PERSONS];
+    private int nextTrackId = 1;
+
+    public PersonTracker(float minCutoffHz, float beta, float derivativeCutoffHz,
+            int featureWindowFrames, int decisionIntervalFrames,
+            int windowSize, int enterCount, int exitCount) {
+        for (int i = 0; i < tracks.length; i++) {
+            tracks[i] = new Track(new LandmarkFilter(minCutoffHz, beta, derivativeCutoffHz),
+                    new FeatureWindow(featureWindowFrames, decisionIntervalFrames),
+                    new StatusSmoother(windowSize, enterCount, exitCount));
+        }
+    }
+
+    /**
+     * Matches the people in {@code frame} to tracks, records each person's track
+     * slot in the frame, and replaces their landmarks with the filtered pose
+     * predicted for {@code displayTimestampMs}.
+     */
+    public void update(ActionFrame frame, long measuredTimestampMs, long displayTimestampMs) {
+        for (Track track : tracks) {
+            // Measured on the display clock, which keeps moving when results stop
+            if (track.active && displayTimestampMs - track.lastSeenMs > TRACK_TIMEOUT_MS) {
+                track.active = false;
+            }
+            track.matched = false;
+        }
+
+        int persons = frame.personCount;
+        for (int p = 0; p < persons; p++) {
+            torsoCenter(frame, p);
+            personMatched[p] = false;
+        }
+
+        // Greedy nearest pairs; with at most MAX_PERSONS on each side this is cheap
+        while (true) {
+            int bestPerson = -1;
+            int bestSlot = -1;
+            float bestDistance = MAX_MATCH_DISTANCE * MAX_MATCH_DISTANCE;
+            for (int p = 0; p < persons; p++) {
+                if (personMatched[p]) {
+                    continue;
+                }
+                for (int t = 0; t < tracks.length; t++) {
+                    Track track = tracks[t];
+                    if (!track.active || track.matched) {
+                        continue;
+                    }
+                    float dx = personCenters[p * 2] - track.centerX;
+                    float dy = personCenters[p * 2 + 1] - track.centerY;
+                    float distance = dx * dx + dy * dy;
+                    if (distance < bestDistance) {
+                        bestDistance = distance;
+                        bestPerson = p;
+                        bestSlot = t;
+                    }
+                }
+            }
+            if (bestPerson < 0) {
+                break;
+            }
+            assign(frame, bestPerson, bestSlot, measuredTimestampMs, displayTimestampMs);
+        }
+
+        for (int p = 0; p < persons; p++) {
+            if (!personMatched[p]) {
+                int slot = freeSlot();
+                if (slot >= 0) {
+                    Track track = tracks[slot];
+                    track.active = true;
+                    track.id = nextTrackId++;
+                    track.filter.reset();
+                    track.featureWindow.reset();
+                    track.smoother.reset();
+                    assign(frame, p, slot, measuredTimestampMs, displayTimestampMs);
+                }
+            }
+        }
+    }
+
+    /**
+     * Feeds each person's status into their track's smoother and writes the
+     * smoothed statuses back into {@code statuses}. Returns the status for the
+     * whole frame: the most urgent among live tracks, or NO_PERSON.
+     */
+    public ActionStatus smooth(ActionFrame frame, ActionStatus[] statuses) {
+        for (int p = 0; p < frame.personCount; p++) {
+            int slot = frame.trackSlots[p];
+            if (slot >= 0) {
+                Track track = tracks[slot];
+                track.smoother.update(statuses[p]);
+                statuses[p] = track.smoother.getSmoothed();
+            }
+        }
+
+        ActionStatus overall = ActionStatus.NO_PERSON;
+        for (Track track : tracks) {
+            if (!track.active) {
+                continue;
+            }
+            if (!track.matched) {
+                track.smoother.update(ActionStatus.NO_PERSON);
+            }
+            overall = ActionStatus.mostUrgent(overall, track.smoother.getSmoothed());
+        }
+        return overall;
+    }
+
+    /** Recent features of the person tracked in {@code slot}. */
+    public FeatureWindow getFeatureWindow(int slot) {
+        return tracks[slot].featureWindow;
+    }
+
+    /** Display id of the track in {@code slot}; ids are never reused. */
+    public int getTrackId(int slot) {
+        return tracks[slot].id;
+    }
+
+    private void assign(ActionFrame frame, int person, int slot, long measuredTimestampMs,
+            long displayTimestampMs) {
+        Track track = tracks[slot];
+        personMatched[person] = true;
+        track.matched = true;
+        track.lastSeenMs = measuredTimestampMs;
+        track.centerX = personCenters[person * 2];
+        track.centerY = personCenters[person * 2 + 1];
+        frame.trackSlots[person] = slot;
+        track.filter.apply(frame, person, measuredTimestampMs, displayTimestampMs);
+    }
+
+    /** An inactive slot, or else the unmatched track seen longest ago. */
+    private int freeSlot() {
+        int oldest = -1;
+        for (int t = 0; t < tracks.length; t++) {
+            Track track = tracks[t];
+            if (!track.active) {
+                return t;
+            }
+            if (!track.matched && (oldest < 0 || track.lastSeenMs < tracks[oldest].lastSeenMs)) {
+                oldest = t;
+            }
+        }
+        return oldest;
+    }
+
+    private void torsoCenter(ActionFrame frame, int person) {
+        int offset = ActionFrame.landmarkOffset(person);
+        int count = frame.landmarkCounts[person];
+        float sumX = 0f;
+        float sumY = 0f;
+        int used = 0;
+        for (int landmark : TORSO_LANDMARKS) {
+            if (landmark < count) {
+                sumX += frame.landmarks[offset + landmark * 2];
+                sumY += frame.landmarks[offset + landmark * 2 + 1];
+                used++;
+            }
+        }
+        if (used == 0) {
+            // Too few landmarks for a torso; the nose will do
+            sumX = count > 0 ? frame.landmarks[offset] : 0.5f;
+            sumY = count > 0 ? frame.landmarks[offset + 1] : 0.5f;
+            used = 1;
+        }
+        personCenters[person * 2] = sumX / used;
+        personCenters[person * 2 + 1] = sumY / used;
+    }
+
+    private static final class Track {
+        final LandmarkFilter filter;
+        final FeatureWindow featureWindow;
+        final StatusSmoother smoother;
+        boolean active;
+        boolean matched;
+        int id;
+        long lastSeenMs;
+        float centerX;
+        float centerY;
+
+        Track(LandmarkFilter filter, FeatureWindow featureWindow, StatusSmoother smoother) {
+            this.filter = filter;
+            this.featureWindow = featureWindow;
+            this.smoother = smoother;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.mediapipedemo;
+
+import java.util.Locale;
+
+/**
+ * Per-stage latency histograms for the whole pipeline, from preprocessing to
+ * the overlay draw, plus the one-off startup times. Any thread may record;
+ * {@link #appendReport} drains every stage and formats one interval.
+ */
+public class PipelineMetrics {
+    public enum Stage {
+        PREPROCESS,
+        POSE_INFERENCE,
+        OBJECT_INFERENCE,
+        FUSION,
+        FILTER,
+        ANALYSIS,
+        SMOOTHING,
+        RECORD,
+        EVIDENCE,
+        RENDER
+    }
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[Stage.values().length];
+    private volatile long modelsReadyMs = -1;
+    private volatile long firstFusedResultMs = -1;
+    // Only touched by the reporting thread
+    private final LatencyHistogram.Summary summary = new LatencyHistogram.Summary();
+
+    public PipelineMetrics() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    public void recordNanos(Stage stage, long nanos) {
+        histograms[stage.ordinal()].recordNanos(nanos);
+    }
+
+    public void recordMillis(Stage stage, long millis) {
+        histograms[stage.ordinal()].recordMillis(millis);
+    }
+
+    /** Time from launch until both detectors were loaded and warmed up. */
+    public void setModelsReadyMs(long millis) {
+        modelsReadyMs = millis;
+    }
+
+    /** Time from launch until the first fused result reached the consumer. */
+    public void setFirstFusedResultMs(long millis) {
+        firstFusedResultMs = millis;
+    }
+
+    public long getModelsReadyMs() {
+        return modelsReadyMs;
+    }
+
+    public long getFirstFusedResultMs() {
+        return firstFusedResultMs;
+    }
+
+    public LatencyHistogram histogram(Stage stage) {
+        return histograms[stage.ordinal()];
+    }
+
+    /**
+     * Drains all stages and appends one line per stage that saw samples:
+     * count, mean, p50, p90, p99 and max in milliseconds. Call from one thread.
+     */
+    public void appendReport(StringBuilder out) {
+        out.append("startup ready=").append(modelsReadyMs)
+                .append("ms first_result=").append(firstFusedResultMs).append("ms\n");
+        Stage[] stages = Stage.values();
+        for (int i = 0; i < stages.length; i++) {
+            histograms[i].drainTo(summary);
+            if (summary.getCount() == 0) {
+                continue;
+            }
+            out.append(stages[i].name().toLowerCase(Locale.ROOT))
+                    .append(" n=").append(summary.getCount())
+                    .append(" mean=");
+            appendMillis(out, summary.getMeanUs());
+            out.append(" p50=");
+            appendMillis(out, summary.getPercentileUs(50));
+            out.append(" p90=");
+            appendMillis(out, summary.getPercentileUs(90));
+            out.append(" p99=");
+            appendMillis(out, summary.getPercentileUs(99));
+            out.append(" max=");
+            appendMillis(out, summary.getMaxUs());
+            out.append('\n');
+        }
+    }
+
+    private static void appendMillis(StringBuilder out, long micros) {
+        // Two decimals without going through String.format
+        long hundredths = (micros + 5) / 10;
+        out.append(hundredths / 100).append('.');
+        long fraction = hundredths % 100;
+        if (fraction < 10) {
+            out.append('0');
+        }
+        out.append(fraction);
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.mediapipedemo;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The pixel copies of the zero-copy frame path, on tightly packed RGBA
+ * buffers. Sources may be shared with a model reading them at the same time,
+ * so only {@link #compactRows}, which runs before anyone else sees its source,
+ * moves a source's position. The bulk copies read through a {@link ReadView}
+ * the caller keeps, and {@link #halve} reads with absolute gets, so none of
+ * them allocates per call. Destinations come back flipped, ready to read.
+ */
+public final class RgbaPixels {
+    private RgbaPixels() {
+    }
+
+    /**
+     * Copies {@code height} rows of {@code rowBytes} each out of {@code source},
+     * whose rows start {@code rowStride} bytes apart, so the padding is dropped.
+     * Leaves {@code source} rewound.
+     */
+    public static void compactRows(ByteBuffer source, int rowStride, int rowBytes, int height, ByteBuffer dest) {
+        int sourceLimit = source.limit();
+        dest.clear();
+        for (int row = 0; row < height; row++) {
+            int start = row * rowStride;
+            source.limit(start + rowBytes);
+            source.position(start);
+            dest.put(source);
+        }
+        source.limit(sourceLimit);
+        source.rewind();
+        dest.flip();
+    }
+
+    /**
+     * Copies the first {@code bytes} of {@code source}, a whole frame, reading
+     * through the caller's {@code view}.
+     */
+    public static void copy(ByteBuffer source, int bytes, ByteBuffer dest, ReadView view) {
+        ByteBuffer pixels = view.of(source);
+        pixels.limit(bytes);
+        dest.clear();
+        dest.put(pixels);
+        dest.flip();
+    }
+
+    /**
+     * Copies the {@code width x height} region at {@code left, top} of a frame
+     * {@code sourceWidth} pixels wide, reading through the caller's {@code view}.
+     */
+    public static void copyRegion(ByteBuffer source, int sourceWidth, int left, int top, int width, int height,
+            ByteBuffer dest, ReadView view) {
+        ByteBuffer pixels = view.of(source);
+        int sourceRowBytes = sourceWidth * 4;
+        int rowBytes = width * 4;
+        dest.clear();
+        for (int row = 0; row < height; row++) {
+            int start = (top + row) * sourceRowBytes + left * 4;
+            pixels.limit(start + rowBytes);
+            pixels.position(start);
+            dest.put(pixels);
+        }
+        dest.flip();
+    }
+
+    /**
+     * Writes {@code source} at half the width and height, {@code width x height}
+     * pixels, each the average of a 2x2 block.
+     */
+    public static void halve(ByteBuffer source, int sourceWidth, int width, int height, ByteBuffer dest) {
+        // Whole pixels are read and written as ints, so the result is swapped
+        // back if the two byte orders differ; averaging works on each byte alike.
+        boolean swap = source.order() != dest.order();
+        int sourceRowBytes = sourceWidth * 4;
+        int out = 0;
+        for (int y = 0; y < height; y++) {
+            int row0 = y * 2 * sourceRowBytes;
+            int row1 = row0 + sourceRowBytes;
+            for (int x = 0; x < width; x++) {
+                int offset = x * 8;
+                int top = average(source.getInt(row0 + offset), source.getInt(row0 + offset + 4));
+                int bottom = average(source.getInt(row1 + offset), source.getInt(row1 + offset + 4));
+                int pixel = average(top, bottom);
+                dest.putInt(out, swap ? Integer.reverseBytes(pixel) : pixel);
+                out += 4;
+            }
+        }
+        dest.position(0);
+        dest.limit(out);
+    }
+
+    // Per-channel floor((a + b) / 2) of four packed 8-bit channels, without unpacking
+    private static int average(int a, int b) {
+        return (a & b) + (((a ^ b) & 0xFEFEFEFE) >>> 1);
+    }
+
+    /**
+     * A caller's own duplicate of the last source it copied from, so that bulk
+     * copies, which move the position of what they read, need not duplicate
+     * the source on every call. Not thread-safe; keep one per thread or job.
+     */
+    public static final class ReadView {
+        private ByteBuffer source;
+        private ByteBuffer view;
+
+        ByteBuffer of(ByteBuffer source) {
+            if (source != this.source) {
+                this.source = source;
+                view = source.duplicate();
+            }
+            view.clear();
+            return view;
+        }
+    }
+}
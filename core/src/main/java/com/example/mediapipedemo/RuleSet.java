@@ -0,0 +1,244 @@
+package com.example.mediapipedemo;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The action rules, compiled from a small text format into flat arrays that
+ * {@link #evaluate} walks without allocating.
+ *
+ * <pre>
+ * # comment
+ * param wrist_padding_px 50
+ * rule PHONE_CONFIRMED if phone_score &gt; 0.6
+ * rule WRITING if hands_below_shoulders &gt; 0.45 and hands_apart &lt; 0.4
+ * default NORMAL
+ * </pre>
+ *
+ * Rules are tried in order and the first one whose conditions all hold gives
+ * the status; if none does, the default. Conditions compare one of the
+ * {@link Feature}s, which {@link ActionAnalyzer} computes once per person, with
+ * a constant using {@code <}, {@code <=}, {@code >} or {@code >=}.
+ *
+ * Instances are immutable, so a new rule set can be swapped in at any time
+ * while the analyzer keeps using the old one until its next frame.
+ */
+public final class RuleSet {
+    public enum Feature {
+        /** Mean wrist y minus mean shoulder y, normalized; positive is below the shoulders. */
+        HANDS_BELOW_SHOULDERS("hands_below_shoulders"),
+        /** Horizontal distance between the wrists, normalized. */
+        HANDS_APART("hands_apart"),
+        /** Best cell phone score among the detections in this person's hands, else 0. */
+        PHONE_SCORE("phone_score"),
+        /** Best score of anything but a person in this person's hands, else 0. */
+        OBJECT_SCORE("object_score"),
+        // Over the person's recent frames, see FeatureWindow; without a track,
+        // the means are this frame's values and the deviations 0
+        HANDS_BELOW_SHOULDERS_MEAN("hands_below_shoulders_mean"),
+        HANDS_BELOW_SHOULDERS_STD("hands_below_shoulders_std"),
+        HANDS_APART_MEAN("hands_apart_mean"),
+        /** Mean wrist speed, normalized units per second. */
+        WRIST_SPEED_MEAN("wrist_speed_mean"),
+        WRIST_SPEED_STD("wrist_speed_std");
+
+        private final String key;
+
+        Feature(String key) {
+            this.key = key;
+        }
+
+        public String getKey() {
+            return key;
+        }
+    }
+
+    public static final int FEATURE_COUNT = Feature.values().length;
+
+    /** The thresholds that used to be hard-coded in the analyzer; writing is judged over the window. */
+    public static final String DEFAULT_RULES = ""
+            + "# Detections count as in a hand when the wrist is within this many\n"
+            + "# pixels of the box. 150 px was too large and caught background objects.\n"
+            + "param wrist_padding_px 50\n"
+            + "\n"
+            + "rule PHONE_CONFIRMED if phone_score > 0.6\n"
+            + "# Any object in hand needs a decently high confidence\n"
+            + "rule PHONE_SUSPECTED if object_score > 0.55\n"
+            + "# Hands low over the last second or so. To tell writing from hands resting\n"
+            + "# low, also require some wrist motion once calibrated on recorded sessions:\n"
+            + "#   rule WRITING if hands_below_shoulders_mean > 0.45 and wrist_speed_mean > 0.05\n"
+            + "rule WRITING if hands_below_shoulders_mean > 0.45\n"
+            + "default NORMAL\n";
+
+    private static final int LESS = 0;
+    private static final int LESS_OR_EQUAL = 1;
+    private static final int GREATER = 2;
+    private static final int GREATER_OR_EQUAL = 3;
+    private static final String[] OPERATORS = { "<", "<=", ">", ">=" };
+
+    private static final float DEFAULT_WRIST_PADDING_PX = 50f;
+
+    private final String name;
+    private final float wristPaddingPx;
+    // Rule r's conditions are conditionStart[r] until conditionStart[r + 1]
+    private final int[] conditionStart;
+    private final int[] conditionFeature;
+    private final int[] conditionOperator;
+    private final float[] conditionValue;
+    private final ActionStatus[] ruleStatus;
+    private final ActionStatus defaultStatus;
+
+    private RuleSet(String name, float wristPaddingPx, List<int[]> conditions, List<Float> values,
+            List<Integer> ruleStarts, List<ActionStatus> statuses, ActionStatus defaultStatus) {
+        this.name = name;
+        this.wristPaddingPx = wristPaddingPx;
+        conditionStart = new int[ruleStarts.size() + 1];
+        for (int r = 0; r < ruleStarts.size(); r++) {
+            conditionStart[r] = ruleStarts.get(r);
+        }
+        conditionStart[ruleStarts.size()] = conditions.size();
+        conditionFeature = new int[conditions.size()];
+        conditionOperator = new int[conditions.size()];
+        conditionValue = new float[conditions.size()];
+        for (int c = 0; c < conditions.size(); c++) {
+            conditionFeature[c] = conditions.get(c)[0];
+            conditionOperator[c] = conditions.get(c)[1];
+            conditionValue[c] = values.get(c);
+        }
+        ruleStatus = statuses.toArray(new ActionStatus[0]);
+        this.defaultStatus = defaultStatus;
+    }
+
+    public static RuleSet defaults() {
+        try {
+            return parse("default rules", new BufferedReader(new StringReader(DEFAULT_RULES)));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Compiles a rule file; errors name the line they are on. */
+    public static RuleSet parse(String name, BufferedReader reader) throws IOException {
+        float wristPaddingPx = DEFAULT_WRIST_PADDING_PX;
+        List<int[]> conditions = new ArrayList<>();
+        List<Float> values = new ArrayList<>();
+        List<Integer> ruleStarts = new ArrayList<>();
+        List<ActionStatus> statuses = new ArrayList<>();
+        ActionStatus defaultStatus = ActionStatus.NORMAL;
+        int lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] tokens = line.split("\\s+");
+            try {
+                switch (tokens[0]) {
+                    case "param":
+                        expect(tokens.length == 3, "expected: param <name> <value>");
+                        expect("wrist_padding_px".equals(tokens[1]), "unknown param " + tokens[1]);
+                        wristPaddingPx = Float.parseFloat(tokens[2]);
+                        break;
+                    case "rule":
+                        // rule <STATUS> if <feature> <op> <value> [and <feature> <op> <value>]...
+                        expect(tokens.length >= 6 && (tokens.length - 2) % 4 == 0 && "if".equals(tokens[2]),
+                                "expected: rule <STATUS> if <feature> <op> <value> [and ...]");
+                        ruleStarts.add(conditions.size());
+                        statuses.add(ActionStatus.valueOf(tokens[1]));
+                        for (int t = 3; t < tokens.length; t += 4) {
+                            if (t > 3) {
+                                expect("and".equals(tokens[t - 1]), "expected 'and', got " + tokens[t - 1]);
+                            }
+                            conditions.add(new int[] { featureIndex(tokens[t]), operatorIndex(tokens[t + 1]) });
+                            values.add(Float.parseFloat(tokens[t + 2]));
+                        }
+                        break;
+                    case "default":
+                        expect(tokens.length == 2, "expected: default <STATUS>");
+                        defaultStatus = ActionStatus.valueOf(tokens[1]);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("unknown line type " + tokens[0]);
+                }
+            } catch (RuntimeException e) {
+                throw new IOException(name + ":" + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+        return new RuleSet(name, wristPaddingPx, conditions, values, ruleStarts, statuses, defaultStatus);
+    }
+
+    private static void expect(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    private static int featureIndex(String key) {
+        for (Feature feature : Feature.values()) {
+            if (feature.key.equals(key)) {
+                return feature.ordinal();
+            }
+        }
+        throw new IllegalArgumentException("unknown feature " + key);
+    }
+
+    private static int operatorIndex(String operator) {
+        for (int i = 0; i < OPERATORS.length; i++) {
+            if (OPERATORS[i].equals(operator)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("unknown operator " + operator);
+    }
+
+    /** The status for a person with {@code features}, indexed by {@link Feature} ordinal. */
+    public ActionStatus evaluate(float[] features) {
+        int rules = ruleStatus.length;
+        int c = 0;
+        for (int r = 0; r < rules; r++) {
+            int end = conditionStart[r + 1];
+            boolean matched = true;
+            for (; c < end; c++) {
+                if (!holds(features[conditionFeature[c]], conditionOperator[c], conditionValue[c])) {
+                    matched = false;
+                    c = end;
+                    break;
+                }
+            }
+            if (matched) {
+                return ruleStatus[r];
+            }
+        }
+        return defaultStatus;
+    }
+
+    private static boolean holds(float feature, int operator, float value) {
+        switch (operator) {
+            case LESS:
+                return feature < value;
+            case LESS_OR_EQUAL:
+                return feature <= value;
+            case GREATER:
+                return feature > value;
+            default:
+                return feature >= value;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public float getWristPaddingPx() {
+        return wristPaddingPx;
+    }
+
+    public int getRuleCount() {
+        return ruleStatus.length;
+    }
+}
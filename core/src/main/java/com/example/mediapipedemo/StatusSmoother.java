@@ -0,0 +1,79 @@
+package com.example.mediapipedemo;
+
+/**
+ * Majority vote over the last N statuses, with hysteresis.
+ *
+ * Statuses are kept as enum ordinals in a fixed ring with running counts per
+ * status, so an update is O(1) and allocates nothing. The smoothed status only
+ * changes when the challenger holds at least {@code enterCount} of the window,
+ * or when the current status has fallen to {@code exitCount} or fewer and the
+ * challenger is the most frequent one.
+ *
+ * Not thread-safe by design: it is only updated from the fusion consumer, which
+ * ResultFusionBuffer never runs on two threads at once.
+ */
+public class StatusSmoother {
+    private static final ActionStatus[] STATUSES = ActionStatus.values();
+
+    private final int[] window;
+    private final int[] counts = new int[STATUSES.length];
+    private final int enterCount;
+    private final int exitCount;
+    private int head;
+    private int size;
+    private ActionStatus smoothed;
+
+    public StatusSmoother(int windowSize, int enterCount, int exitCount) {
+        if (enterCount > windowSize || exitCount >= enterCount) {
+            throw new IllegalArgumentException("Need exitCount < enterCount <= windowSize");
+        }
+        this.window = new int[windowSize];
+        this.enterCount = enterCount;
+        this.exitCount = exitCount;
+    }
+
+    /** Adds a per-frame status and returns true if the smoothed status changed. */
+    public boolean update(ActionStatus status) {
+        if (size == window.length) {
+            counts[window[head]]--;
+        } else {
+            size++;
+        }
+        window[head] = status.ordinal();
+        counts[status.ordinal()]++;
+        head = (head + 1) % window.length;
+
+        if (smoothed == null) {
+            smoothed = status;
+            return true;
+        }
+
+        int mode = smoothed.ordinal();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > counts[mode]) {
+                mode = i;
+            }
+        }
+        if (mode == smoothed.ordinal()) {
+            return false;
+        }
+        if (counts[mode] >= enterCount || counts[smoothed.ordinal()] <= exitCount) {
+            smoothed = STATUSES[mode];
+            return true;
+        }
+        return false;
+    }
+
+    public ActionStatus getSmoothed() {
+        return smoothed;
+    }
+
+    public void reset() {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = 0;
+        }
+        head = 0;
+        size = 0;
+        smoothed = null;
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.mediapipedemo;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Stands between the camera frames and one detector's detectAsync.
+ *
+ * {@link #admit} decides, before a frame is converted or copied, whether it
+ * will go to this detector at all: not while the detector is not set up, not
+ * before the scheduler makes it due, and not while its in-flight cap is
+ * reached. {@link #beginSubmit} then records the submission, and refuses a
+ * timestamp that is not strictly after the last one submitted, which the
+ * LIVE_STREAM graph would otherwise reject through the error listener after
+ * the frame had been paid for.
+ *
+ * Every frame that does not reach the detector is counted under a
+ * {@link DropReason}. Admission and submission each come from one thread at
+ * a time, in frame order; results and errors may come from any thread.
+ */
+public class SubmissionGate {
+    public enum DropReason {
+        /** The detector was not set up, or is closed. */
+        NOT_READY("not_ready"),
+        /** The scheduler runs the model below camera rate and this frame was not due. */
+        NOT_DUE("not_due"),
+        /** The in-flight cap was reached. */
+        IN_FLIGHT_FULL("in_flight"),
+        /** The motion gate found the scene unchanged. */
+        UNCHANGED("unchanged"),
+        /** The timestamp did not advance past the last submission. */
+        NON_MONOTONIC("non_monotonic"),
+        /** detectAsync threw. */
+        SUBMIT_FAILED("failed");
+
+        private final String label;
+
+        DropReason(String label) {
+            this.label = label;
+        }
+
+        /** Short name for reports. */
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    private static final DropReason[] REASONS = DropReason.values();
+
+    private final InFlightTracker inFlight;
+    private final AtomicLongArray drops = new AtomicLongArray(REASONS.length);
+    // Submitting thread only
+    private long lastTimestampMs = Long.MIN_VALUE;
+
+    public SubmissionGate(int maxInFlight, long expiryMs) {
+        this.inFlight = new InFlightTracker(maxInFlight, expiryMs);
+    }
+
+    /**
+     * True if a frame arriving at {@code nowMs} should be prepared for this
+     * detector; otherwise counts why not and returns false.
+     */
+    public boolean admit(boolean ready, boolean due, long nowMs) {
+        if (!ready) {
+            drop(DropReason.NOT_READY);
+            return false;
+        }
+        if (!due) {
+            drop(DropReason.NOT_DUE);
+            return false;
+        }
+        if (!inFlight.hasCapacity(nowMs)) {
+            drop(DropReason.IN_FLIGHT_FULL);
+            return false;
+        }
+        return true;
+    }
+
+    /** Counts a frame dropped for a reason decided outside the gate. */
+    public void drop(DropReason reason) {
+        drops.incrementAndGet(reason.ordinal());
+    }
+
+    /**
+     * Call right before detectAsync. Returns false, and counts the drop, if
+     * {@code timestampMs} is not after the last timestamp submitted.
+     */
+    public boolean beginSubmit(long timestampMs) {
+        if (timestampMs <= lastTimestampMs) {
+            drop(DropReason.NON_MONOTONIC);
+            return false;
+        }
+        lastTimestampMs = timestampMs;
+        inFlight.onSubmitted(timestampMs);
+        return true;
+    }
+
+    /** detectAsync threw after {@link #beginSubmit}; no result will come. */
+    public void onSubmitFailed() {
+        inFlight.onError();
+        drop(DropReason.SUBMIT_FAILED);
+    }
+
+    public void onResult(long timestampMs) {
+        inFlight.onResult(timestampMs);
+    }
+
+    public void onError() {
+        inFlight.onError();
+    }
+
+    public void setMaxInFlight(int maxInFlight) {
+        inFlight.setMaxInFlight(maxInFlight);
+    }
+
+    public int getMaxInFlight() {
+        return inFlight.getMaxInFlight();
+    }
+
+    public int getInFlightCount() {
+        return inFlight.inFlight();
+    }
+
+    /** Submissions the graph dropped without a result, retired after the expiry. */
+    public long getExpiredCount() {
+        return inFlight.expiredCount();
+    }
+
+    public long getDropCount(DropReason reason) {
+        return drops.get(reason.ordinal());
+    }
+
+    /** Appends {@code label=count} for every reason, space separated, to {@code out}. */
+    public void appendDrops(StringBuilder out) {
+        for (int i = 0; i < REASONS.length; i++) {
+            if (i > 0) {
+                out.append(' ');
+            }
+            out.append(REASONS[i].getLabel()).append('=').append(drops.get(i));
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.mediapipedemo;
+
+/**
+ * When the app's ModelTierGovernor moves one model between its tiers, apart from
+ * the detector, the clock and the threads.
+ *
+ * Each evaluation counts as over (latency above the target, or queue
+ * pressure), under (latency below {@link #UPGRADE_HEADROOM} of the target) or
+ * neither, which resets both counts. {@link #DOWNGRADE_EVALUATIONS} overs in a
+ * row drop one tier and {@link #UPGRADE_EVALUATIONS} unders in a row go up
+ * one. A tier just dropped from is skipped for {@link #RETRY_BLOCK_MS}, one
+ * that failed to load for good, and nothing is judged until
+ * {@link #SETTLE_MS} after a start or a switch.
+ *
+ * Not thread-safe; the governor calls it from its own thread.
+ */
+public final class TierPolicy {
+    static final int DOWNGRADE_EVALUATIONS = 2;
+    static final int UPGRADE_EVALUATIONS = 5;
+    // Go up only while latency is below this fraction of the target
+    static final float UPGRADE_HEADROOM = 0.6f;
+    // Lets the smoothed latency settle on the new tier before judging it
+    static final long SETTLE_MS = 4000;
+    static final long RETRY_BLOCK_MS = 60_000;
+
+    private final long targetLatencyMs;
+    private final long[] blockedUntilMs;
+    private final boolean[] failed;
+    private int overCount;
+    private int underCount;
+    private long settledAtMs;
+
+    public TierPolicy(int tierCount, long targetLatencyMs) {
+        this.targetLatencyMs = targetLatencyMs;
+        this.blockedUntilMs = new long[tierCount];
+        this.failed = new boolean[tierCount];
+    }
+
+    /** Call when the detector starts serving frames. */
+    public void start(long nowMs) {
+        settledAtMs = nowMs + SETTLE_MS;
+    }
+
+    /**
+     * Counts one evaluation of the model running tier {@code current}.
+     * {@code latencyMs} is the smoothed latency, negative if there is none yet.
+     * Returns the tier to switch to, or -1 to stay.
+     */
+    public int evaluate(float latencyMs, boolean pressure, int current, long nowMs) {
+        if (latencyMs < 0 || nowMs < settledAtMs) {
+            return -1;
+        }
+        if (latencyMs > targetLatencyMs || pressure) {
+            overCount++;
+            underCount = 0;
+        } else if (latencyMs < targetLatencyMs * UPGRADE_HEADROOM) {
+            underCount++;
+            overCount = 0;
+        } else {
+            overCount = 0;
+            underCount = 0;
+        }
+
+        if (overCount >= DOWNGRADE_EVALUATIONS) {
+            int lower = nextAvailable(current, -1, nowMs);
+            if (lower >= 0) {
+                blockedUntilMs[current] = nowMs + RETRY_BLOCK_MS;
+            }
+            return lower;
+        }
+        if (underCount >= UPGRADE_EVALUATIONS) {
+            return nextAvailable(current, 1, nowMs);
+        }
+        return -1;
+    }
+
+    /** Call after trying to switch to {@code index}; a tier that failed is not tried again. */
+    public void onSwitch(int index, boolean switched, long nowMs) {
+        if (!switched) {
+            failed[index] = true;
+        }
+        overCount = 0;
+        underCount = 0;
+        settledAtMs = nowMs + SETTLE_MS;
+    }
+
+    public long getTargetLatencyMs() {
+        return targetLatencyMs;
+    }
+
+    private int nextAvailable(int from, int step, long nowMs) {
+        for (int i = from + step; i >= 0 && i < failed.length; i += step) {
+            if (!failed[i] && nowMs >= blockedUntilMs[i]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.mediapipedemo;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Locale;
+
+/**
+ * Layout of the fixed-width records in the action timeline (see
+ * {@link TimelineRecorder} and {@link TimelineReader}).
+ *
+ * All values are little-endian. Landmark and box coordinates are normalized
+ * to the image and stored as 16-bit fixed point ({@link #COORD_SCALE} per
+ * unit), scores as a byte out of 255.
+ *
+ * <pre>
+ * record header   timestamp ms (8), image width (2), image height (2),
+ *                 person count (1), detection count (1), overall status (1), pad (1)
+ * per person x4   status ordinal (1), pad (1), track id (2), 5 key landmarks x, y (20)
+ * per detection x10  top label id (1), top score (1), left, top, right, bottom (8)
+ * </pre>
+ *
+ * Records are appended to segment files, each a {@link #SEGMENT_HEADER_SIZE}
+ * byte header (magic, version, record size, record count, first and last
+ * timestamp) followed by the records in time order. The index file holds one
+ * {@link #INDEX_ENTRY_SIZE} byte entry per segment (segment id, first and last
+ * timestamp, record count) after an {@link #INDEX_HEADER_SIZE} byte header
+ * (magic, version, entry count).
+ */
+public final class TimelineFormat {
+    public static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    /** Nose, shoulders and wrists: enough to replay what the rules looked at. */
+    public static final int[] KEY_LANDMARKS = { 0, 11, 12, 15, 16 };
+    public static final float COORD_SCALE = 16384f;
+
+    static final int HEADER_SIZE = 16;
+    static final int PERSON_SIZE = 4 + KEY_LANDMARKS.length * 4;
+    static final int DETECTION_SIZE = 10;
+    public static final int RECORD_SIZE = HEADER_SIZE + ActionFrame.MAX_PERSONS * PERSON_SIZE
+            + ActionFrame.MAX_DETECTIONS * DETECTION_SIZE;
+
+    static final int SEGMENT_MAGIC = 0x544C4E31; // "TLN1"
+    static final int INDEX_MAGIC = 0x544C4958; // "TLIX"
+    static final int VERSION = 1;
+    static final int SEGMENT_HEADER_SIZE = 64;
+    static final int SEGMENT_COUNT_OFFSET = 12;
+    static final int SEGMENT_FIRST_TS_OFFSET = 16;
+    static final int SEGMENT_LAST_TS_OFFSET = 24;
+    static final int INDEX_HEADER_SIZE = 16;
+    static final int INDEX_COUNT_OFFSET = 8;
+    static final int INDEX_ENTRY_SIZE = 32;
+    static final int MAX_SEGMENTS = 64;
+    static final String INDEX_FILE = "timeline.idx";
+
+    private static final int PERSONS_OFFSET = HEADER_SIZE;
+    private static final int DETECTIONS_OFFSET = HEADER_SIZE + ActionFrame.MAX_PERSONS * PERSON_SIZE;
+
+    private TimelineFormat() {
+    }
+
+    static String segmentFileName(long segmentId) {
+        return String.format(Locale.US, "timeline-%08d.seg", segmentId);
+    }
+
+    /**
+     * Encodes one analyzed frame into {@code out} at {@code offset}. Unused person
+     * and detection slots are zeroed so records compare byte for byte.
+     */
+    static void encode(long timestampMs, ActionFrame frame, ActionStatus[] statuses, ActionStatus overall,
+            PersonTracker tracker, byte[] out, int offset) {
+        putLong(out, offset, timestampMs);
+        putShort(out, offset + 8, frame.imageWidth);
+        putShort(out, offset + 10, frame.imageHeight);
+        out[offset + 12] = (byte) frame.personCount;
+        out[offset + 13] = (byte) frame.detectionCount;
+        out[offset + 14] = (byte) overall.ordinal();
+        out[offset + 15] = 0;
+
+        for (int p = 0; p < ActionFrame.MAX_PERSONS; p++) {
+            int base = offset + PERSONS_OFFSET + p * PERSON_SIZE;
+            if (p >= frame.personCount) {
+                fill(out, base, PERSON_SIZE);
+                continue;
+            }
+            int slot = frame.trackSlots[p];
+            out[base] = (byte) statuses[p].ordinal();
+            out[base + 1] = 0;
+            putShort(out, base + 2, slot >= 0 ? tracker.getTrackId(slot) : 0);
+            int landmarkOffset = ActionFrame.landmarkOffset(p);
+            int count = frame.landmarkCounts[p];
+            for (int k = 0; k < KEY_LANDMARKS.length; k++) {
+                int landmark = KEY_LANDMARKS[k];
+                boolean present = landmark < count;
+                putShort(out, base + 4 + k * 4,
+                        present ? quantize(frame.landmarks[landmarkOffset + landmark * 2]) : 0);
+                putShort(out, base + 6 + k * 4,
+                        present ? quantize(frame.landmarks[landmarkOffset + landmark * 2 + 1]) : 0);
+            }
+        }
+
+        float width = Math.max(1, frame.imageWidth);
+        float height = Math.max(1, frame.imageHeight);
+        for (int d = 0; d < ActionFrame.MAX_DETECTIONS; d++) {
+            int base = offset + DETECTIONS_OFFSET + d * DETECTION_SIZE;
+            if (d >= frame.detectionCount) {
+                fill(out, base, DETECTION_SIZE);
+                continue;
+            }
+            boolean hasCategory = frame.categoryCounts[d] > 0;
+            int category = d * ActionFrame.MAX_CATEGORIES;
+            out[base] = (byte) (hasCategory ? frame.labelIds[category] : LabelMap.OTHER);
+            out[base + 1] = (byte) (hasCategory ? Math.round(frame.scores[category] * 255f) : 0);
+            putShort(out, base + 2, quantize(frame.boxes[d * 4] / width));
+            putShort(out, base + 4, quantize(frame.boxes[d * 4 + 1] / height));
+            putShort(out, base + 6, quantize(frame.boxes[d * 4 + 2] / width));
+            putShort(out, base + 8, quantize(frame.boxes[d * 4 + 3] / height));
+        }
+    }
+
+    // Readers: offset is the start of a record in a buffer whose order is ORDER
+
+    public static long timestampMs(ByteBuffer record, int offset) {
+        return record.getLong(offset);
+    }
+
+    public static int personCount(ByteBuffer record, int offset) {
+        return record.get(offset + 12);
+    }
+
+    public static int detectionCount(ByteBuffer record, int offset) {
+        return record.get(offset + 13);
+    }
+
+    public static ActionStatus overallStatus(ByteBuffer record, int offset) {
+        return ActionStatus.values()[record.get(offset + 14)];
+    }
+
+    public static ActionStatus personStatus(ByteBuffer record, int offset, int person) {
+        return ActionStatus.values()[record.get(offset + PERSONS_OFFSET + person * PERSON_SIZE)];
+    }
+
+    public static int personTrackId(ByteBuffer record, int offset, int person) {
+        return record.getShort(offset + PERSONS_OFFSET + person * PERSON_SIZE + 2) & 0xFFFF;
+    }
+
+    /** Normalized x of the {@code key}th entry of {@link #KEY_LANDMARKS}. */
+    public static float keyLandmarkX(ByteBuffer record, int offset, int person, int key) {
+        return record.getShort(offset + PERSONS_OFFSET + person * PERSON_SIZE + 4 + key * 4) / COORD_SCALE;
+    }
+
+    public static float keyLandmarkY(ByteBuffer record, int offset, int person, int key) {
+        return record.getShort(offset + PERSONS_OFFSET + person * PERSON_SIZE + 6 + key * 4) / COORD_SCALE;
+    }
+
+    public static int detectionLabelId(ByteBuffer record, int offset, int detection) {
+        return record.get(offset + DETECTIONS_OFFSET + detection * DETECTION_SIZE);
+    }
+
+    public static float detectionScore(ByteBuffer record, int offset, int detection) {
+        return (record.get(offset + DETECTIONS_OFFSET + detection * DETECTION_SIZE + 1) & 0xFF) / 255f;
+    }
+
+    /** Normalized box edge: 0 left, 1 top, 2 right, 3 bottom. */
+    public static float detectionEdge(ByteBuffer record, int offset, int detection, int edge) {
+        return record.getShort(offset + DETECTIONS_OFFSET + detection * DETECTION_SIZE + 2 + edge * 2)
+                / COORD_SCALE;
+    }
+
+    private static int quantize(float value) {
+        return Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, Math.round(value * COORD_SCALE)));
+    }
+
+    private static void fill(byte[] out, int offset, int length) {
+        for (int i = 0; i < length; i++) {
+            out[offset + i] = 0;
+        }
+    }
+
+    private static void putShort(byte[] out, int offset, int value) {
+        out[offset] = (byte) value;
+        out[offset + 1] = (byte) (value >> 8);
+    }
+
+    private static void putLong(byte[] out, int offset, long value) {
+        for (int i = 0; i < 8; i++) {
+            out[offset + i] = (byte) (value >> (i * 8));
+        }
+    }
+}
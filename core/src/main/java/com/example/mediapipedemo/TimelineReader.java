@@ -0,0 +1,90 @@
+package com.example.mediapipedemo;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Time-range queries over a log written by {@link TimelineRecorder}.
+ *
+ * The index narrows a query down to the segments whose time range overlaps it;
+ * within a segment the records are in time order and fixed width, so the first
+ * match is found by binary search. Safe to use while the recorder is writing;
+ * a query sees the records flushed when it started.
+ */
+public class TimelineReader {
+    public interface Visitor {
+        /** Called per matching record; decode it with the {@link TimelineFormat} readers. */
+        void onRecord(ByteBuffer segment, int offset);
+    }
+
+    private final File directory;
+
+    public TimelineReader(File directory) {
+        this.directory = directory;
+    }
+
+    /** Visits every record with {@code fromMs <= timestamp <= toMs}, oldest first. Returns how many. */
+    public int query(long fromMs, long toMs, Visitor visitor) throws IOException {
+        File indexFile = new File(directory, TimelineFormat.INDEX_FILE);
+        if (!indexFile.isFile()) {
+            return 0;
+        }
+        ByteBuffer index = map(indexFile, indexFile.length());
+        if (index.getInt(0) != TimelineFormat.INDEX_MAGIC) {
+            throw new IOException("Not a timeline index: " + indexFile);
+        }
+
+        int visited = 0;
+        int entries = index.getInt(TimelineFormat.INDEX_COUNT_OFFSET);
+        for (int i = 0; i < entries; i++) {
+            int entry = TimelineFormat.INDEX_HEADER_SIZE + i * TimelineFormat.INDEX_ENTRY_SIZE;
+            long firstTs = index.getLong(entry + 8);
+            long lastTs = index.getLong(entry + 16);
+            int count = index.getInt(entry + 24);
+            if (count == 0 || lastTs < fromMs || firstTs > toMs) {
+                continue;
+            }
+            File segmentFile = new File(directory, TimelineFormat.segmentFileName(index.getLong(entry)));
+            ByteBuffer segment = map(segmentFile,
+                    TimelineFormat.SEGMENT_HEADER_SIZE + (long) count * TimelineFormat.RECORD_SIZE);
+            if (segment.getInt(0) != TimelineFormat.SEGMENT_MAGIC
+                    || segment.getInt(8) != TimelineFormat.RECORD_SIZE) {
+                throw new IOException("Incompatible timeline segment: " + segmentFile);
+            }
+            for (int r = firstAtOrAfter(segment, count, fromMs); r < count; r++) {
+                int offset = TimelineFormat.SEGMENT_HEADER_SIZE + r * TimelineFormat.RECORD_SIZE;
+                if (TimelineFormat.timestampMs(segment, offset) > toMs) {
+                    break;
+                }
+                visitor.onRecord(segment, offset);
+                visited++;
+            }
+        }
+        return visited;
+    }
+
+    private static int firstAtOrAfter(ByteBuffer segment, int count, long timestampMs) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int offset = TimelineFormat.SEGMENT_HEADER_SIZE + mid * TimelineFormat.RECORD_SIZE;
+            if (TimelineFormat.timestampMs(segment, offset) < timestampMs) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static ByteBuffer map(File file, long size) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            return raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, raf.length()))
+                    .order(TimelineFormat.ORDER);
+        }
+    }
+}
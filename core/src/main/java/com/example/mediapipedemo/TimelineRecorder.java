@@ -0,0 +1,243 @@
+package com.example.mediapipedemo;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Persists every analyzed frame to a segmented, append-only binary log (layout
+ * in {@link TimelineFormat}), for later queries by time range through
+ * {@link TimelineReader}.
+ *
+ * {@link #record} only encodes the frame into a slot of an in-memory ring and
+ * publishes it with an ordered store, so the fusion consumer never touches a
+ * file or waits. A writer thread wakes every {@link #FLUSH_INTERVAL_MS}, copies
+ * whatever has accumulated into the current memory-mapped segment, and updates
+ * the segment header and index in place. A full segment is rolled over to a
+ * new file; past {@link TimelineFormat#MAX_SEGMENTS} the oldest is deleted.
+ * When the ring is full, frames are dropped and counted rather than blocking.
+ */
+public class TimelineRecorder implements Closeable {
+    // About eight seconds at camera rate
+    private static final int RING_CAPACITY = 256;
+    // About 3.5 MB per segment
+    private static final int SEGMENT_RECORDS = 16384;
+    private static final long FLUSH_INTERVAL_MS = 50;
+    private static final long CLOSE_TIMEOUT_MS = 1000;
+
+    private static final int RECORD_SIZE = TimelineFormat.RECORD_SIZE;
+
+    private final File directory;
+    private final byte[] ring = new byte[RING_CAPACITY * RECORD_SIZE];
+    private final ByteBuffer ringView = ByteBuffer.wrap(ring).order(TimelineFormat.ORDER);
+    // Records put in the ring by the producer, and taken out by the writer
+    private final AtomicLong produced = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean running = true;
+    private volatile IOException failure;
+
+    // Writer thread only (and the constructor, before it starts)
+    private final MappedByteBuffer index;
+    private int indexEntries;
+    private long segmentId;
+    private MappedByteBuffer segment;
+    private int segmentRecords;
+    private long segmentFirstTs;
+    private long segmentLastTs;
+
+    /** Opens (or creates) the log in {@code directory}; new records go to a fresh segment. */
+    public TimelineRecorder(File directory) throws IOException {
+        this.directory = directory;
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        index = map(new File(directory, TimelineFormat.INDEX_FILE),
+                TimelineFormat.INDEX_HEADER_SIZE + TimelineFormat.MAX_SEGMENTS * TimelineFormat.INDEX_ENTRY_SIZE);
+        if (index.getInt(0) == TimelineFormat.INDEX_MAGIC) {
+            indexEntries = index.getInt(TimelineFormat.INDEX_COUNT_OFFSET);
+            if (indexEntries > 0) {
+                segmentId = index.getLong(entryOffset(indexEntries - 1));
+            }
+        } else {
+            index.putInt(0, TimelineFormat.INDEX_MAGIC);
+            index.putInt(4, TimelineFormat.VERSION);
+            index.putInt(TimelineFormat.INDEX_COUNT_OFFSET, 0);
+        }
+
+        writer = new Thread(this::runWriter, "TimelineRecorder");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queues one analyzed frame. Call from a single thread (the fusion consumer).
+     * Returns false if the frame was dropped because the writer is behind.
+     */
+    public boolean record(long timestampMs, ActionFrame frame, ActionStatus[] statuses, ActionStatus overall,
+            PersonTracker tracker) {
+        long sequence = produced.get();
+        if (sequence - consumed.get() >= RING_CAPACITY) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        TimelineFormat.encode(timestampMs, frame, statuses, overall, tracker, ring,
+                (int) (sequence % RING_CAPACITY) * RECORD_SIZE);
+        // Ordered store: the writer sees the bytes before it sees the new count
+        produced.lazySet(sequence + 1);
+        return true;
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    /** Frames not recorded because the ring was full or writing had failed. */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /** The error that stopped writing, or null. */
+    public IOException getFailure() {
+        return failure;
+    }
+
+    /** Writes out everything queued so far and stops the writer thread. */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(CLOSE_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runWriter() {
+        while (running) {
+            drain();
+            LockSupport.parkNanos(FLUSH_INTERVAL_MS * 1_000_000L);
+        }
+        drain();
+        if (segment != null) {
+            segment.force();
+            index.force();
+        }
+    }
+
+    private void drain() {
+        long start = consumed.get();
+        long end = produced.get();
+        if (end == start) {
+            return;
+        }
+        for (long sequence = start; sequence < end; sequence++) {
+            if (failure != null) {
+                dropped.incrementAndGet();
+                continue;
+            }
+            try {
+                append((int) (sequence % RING_CAPACITY) * RECORD_SIZE);
+                written.incrementAndGet();
+            } catch (IOException e) {
+                failure = e;
+                dropped.incrementAndGet();
+            }
+        }
+        consumed.lazySet(end);
+        if (segment != null) {
+            updateHeaders();
+        }
+    }
+
+    private void append(int ringOffset) throws IOException {
+        if (segment == null || segmentRecords == SEGMENT_RECORDS) {
+            roll();
+        }
+        long timestampMs = TimelineFormat.timestampMs(ringView, ringOffset);
+        segment.position(TimelineFormat.SEGMENT_HEADER_SIZE + segmentRecords * RECORD_SIZE);
+        segment.put(ring, ringOffset, RECORD_SIZE);
+        if (segmentRecords == 0) {
+            segmentFirstTs = timestampMs;
+        }
+        segmentLastTs = timestampMs;
+        segmentRecords++;
+    }
+
+    private void roll() throws IOException {
+        if (segment != null) {
+            updateHeaders();
+            segment.force();
+        }
+        if (indexEntries == TimelineFormat.MAX_SEGMENTS) {
+            dropOldestSegment();
+        }
+
+        segmentId++;
+        segment = map(new File(directory, TimelineFormat.segmentFileName(segmentId)),
+                TimelineFormat.SEGMENT_HEADER_SIZE + SEGMENT_RECORDS * RECORD_SIZE);
+        segment.putInt(0, TimelineFormat.SEGMENT_MAGIC);
+        segment.putInt(4, TimelineFormat.VERSION);
+        segment.putInt(8, RECORD_SIZE);
+        segmentRecords = 0;
+        segmentFirstTs = 0;
+        segmentLastTs = 0;
+
+        index.putLong(entryOffset(indexEntries), segmentId);
+        indexEntries++;
+        updateHeaders();
+        index.putInt(TimelineFormat.INDEX_COUNT_OFFSET, indexEntries);
+    }
+
+    /** Writes the record count and time range to the segment header and its index entry. */
+    private void updateHeaders() {
+        segment.putInt(TimelineFormat.SEGMENT_COUNT_OFFSET, segmentRecords);
+        segment.putLong(TimelineFormat.SEGMENT_FIRST_TS_OFFSET, segmentFirstTs);
+        segment.putLong(TimelineFormat.SEGMENT_LAST_TS_OFFSET, segmentLastTs);
+
+        int entry = entryOffset(indexEntries - 1);
+        index.putLong(entry + 8, segmentFirstTs);
+        index.putLong(entry + 16, segmentLastTs);
+        index.putInt(entry + 24, segmentRecords);
+    }
+
+    private void dropOldestSegment() {
+        File oldest = new File(directory, TimelineFormat.segmentFileName(index.getLong(entryOffset(0))));
+        if (!oldest.delete()) {
+            oldest.deleteOnExit();
+        }
+        for (int i = 1; i < indexEntries; i++) {
+            int from = entryOffset(i);
+            int to = entryOffset(i - 1);
+            for (int b = 0; b < TimelineFormat.INDEX_ENTRY_SIZE; b += 8) {
+                index.putLong(to + b, index.getLong(from + b));
+            }
+        }
+        indexEntries--;
+    }
+
+    private static int entryOffset(int entry) {
+        return TimelineFormat.INDEX_HEADER_SIZE + entry * TimelineFormat.INDEX_ENTRY_SIZE;
+    }
+
+    private static MappedByteBuffer map(File file, int size) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            if (raf.length() < size) {
+                raf.setLength(size);
+            }
+            // The mapping stays valid after the file is closed
+            MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(TimelineFormat.ORDER);
+            return buffer;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.mediapipedemo;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Single frames through the default rules: which person each detection is
+ * assigned to, and what that makes of them. People are {@link TestFrames}
+ * ones, standing upright, so without an object they are NORMAL.
+ */
+public class ActionAnalyzerTest {
+    // TestFrames wrists are 0.55 of the way down
+    private static final float WRIST_Y = 0.55f * TestFrames.HEIGHT;
+
+    private final ActionAnalyzer analyzer = new ActionAnalyzer();
+    private final ActionStatus[] statuses = new ActionStatus[ActionFrame.MAX_PERSONS];
+
+    private static void addObject(ActionFrame frame, float left, float right, int labelId, float score) {
+        int box = frame.addDetection(left, WRIST_Y - 40f, right, WRIST_Y + 40f);
+        frame.addCategory(box, labelId, score);
+    }
+
+    @Test
+    public void noPeopleInFrame() {
+        ActionFrame frame = TestFrames.people(new ActionFrame(), 0, 0f, true);
+
+        assertEquals(0, analyzer.analyze(frame, statuses));
+    }
+
+    @Test
+    public void aPhoneInHandIsOnlyThatPersons() {
+        ActionFrame frame = TestFrames.people(new ActionFrame(), 2, 0f, true);
+
+        assertEquals(2, analyzer.analyze(frame, statuses));
+        assertEquals(ActionStatus.PHONE_CONFIRMED, statuses[0]);
+        // The person boxes around everyone's hands do not count as objects
+        assertEquals(ActionStatus.NORMAL, statuses[1]);
+    }
+
+    @Test
+    public void anObjectBetweenTwoPeopleGoesToTheNearerWrist() {
+        // Wrists at 0.23 and 0.27 of the width for one person, 0.73 and 0.77 for the other;
+        // each box reaches a wrist of both
+        ActionFrame frame = TestFrames.people(new ActionFrame(), 2, 0f, false);
+        addObject(frame, 100f, 340f, LabelMap.CELL_PHONE, 0.9f);
+        analyzer.analyze(frame, statuses);
+        assertEquals(ActionStatus.PHONE_CONFIRMED, statuses[0]);
+        assertEquals(ActionStatus.NORMAL, statuses[1]);
+
+        TestFrames.people(frame, 2, 0f, false);
+        addObject(frame, 140f, 380f, LabelMap.CELL_PHONE, 0.9f);
+        analyzer.analyze(frame, statuses);
+        assertEquals(ActionStatus.NORMAL, statuses[0]);
+        assertEquals(ActionStatus.PHONE_CONFIRMED, statuses[1]);
+    }
+
+    @Test
+    public void wristPaddingDecidesWhatIsInHand() {
+        // A single person's right wrist is at 0.52 of the width; the default padding is 50 px
+        float wristX = 0.52f * TestFrames.WIDTH;
+        ActionFrame frame = TestFrames.people(new ActionFrame(), 1, 0f, false);
+        addObject(frame, wristX + 40f, wristX + 120f, LabelMap.CELL_PHONE, 0.9f);
+        analyzer.analyze(frame, statuses);
+        assertEquals(ActionStatus.PHONE_CONFIRMED, statuses[0]);
+
+        TestFrames.people(frame, 1, 0f, false);
+        addObject(frame, wristX + 60f, wristX + 140f, LabelMap.CELL_PHONE, 0.9f);
+        analyzer.analyze(frame, statuses);
+        assertEquals(ActionStatus.NORMAL, statuses[0]);
+    }
+
+    @Test
+    public void otherObjectsInHandNeedAHighScore() {
+        ActionFrame frame = TestFrames.people(new ActionFrame(), 1, 0f, false);
+        addObject(frame, 200f, 280f, LabelMap.OTHER, 0.7f);
+        analyzer.analyze(frame, statuses);
+        assertEquals(ActionStatus.PHONE_SUSPECTED, statuses[0]);
+
+        TestFrames.people(frame, 1, 0f, false);
+        addObject(frame, 200f, 280f, LabelMap.OTHER, 0.5f);
+        analyzer.analyze(frame, statuses);
+        assertEquals(ActionStatus.NORMAL, statuses[0]);
+    }
+
+    @Test
+    public void tooFewLandmarksIsStillAnalyzing() {
+        ActionFrame frame = new ActionFrame();
+        frame.reset(TestFrames.WIDTH, TestFrames.HEIGHT);
+        frame.addPerson(5);
+
+        assertEquals(1, analyzer.analyze(frame, statuses));
+        assertEquals(ActionStatus.ANALYZING, statuses[0]);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.mediapipedemo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+public class BufferPoolTest {
+    private static final int FRAME_BYTES = 640 * 480 * 4;
+
+    @Test
+    public void cropViewIsExactlyTheCropSize() {
+        BufferPool pool = new BufferPool(4);
+        pool.release(pool.acquire(FRAME_BYTES));
+        int cropBytes = 212 * 157 * 4;
+
+        ByteBuffer pooled = pool.acquire(cropBytes);
+        ByteBuffer pixels = BufferPool.exactView(pooled);
+        RgbaPixels.copyRegion(ByteBuffer.allocateDirect(FRAME_BYTES), 640, 100, 50, 212, 157, pixels,
+                new RgbaPixels.ReadView());
+
+        assertEquals(FRAME_BYTES, pooled.capacity());
+        assertEquals(cropBytes, pixels.capacity());
+        assertEquals(cropBytes, pixels.remaining());
+        assertEquals(pooled.order(), pixels.order());
+    }
+
+    @Test
+    public void pyramidLevelViewsAreExactlyTheLevelSize() {
+        BufferPool pool = new BufferPool(4);
+        // A full frame and a stale larger level are both free when the levels are built
+        ByteBuffer frame = pool.acquire(FRAME_BYTES);
+        ByteBuffer stale = pool.acquire(FRAME_BYTES / 2);
+        pool.release(frame);
+        pool.release(stale);
+
+        ByteBuffer half = pool.acquire(FRAME_BYTES / 4);
+        ByteBuffer halfPixels = BufferPool.exactView(half);
+        RgbaPixels.halve(ByteBuffer.allocateDirect(FRAME_BYTES), 640, 320, 240, halfPixels);
+        ByteBuffer quarter = pool.acquire(FRAME_BYTES / 16);
+        ByteBuffer quarterPixels = BufferPool.exactView(quarter);
+        RgbaPixels.halve(halfPixels, 320, 160, 120, quarterPixels);
+
+        assertEquals(320 * 240 * 4, halfPixels.capacity());
+        assertEquals(320 * 240 * 4, halfPixels.remaining());
+        assertEquals(160 * 120 * 4, quarterPixels.capacity());
+        assertEquals(160 * 120 * 4, quarterPixels.remaining());
+        // The half level took the smaller free buffer, leaving the full frame's
+        assertEquals(FRAME_BYTES / 2, half.capacity());
+    }
+
+    @Test
+    public void viewWritesThroughToThePooledBuffer() {
+        BufferPool pool = new BufferPool(4);
+        pool.release(pool.acquire(FRAME_BYTES));
+
+        ByteBuffer pooled = pool.acquire(64);
+        BufferPool.exactView(pooled).putInt(8, 0x11223344);
+
+        assertEquals(0x11223344, pooled.getInt(8));
+    }
+
+    @Test
+    public void acquireTakesTheSmallestBufferThatFits() {
+        BufferPool pool = new BufferPool(4);
+        ByteBuffer frame = pool.acquire(FRAME_BYTES);
+        ByteBuffer crop = pool.acquire(FRAME_BYTES / 4);
+        pool.release(frame);
+        pool.release(crop);
+
+        assertSame(crop, pool.acquire(FRAME_BYTES / 8));
+        assertSame(frame, pool.acquire(FRAME_BYTES));
+    }
+}
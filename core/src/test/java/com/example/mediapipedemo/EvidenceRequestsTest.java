@@ -0,0 +1,92 @@
+package com.example.mediapipedemo;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import java.util.EnumSet;
+
+public class EvidenceRequestsTest {
+    private static final long INTERVAL_MS = 10_000;
+
+    private final ActionFrame frame = TestFrames.people(new ActionFrame(), 1, 0f, true);
+
+    private static EvidenceRequests requests(int maxPerSession) {
+        return new EvidenceRequests(EnumSet.of(ActionStatus.PHONE_CONFIRMED, ActionStatus.PHONE_SUSPECTED),
+                INTERVAL_MS, maxPerSession);
+    }
+
+    @Test
+    public void requestsOnEnteringATriggerStatusOnly() {
+        EvidenceRequests requests = requests(10);
+        requests.onStatus(ActionStatus.NORMAL, frame, 0);
+        assertNull(requests.poll());
+
+        requests.onStatus(ActionStatus.PHONE_CONFIRMED, frame, 33);
+        EvidenceRequests.Request request = requests.poll();
+        assertNotNull(request);
+        assertEquals(ActionStatus.PHONE_CONFIRMED, request.getStatus());
+        assertNull(requests.poll());
+
+        // Staying in the status is not entering it again
+        requests.onStatus(ActionStatus.PHONE_CONFIRMED, frame, INTERVAL_MS * 2);
+        assertNull(requests.poll());
+    }
+
+    @Test
+    public void copiesTheBoxes() {
+        EvidenceRequests requests = requests(10);
+        float[] boxes = new float[frame.getDetectionCount() * 4];
+        System.arraycopy(frame.boxes, 0, boxes, 0, boxes.length);
+
+        requests.onStatus(ActionStatus.PHONE_CONFIRMED, frame, 0);
+        // The frame is reused for the next camera frame
+        TestFrames.people(frame, 2, 0.1f, false);
+
+        assertArrayEquals(boxes, requests.poll().getBoxes(), 0f);
+    }
+
+    @Test
+    public void rateLimitsByInterval() {
+        EvidenceRequests requests = requests(10);
+        requests.onStatus(ActionStatus.PHONE_CONFIRMED, frame, 0);
+        requests.poll();
+
+        requests.onStatus(ActionStatus.NORMAL, frame, 1000);
+        requests.onStatus(ActionStatus.PHONE_CONFIRMED, frame, INTERVAL_MS - 1);
+        assertNull(requests.poll());
+        assertEquals(1, requests.getRateLimitedCount());
+
+        requests.onStatus(ActionStatus.NORMAL, frame, INTERVAL_MS);
+        requests.onStatus(ActionStatus.PHONE_CONFIRMED, frame, INTERVAL_MS);
+        assertNotNull(requests.poll());
+    }
+
+    @Test
+    public void rateLimitsPerSession() {
+        EvidenceRequests requests = requests(2);
+        for (int i = 0; i < 4; i++) {
+            requests.onStatus(ActionStatus.NORMAL, frame, i * INTERVAL_MS);
+            requests.onStatus(ActionStatus.PHONE_CONFIRMED, frame, i * INTERVAL_MS);
+            if (i < 2) {
+                assertNotNull(requests.poll());
+            } else {
+                assertNull(requests.poll());
+            }
+        }
+        assertEquals(2, requests.getRateLimitedCount());
+    }
+
+    @Test
+    public void aNewerRequestReplacesOneNotTakenYet() {
+        EvidenceRequests requests = requests(10);
+        requests.onStatus(ActionStatus.PHONE_SUSPECTED, frame, 0);
+        requests.onStatus(ActionStatus.PHONE_CONFIRMED, frame, INTERVAL_MS);
+
+        assertEquals(ActionStatus.PHONE_CONFIRMED, requests.poll().getStatus());
+        assertNull(requests.poll());
+    }
+}
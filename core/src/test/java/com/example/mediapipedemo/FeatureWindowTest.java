@@ -0,0 +1,115 @@
+package com.example.mediapipedemo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class FeatureWindowTest {
+    private static final float EPSILON = 1e-5f;
+
+    private static void addHandsBelow(FeatureWindow window, float value, long timestampMs) {
+        window.add(value, 0f, 0.4f, 0.6f, 0.6f, 0.6f, timestampMs);
+    }
+
+    @Test
+    public void meanAndDeviationCoverOnlyTheLastFrames() {
+        FeatureWindow window = new FeatureWindow(3, 1);
+        addHandsBelow(window, 1f, 0);
+        addHandsBelow(window, 2f, 33);
+        assertEquals(1.5f, window.mean(FeatureWindow.HANDS_BELOW_SHOULDERS), EPSILON);
+        assertEquals(0.5f, window.standardDeviation(FeatureWindow.HANDS_BELOW_SHOULDERS), EPSILON);
+
+        addHandsBelow(window, 3f, 66);
+        addHandsBelow(window, 4f, 99);
+
+        assertEquals(3, window.size());
+        assertEquals(3f, window.mean(FeatureWindow.HANDS_BELOW_SHOULDERS), EPSILON);
+        assertEquals((float) Math.sqrt(2.0 / 3.0), window.standardDeviation(FeatureWindow.HANDS_BELOW_SHOULDERS),
+                EPSILON);
+    }
+
+    @Test
+    public void deviationOfOneFrameIsZero() {
+        FeatureWindow window = new FeatureWindow(3, 1);
+        addHandsBelow(window, 5f, 0);
+
+        assertEquals(0f, window.standardDeviation(FeatureWindow.HANDS_BELOW_SHOULDERS), 0f);
+    }
+
+    @Test
+    public void runningSumsDoNotDrift() {
+        FeatureWindow window = new FeatureWindow(30, 1);
+        long timestampMs = 0;
+        // An hour at 30 fps of values that do not add up exactly in binary
+        for (int i = 0; i < 108_000; i++) {
+            addHandsBelow(window, i % 3 == 0 ? 0.1f : 0.7f, timestampMs += 33);
+        }
+        for (int i = 0; i < 30; i++) {
+            addHandsBelow(window, 0.3f, timestampMs += 33);
+        }
+
+        assertEquals(0.3f, window.mean(FeatureWindow.HANDS_BELOW_SHOULDERS), EPSILON);
+        assertEquals(0f, window.standardDeviation(FeatureWindow.HANDS_BELOW_SHOULDERS), 1e-3f);
+    }
+
+    @Test
+    public void wristSpeedAveragesBothWristsPerSecond() {
+        FeatureWindow window = new FeatureWindow(10, 1);
+        window.add(0f, 0f, 0.40f, 0.60f, 0.60f, 0.60f, 1000);
+        assertEquals(0f, window.mean(FeatureWindow.WRIST_SPEED), 0f);
+
+        // Left wrist 0.03 sideways, right wrist 0.04 down, in 100 ms
+        window.add(0f, 0f, 0.43f, 0.60f, 0.60f, 0.64f, 1100);
+
+        // The first frame has no speed, (0.3/s + 0.4/s) / 2 for the second
+        assertEquals(0.35f / 2, window.mean(FeatureWindow.WRIST_SPEED), EPSILON);
+    }
+
+    @Test
+    public void wristSpeedIsZeroWithoutTimeElapsed() {
+        FeatureWindow window = new FeatureWindow(10, 1);
+        window.add(0f, 0f, 0.40f, 0.60f, 0.60f, 0.60f, 1000);
+        window.add(0f, 0f, 0.50f, 0.60f, 0.60f, 0.60f, 1000);
+
+        assertEquals(0f, window.mean(FeatureWindow.WRIST_SPEED), 0f);
+    }
+
+    @Test
+    public void decisionIsDueEveryInterval() {
+        FeatureWindow window = new FeatureWindow(10, 2);
+        addHandsBelow(window, 0f, 0);
+        assertTrue(window.isDecisionDue());
+        window.setDecision(ActionStatus.NORMAL);
+        assertFalse(window.isDecisionDue());
+
+        addHandsBelow(window, 0f, 33);
+        assertFalse(window.isDecisionDue());
+        addHandsBelow(window, 0f, 66);
+        assertTrue(window.isDecisionDue());
+        assertEquals(ActionStatus.NORMAL, window.getDecision());
+    }
+
+    @Test
+    public void resetForgetsFramesWristsAndDecision() {
+        FeatureWindow window = new FeatureWindow(10, 1);
+        window.add(1f, 1f, 0.40f, 0.60f, 0.60f, 0.60f, 1000);
+        window.setDecision(ActionStatus.WRITING);
+
+        window.reset();
+        // Far from the old wrists, but there is nothing to measure speed against
+        window.add(0f, 0f, 0.90f, 0.10f, 0.10f, 0.90f, 1033);
+
+        assertEquals(1, window.size());
+        assertEquals(0f, window.mean(FeatureWindow.HANDS_BELOW_SHOULDERS), 0f);
+        assertEquals(0f, window.mean(FeatureWindow.WRIST_SPEED), 0f);
+        assertNull(window.getDecision());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAnEmptyWindow() {
+        new FeatureWindow(0, 1);
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.mediapipedemo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/** One landmark (an x, y pair) through the pipeline's filter settings, with pose results at 15 fps. */
+public class LandmarkFilterTest {
+    private static final long POSE_MS = 66;
+    private static final float EPSILON = 1e-6f;
+
+    private final LandmarkFilter filter = new LandmarkFilter(ActionPipeline.LANDMARK_MIN_CUTOFF_HZ,
+            ActionPipeline.LANDMARK_BETA, ActionPipeline.LANDMARK_DERIVATIVE_CUTOFF_HZ);
+    private final float[] out = new float[2];
+
+    private void update(float x, float y, long timestampMs) {
+        filter.update(new float[] { x, y }, 0, 1, timestampMs);
+    }
+
+    private float predictX(long timestampMs) {
+        filter.predict(timestampMs, out, 0);
+        return out[0];
+    }
+
+    @Test
+    public void theFirstMeasurementPassesThrough() {
+        assertEquals(0, filter.predict(0, out, 0));
+
+        update(0.3f, 0.7f, 1000);
+
+        assertEquals(1, filter.predict(1000, out, 0));
+        assertEquals(0.3f, out[0], EPSILON);
+        assertEquals(0.7f, out[1], EPSILON);
+    }
+
+    @Test
+    public void smoothsJitterOnAStillLandmark() {
+        float largest = 0f;
+        for (int i = 0; i < 60; i++) {
+            update(i % 2 == 0 ? 0.51f : 0.49f, 0.5f, i * POSE_MS);
+            if (i >= 30) {
+                largest = Math.max(largest, Math.abs(predictX(i * POSE_MS) - 0.5f));
+            }
+        }
+
+        // Measurements are 0.01 off every time
+        assertTrue("filtered jitter " + largest, largest < 0.005f);
+    }
+
+    @Test
+    public void followsASteadyMovementAndPredictsAlongIt() {
+        // 0.3 units per second, sideways
+        float speed = 0.3f;
+        float lagAt30 = 0f;
+        float lag = 0f;
+        long lastMs = 0;
+        for (int i = 0; i < 60; i++) {
+            lastMs = i * POSE_MS;
+            update(speed * lastMs / 1000f, 0.5f, lastMs);
+            lag = speed * lastMs / 1000f - predictX(lastMs);
+            if (i == 30) {
+                lagAt30 = lag;
+            }
+        }
+        // Behind by a constant, under 100 ms worth of movement
+        assertEquals(lagAt30, lag, 0.001f);
+        assertTrue("lag " + lag, lag < speed * 0.1f);
+
+        // Half way to the next result, predicting along the velocity more than halves the error
+        long displayMs = lastMs + POSE_MS / 2;
+        float truth = speed * displayMs / 1000f;
+        assertTrue(Math.abs(predictX(displayMs) - truth) < Math.abs(predictX(lastMs) - truth) / 2);
+    }
+
+    @Test
+    public void predictionStopsAtTheHorizon() {
+        update(0.0f, 0.5f, 0);
+        update(0.02f, 0.5f, POSE_MS);
+        update(0.04f, 0.5f, 2 * POSE_MS);
+
+        long lastMs = 2 * POSE_MS;
+        assertEquals(predictX(lastMs + 150), predictX(lastMs + 5000), EPSILON);
+        assertTrue(predictX(lastMs + 150) > predictX(lastMs + 100));
+        // Never behind the last measurement either
+        assertEquals(predictX(lastMs), predictX(lastMs - 30), EPSILON);
+    }
+
+    @Test
+    public void ignoresMeasurementsThatAreNotNewer() {
+        update(0.3f, 0.5f, 1000);
+        update(0.9f, 0.5f, 1000);
+        update(0.9f, 0.5f, 900);
+
+        assertEquals(0.3f, predictX(1000), EPSILON);
+        assertEquals(1000, filter.getLastTimestampMs());
+    }
+
+    @Test
+    public void startsOverAfterAGap() {
+        update(0.3f, 0.5f, 1000);
+        update(0.31f, 0.5f, 1000 + POSE_MS);
+
+        // Long enough for the person to have moved anywhere
+        update(0.8f, 0.5f, 2000);
+
+        assertEquals(0.8f, predictX(2000), EPSILON);
+    }
+
+    @Test
+    public void applyUpdatesOnlyOnNewResults() {
+        ActionFrame frame = TestFrames.people(new ActionFrame(), 1, 0f, false);
+        int wrist = ActionFrame.landmarkOffset(0) + ActionAnalyzer.LEFT_WRIST * 2;
+        float measuredX = frame.landmarks[wrist];
+
+        assertTrue(filter.apply(frame, 0, 1000, 1000));
+        assertEquals(measuredX, frame.landmarks[wrist], EPSILON);
+        assertFalse(filter.apply(frame, 0, 1000, 1033));
+        assertFalse(filter.apply(frame, 0, 900, 1066));
+        assertTrue(filter.apply(frame, 0, 1066, 1066));
+        assertEquals(1066, filter.getLastTimestampMs());
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.mediapipedemo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import org.junit.Test;
+
+public class PersonTrackerTest {
+    private static final long FRAME_MS = 33;
+
+    private final PersonTracker tracker = new PersonTracker(ActionPipeline.LANDMARK_MIN_CUTOFF_HZ,
+            ActionPipeline.LANDMARK_BETA, ActionPipeline.LANDMARK_DERIVATIVE_CUTOFF_HZ,
+            ActionPipeline.FEATURE_WINDOW_FRAMES, ActionPipeline.DECISION_INTERVAL_FRAMES,
+            ActionPipeline.SMOOTHING_WINDOW_SIZE, ActionPipeline.SMOOTHING_ENTER_COUNT,
+            ActionPipeline.SMOOTHING_EXIT_COUNT);
+    private final ActionFrame frame = new ActionFrame();
+
+    /** Tracks people standing at {@code centersX}, in that order, and returns the frame. */
+    private ActionFrame update(long timestampMs, float... centersX) {
+        frame.reset(TestFrames.WIDTH, TestFrames.HEIGHT);
+        for (float centerX : centersX) {
+            int person = frame.addPerson(ActionFrame.NUM_LANDMARKS);
+            for (int i = 0; i < ActionFrame.NUM_LANDMARKS; i++) {
+                frame.setLandmark(person, i, centerX, 0.15f + 0.7f * i / ActionFrame.NUM_LANDMARKS);
+            }
+        }
+        tracker.update(frame, timestampMs, timestampMs);
+        return frame;
+    }
+
+    private int trackId(int person) {
+        return tracker.getTrackId(frame.trackSlots[person]);
+    }
+
+    @Test
+    public void keepsTracksWhenPosesComeInAnotherOrder() {
+        update(0, 0.2f, 0.8f);
+        int left = trackId(0);
+        int right = trackId(1);
+        assertNotEquals(left, right);
+
+        update(FRAME_MS, 0.8f, 0.2f);
+
+        assertEquals(right, trackId(0));
+        assertEquals(left, trackId(1));
+    }
+
+    @Test
+    public void followsAPersonMovingWithinTheMatchDistance() {
+        update(0, 0.2f);
+        int id = trackId(0);
+        float x = 0.2f;
+        for (int i = 1; i <= 10; i++) {
+            update(i * FRAME_MS, x += 0.05f);
+            assertEquals(id, trackId(0));
+        }
+    }
+
+    @Test
+    public void aPersonTooFarFromEveryTrackGetsANewOne() {
+        update(0, 0.2f);
+        int id = trackId(0);
+
+        update(FRAME_MS, 0.7f);
+
+        assertNotEquals(id, trackId(0));
+    }
+
+    @Test
+    public void aTrackSurvivesShortGapsButNotTheTimeout() {
+        update(0, 0.5f);
+        int id = trackId(0);
+
+        update(500);
+        update(900, 0.5f);
+        assertEquals(id, trackId(0));
+
+        update(1500);
+        update(2000, 0.5f);
+        int next = trackId(0);
+        assertNotEquals(id, next);
+        // Ids are never reused
+        assertEquals(id + 1, next);
+    }
+
+    @Test
+    public void overallStatusIsTheMostUrgentLiveTrack() {
+        ActionStatus[] statuses = new ActionStatus[ActionFrame.MAX_PERSONS];
+        update(0, 0.2f, 0.8f);
+        statuses[0] = ActionStatus.WRITING;
+        statuses[1] = ActionStatus.PHONE_CONFIRMED;
+        assertEquals(ActionStatus.PHONE_CONFIRMED, tracker.smooth(frame, statuses));
+        assertEquals(ActionStatus.WRITING, statuses[0]);
+
+        // The phone user leaves; their track votes NO_PERSON until the writer is all that is left
+        ActionStatus overall = null;
+        for (long t = FRAME_MS; t < 500; t += FRAME_MS) {
+            update(t, 0.2f);
+            statuses[0] = ActionStatus.WRITING;
+            overall = tracker.smooth(frame, statuses);
+        }
+        assertEquals(ActionStatus.WRITING, overall);
+    }
+}
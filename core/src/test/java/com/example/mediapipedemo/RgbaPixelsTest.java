@@ -0,0 +1,56 @@
+package com.example.mediapipedemo;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.junit.Test;
+
+public class RgbaPixelsTest {
+    // 4x2 frame of two 2x2 blocks; every pixel of block b is (10 + b, 20 + b, 30 + b, 40 + b)
+    private static ByteBuffer twoBlocks(ByteOrder order) {
+        ByteBuffer frame = ByteBuffer.allocateDirect(4 * 2 * 4).order(order);
+        for (int pixel = 0; pixel < 8; pixel++) {
+            int block = (pixel % 4) / 2;
+            for (int channel = 0; channel < 4; channel++) {
+                frame.put(pixel * 4 + channel, (byte) (10 * (channel + 1) + block));
+            }
+        }
+        return frame;
+    }
+
+    @Test
+    public void halveKeepsChannelOrderWhateverTheByteOrders() {
+        ByteOrder[] orders = {ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN};
+        for (ByteOrder sourceOrder : orders) {
+            for (ByteOrder destOrder : orders) {
+                ByteBuffer half = ByteBuffer.allocateDirect(2 * 4).order(destOrder);
+
+                RgbaPixels.halve(twoBlocks(sourceOrder), 4, 2, 1, half);
+
+                assertEquals(8, half.remaining());
+                for (int i = 0; i < 8; i++) {
+                    assertEquals(10 * (i % 4 + 1) + i / 4, half.get(i));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void copyRegionReusesTheViewAcrossSources() {
+        RgbaPixels.ReadView view = new RgbaPixels.ReadView();
+        ByteBuffer crop = ByteBuffer.allocateDirect(4);
+        ByteBuffer first = twoBlocks(ByteOrder.nativeOrder());
+        ByteBuffer second = twoBlocks(ByteOrder.nativeOrder());
+        second.put(4 * 3, (byte) 99);
+
+        RgbaPixels.copyRegion(first, 4, 3, 0, 1, 1, crop, view);
+        assertEquals(11, crop.get(0));
+        RgbaPixels.copyRegion(second, 4, 3, 0, 1, 1, crop, view);
+        assertEquals(99, crop.get(0));
+        // The sources themselves are never moved
+        assertEquals(0, first.position());
+        assertEquals(first.capacity(), second.limit());
+    }
+}
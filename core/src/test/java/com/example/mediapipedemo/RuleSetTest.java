@@ -0,0 +1,125 @@
+package com.example.mediapipedemo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+
+public class RuleSetTest {
+    private static RuleSet parse(String text) throws IOException {
+        return RuleSet.parse("test.rules", new BufferedReader(new StringReader(text)));
+    }
+
+    private static float[] features(RuleSet.Feature feature, float value) {
+        float[] features = new float[RuleSet.FEATURE_COUNT];
+        features[feature.ordinal()] = value;
+        return features;
+    }
+
+    private static float[] features(RuleSet.Feature first, float firstValue, RuleSet.Feature second,
+            float secondValue) {
+        float[] features = features(first, firstValue);
+        features[second.ordinal()] = secondValue;
+        return features;
+    }
+
+    private static void assertParseError(String text, String message) {
+        try {
+            parse(text);
+            fail("parsed: " + text);
+        } catch (IOException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+
+    @Test
+    public void firstMatchingRuleWins() throws IOException {
+        RuleSet rules = parse("rule PHONE_CONFIRMED if phone_score > 0.6\n"
+                + "rule PHONE_SUSPECTED if phone_score > 0.3\n");
+
+        assertEquals(ActionStatus.PHONE_CONFIRMED, rules.evaluate(features(RuleSet.Feature.PHONE_SCORE, 0.9f)));
+        assertEquals(ActionStatus.PHONE_SUSPECTED, rules.evaluate(features(RuleSet.Feature.PHONE_SCORE, 0.5f)));
+        assertEquals(2, rules.getRuleCount());
+    }
+
+    @Test
+    public void everyConditionOfARuleMustHold() throws IOException {
+        RuleSet rules = parse("rule WRITING if hands_below_shoulders > 0.4 and hands_apart < 0.2\n"
+                + "rule PHONE_SUSPECTED if hands_apart >= 0.2\n"
+                + "default NO_PERSON\n");
+
+        assertEquals(ActionStatus.WRITING, rules.evaluate(features(RuleSet.Feature.HANDS_BELOW_SHOULDERS, 0.5f,
+                RuleSet.Feature.HANDS_APART, 0.1f)));
+        // The first rule fails on its second condition; the next rule must still be tried from its own start
+        assertEquals(ActionStatus.PHONE_SUSPECTED, rules.evaluate(features(RuleSet.Feature.HANDS_BELOW_SHOULDERS,
+                0.5f, RuleSet.Feature.HANDS_APART, 0.3f)));
+        assertEquals(ActionStatus.NO_PERSON, rules.evaluate(features(RuleSet.Feature.HANDS_BELOW_SHOULDERS, 0.1f)));
+    }
+
+    @Test
+    public void operatorsCompareAtTheBoundary() throws IOException {
+        float[] atHalf = features(RuleSet.Feature.OBJECT_SCORE, 0.5f);
+
+        assertEquals(ActionStatus.NORMAL, parse("rule WRITING if object_score < 0.5\n").evaluate(atHalf));
+        assertEquals(ActionStatus.WRITING, parse("rule WRITING if object_score <= 0.5\n").evaluate(atHalf));
+        assertEquals(ActionStatus.NORMAL, parse("rule WRITING if object_score > 0.5\n").evaluate(atHalf));
+        assertEquals(ActionStatus.WRITING, parse("rule WRITING if object_score >= 0.5\n").evaluate(atHalf));
+    }
+
+    @Test
+    public void readsParamAndSkipsCommentsAndBlankLines() throws IOException {
+        RuleSet rules = parse("# padding\n\n   param wrist_padding_px 80  \n");
+
+        assertEquals(80f, rules.getWristPaddingPx(), 0f);
+        assertEquals(0, rules.getRuleCount());
+        assertEquals(ActionStatus.NORMAL, rules.evaluate(new float[RuleSet.FEATURE_COUNT]));
+    }
+
+    @Test
+    public void defaultRulesTakeHandsLowAsWriting() {
+        RuleSet rules = RuleSet.defaults();
+
+        // No wrist motion condition until one is calibrated on real sessions
+        assertEquals(ActionStatus.WRITING, rules.evaluate(features(RuleSet.Feature.HANDS_BELOW_SHOULDERS_MEAN, 0.5f,
+                RuleSet.Feature.WRIST_SPEED_MEAN, 0f)));
+        assertEquals(ActionStatus.NORMAL, rules.evaluate(features(RuleSet.Feature.HANDS_BELOW_SHOULDERS_MEAN, 0.3f,
+                RuleSet.Feature.WRIST_SPEED_MEAN, 0.1f)));
+        float[] writingWithPhone = features(RuleSet.Feature.HANDS_BELOW_SHOULDERS_MEAN, 0.5f,
+                RuleSet.Feature.WRIST_SPEED_MEAN, 0.1f);
+        writingWithPhone[RuleSet.Feature.PHONE_SCORE.ordinal()] = 0.9f;
+        assertEquals(ActionStatus.PHONE_CONFIRMED, rules.evaluate(writingWithPhone));
+    }
+
+    @Test
+    public void errorsNameTheLine() {
+        assertParseError("# ok\n\nrules WRITING if hands_apart < 0.2\n", "test.rules:3: unknown line type rules");
+        assertParseError("rule WRITING if hand_apart < 0.2\n", "test.rules:1: unknown feature hand_apart");
+        assertParseError("rule WRITING if hands_apart == 0.2\n", "test.rules:1: unknown operator ==");
+        assertParseError("rule WRITING if hands_apart < 0.2 or phone_score > 0.5\n",
+                "test.rules:1: expected 'and', got or");
+        assertParseError("rule WRITING if hands_apart <\n",
+                "test.rules:1: expected: rule <STATUS> if <feature> <op> <value> [and ...]");
+        assertParseError("param wrist_margin_px 50\n", "test.rules:1: unknown param wrist_margin_px");
+        assertParseError("default\n", "test.rules:1: expected: default <STATUS>");
+    }
+
+    @Test
+    public void badValuesAndStatusesNameTheLine() {
+        for (String text : new String[] {
+                "default NORMAL\nrule WRITING if hands_apart < low\n",
+                "default NORMAL\nrule SLEEPING if hands_apart < 0.2\n",
+                "default NORMAL\nparam wrist_padding_px wide\n",
+        }) {
+            try {
+                parse(text);
+                fail("parsed: " + text);
+            } catch (IOException e) {
+                assertEquals("test.rules:2: ", e.getMessage().substring(0, "test.rules:2: ".length()));
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.mediapipedemo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/** With the pipeline's settings: a window of 10, enter at 6, exit at 3. */
+public class StatusSmootherTest {
+    private final StatusSmoother smoother = new StatusSmoother(10, 6, 3);
+
+    private void feed(ActionStatus status, int count) {
+        for (int i = 0; i < count; i++) {
+            smoother.update(status);
+        }
+    }
+
+    @Test
+    public void takesTheFirstStatusRightAway() {
+        assertTrue(smoother.update(ActionStatus.NORMAL));
+        assertEquals(ActionStatus.NORMAL, smoother.getSmoothed());
+    }
+
+    @Test
+    public void switchesOnceTheChallengerReachesTheEnterCount() {
+        feed(ActionStatus.NORMAL, 10);
+        feed(ActionStatus.WRITING, 5);
+        assertEquals(ActionStatus.NORMAL, smoother.getSmoothed());
+
+        assertTrue(smoother.update(ActionStatus.WRITING));
+        assertEquals(ActionStatus.WRITING, smoother.getSmoothed());
+    }
+
+    @Test
+    public void ignoresFlicker() {
+        feed(ActionStatus.NORMAL, 10);
+        for (int i = 0; i < 100; i++) {
+            assertFalse(smoother.update(i % 2 == 0 ? ActionStatus.PHONE_SUSPECTED : ActionStatus.NORMAL));
+        }
+        assertEquals(ActionStatus.NORMAL, smoother.getSmoothed());
+    }
+
+    @Test
+    public void aTieKeepsTheCurrentStatus() {
+        feed(ActionStatus.NORMAL, 10);
+        feed(ActionStatus.WRITING, 5);
+
+        assertEquals(ActionStatus.NORMAL, smoother.getSmoothed());
+    }
+
+    @Test
+    public void leavesAFadedStatusForTheMostFrequentOne() {
+        feed(ActionStatus.NORMAL, 10);
+        feed(ActionStatus.WRITING, 4);
+        feed(ActionStatus.PHONE_SUSPECTED, 2);
+        assertEquals(ActionStatus.NORMAL, smoother.getSmoothed());
+
+        // NORMAL is down to 3 of 10; WRITING leads with 4, short of the enter count
+        assertTrue(smoother.update(ActionStatus.PHONE_SUSPECTED));
+        assertEquals(ActionStatus.WRITING, smoother.getSmoothed());
+    }
+
+    @Test
+    public void resetForgetsTheWindow() {
+        feed(ActionStatus.NORMAL, 10);
+        smoother.reset();
+
+        assertTrue(smoother.update(ActionStatus.NO_PERSON));
+        assertEquals(ActionStatus.NO_PERSON, smoother.getSmoothed());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAnExitCountNotBelowTheEnterCount() {
+        new StatusSmoother(10, 6, 6);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAnEnterCountAboveTheWindow() {
+        new StatusSmoother(10, 11, 3);
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.mediapipedemo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class SubmissionGateTest {
+    private static final long EXPIRY_MS = 1000;
+
+    @Test
+    public void rejectsTimestampsThatDoNotAdvance() {
+        SubmissionGate gate = new SubmissionGate(4, EXPIRY_MS);
+
+        assertTrue(gate.beginSubmit(100));
+        assertFalse(gate.beginSubmit(100));
+        assertFalse(gate.beginSubmit(99));
+        assertTrue(gate.beginSubmit(101));
+
+        assertEquals(2, gate.getDropCount(SubmissionGate.DropReason.NON_MONOTONIC));
+        assertEquals(2, gate.getInFlightCount());
+    }
+
+    @Test
+    public void rejectionDoesNotMoveTheLastTimestampBack() {
+        SubmissionGate gate = new SubmissionGate(4, EXPIRY_MS);
+
+        assertTrue(gate.beginSubmit(200));
+        assertFalse(gate.beginSubmit(50));
+        // Still judged against 200, not 50
+        assertFalse(gate.beginSubmit(150));
+        assertTrue(gate.beginSubmit(201));
+    }
+
+    @Test
+    public void admitCountsWhyAFrameWasNotTaken() {
+        SubmissionGate gate = new SubmissionGate(1, EXPIRY_MS);
+
+        assertFalse(gate.admit(false, true, 0));
+        assertFalse(gate.admit(true, false, 0));
+        assertTrue(gate.admit(true, true, 0));
+        gate.beginSubmit(0);
+        assertFalse(gate.admit(true, true, 10));
+
+        assertEquals(1, gate.getDropCount(SubmissionGate.DropReason.NOT_READY));
+        assertEquals(1, gate.getDropCount(SubmissionGate.DropReason.NOT_DUE));
+        assertEquals(1, gate.getDropCount(SubmissionGate.DropReason.IN_FLIGHT_FULL));
+    }
+
+    @Test
+    public void resultRetiresItsSubmissionAndEveryEarlierOne() {
+        SubmissionGate gate = new SubmissionGate(3, EXPIRY_MS);
+        gate.beginSubmit(10);
+        gate.beginSubmit(20);
+        gate.beginSubmit(30);
+        assertFalse(gate.admit(true, true, 30));
+
+        // The graph dropped 10 without a callback
+        gate.onResult(20);
+
+        assertEquals(1, gate.getInFlightCount());
+        assertTrue(gate.admit(true, true, 40));
+    }
+
+    @Test
+    public void errorsAndFailedSubmitsFreeASlot() {
+        SubmissionGate gate = new SubmissionGate(2, EXPIRY_MS);
+        gate.beginSubmit(10);
+        gate.beginSubmit(20);
+
+        gate.onError();
+        assertEquals(1, gate.getInFlightCount());
+        gate.onSubmitFailed();
+        assertEquals(0, gate.getInFlightCount());
+        assertEquals(1, gate.getDropCount(SubmissionGate.DropReason.SUBMIT_FAILED));
+    }
+
+    @Test
+    public void unansweredSubmissionsExpire() {
+        SubmissionGate gate = new SubmissionGate(1, EXPIRY_MS);
+        gate.beginSubmit(100);
+
+        assertFalse(gate.admit(true, true, 100 + EXPIRY_MS));
+        assertTrue(gate.admit(true, true, 101 + EXPIRY_MS));
+        assertEquals(1, gate.getExpiredCount());
+        assertEquals(0, gate.getInFlightCount());
+    }
+
+    @Test
+    public void appendsEveryDropReason() {
+        SubmissionGate gate = new SubmissionGate(1, EXPIRY_MS);
+        gate.drop(SubmissionGate.DropReason.UNCHANGED);
+        gate.drop(SubmissionGate.DropReason.UNCHANGED);
+        StringBuilder out = new StringBuilder();
+
+        gate.appendDrops(out);
+
+        assertEquals("not_ready=0 not_due=0 in_flight=0 unchanged=2 non_monotonic=0 failed=0", out.toString());
+    }
+}
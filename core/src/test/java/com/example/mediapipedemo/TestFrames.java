@@ -0,0 +1,44 @@
+package com.example.mediapipedemo;
+
+/**
+ * Fused frames for the tests: people standing side by side with their wrists
+ * below the shoulders, a person box around each, and optionally a phone in
+ * the first person's hands.
+ */
+final class TestFrames {
+    static final int WIDTH = 480;
+    static final int HEIGHT = 640;
+
+    private TestFrames() {
+    }
+
+    /**
+     * Fills {@code frame} with {@code persons} people. {@code wristOffset}
+     * moves every wrist sideways (normalized), to make the hands move from
+     * frame to frame.
+     */
+    static ActionFrame people(ActionFrame frame, int persons, float wristOffset, boolean phone) {
+        frame.reset(WIDTH, HEIGHT);
+        for (int p = 0; p < persons; p++) {
+            float centerX = (p + 0.5f) / persons;
+            int person = frame.addPerson(ActionFrame.NUM_LANDMARKS);
+            for (int i = 0; i < ActionFrame.NUM_LANDMARKS; i++) {
+                frame.setLandmark(person, i, centerX, 0.15f + 0.7f * i / ActionFrame.NUM_LANDMARKS);
+            }
+            frame.setLandmark(person, ActionAnalyzer.LEFT_SHOULDER, centerX - 0.05f, 0.35f);
+            frame.setLandmark(person, ActionAnalyzer.RIGHT_SHOULDER, centerX + 0.05f, 0.35f);
+            frame.setLandmark(person, ActionAnalyzer.LEFT_WRIST, centerX - 0.02f + wristOffset, 0.55f);
+            frame.setLandmark(person, ActionAnalyzer.RIGHT_WRIST, centerX + 0.02f + wristOffset, 0.55f);
+            float boxX = centerX * WIDTH;
+            int box = frame.addDetection(boxX - 60f, 60f, boxX + 60f, HEIGHT - 40f);
+            frame.addCategory(box, LabelMap.PERSON, 0.9f);
+        }
+        if (phone && persons > 0) {
+            float x = 0.5f / persons * WIDTH;
+            float y = 0.55f * HEIGHT;
+            int box = frame.addDetection(x - 30f, y - 40f, x + 30f, y + 40f);
+            frame.addCategory(box, LabelMap.CELL_PHONE, 0.8f);
+        }
+        return frame;
+    }
+}
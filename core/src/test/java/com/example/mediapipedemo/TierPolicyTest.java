@@ -0,0 +1,107 @@
+package com.example.mediapipedemo;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/** Three tiers, starting on the middle one, with a 100 ms target. */
+public class TierPolicyTest {
+    private static final long TARGET_MS = 100;
+    private static final float OVER = 150f;
+    private static final float UNDER = 40f;
+    // Below the target but above the upgrade headroom
+    private static final float NEAR = 80f;
+    private static final long INTERVAL_MS = 2000;
+
+    private final TierPolicy policy = new TierPolicy(3, TARGET_MS);
+    private long now;
+
+    @Before
+    public void setUp() {
+        policy.start(now);
+        now += TierPolicy.SETTLE_MS;
+    }
+
+    private int evaluate(float latencyMs, boolean pressure, int current) {
+        int index = policy.evaluate(latencyMs, pressure, current, now);
+        now += INTERVAL_MS;
+        return index;
+    }
+
+    @Test
+    public void dropsATierAfterConsecutiveOverTarget() {
+        assertEquals(-1, evaluate(OVER, false, 1));
+        assertEquals(0, evaluate(OVER, false, 1));
+    }
+
+    @Test
+    public void pressureCountsAsOver() {
+        assertEquals(-1, evaluate(UNDER, true, 1));
+        assertEquals(0, evaluate(UNDER, true, 1));
+    }
+
+    @Test
+    public void anEvaluationInBetweenResetsTheCount() {
+        assertEquals(-1, evaluate(OVER, false, 1));
+        assertEquals(-1, evaluate(NEAR, false, 1));
+        assertEquals(-1, evaluate(OVER, false, 1));
+        assertEquals(0, evaluate(OVER, false, 1));
+    }
+
+    @Test
+    public void goesUpOnlyAfterAllUnderEvaluations() {
+        for (int i = 1; i < TierPolicy.UPGRADE_EVALUATIONS; i++) {
+            assertEquals(-1, evaluate(UNDER, false, 1));
+        }
+        assertEquals(2, evaluate(UNDER, false, 1));
+    }
+
+    @Test
+    public void staysAtTheEnds() {
+        for (int i = 0; i < 10; i++) {
+            assertEquals(-1, evaluate(OVER, false, 0));
+        }
+        for (int i = 0; i < 10; i++) {
+            assertEquals(-1, evaluate(UNDER, false, 2));
+        }
+    }
+
+    @Test
+    public void judgesNothingWithoutLatencyOrBeforeSettling() {
+        assertEquals(-1, evaluate(-1f, false, 1));
+        assertEquals(-1, evaluate(OVER, false, 1));
+        policy.onSwitch(0, true, now);
+
+        // Two overs that would drop a tier, but within the settle time
+        assertEquals(-1, policy.evaluate(OVER, false, 0, now + 1));
+        assertEquals(-1, policy.evaluate(OVER, false, 0, now + TierPolicy.SETTLE_MS - 1));
+    }
+
+    @Test
+    public void doesNotGoBackUpToATierJustDroppedFrom() {
+        evaluate(OVER, false, 2);
+        assertEquals(1, evaluate(OVER, false, 2));
+        policy.onSwitch(1, true, now);
+        now += TierPolicy.SETTLE_MS;
+
+        for (int i = 0; i < TierPolicy.UPGRADE_EVALUATIONS * 2; i++) {
+            assertEquals(-1, evaluate(UNDER, false, 1));
+        }
+        now += TierPolicy.RETRY_BLOCK_MS;
+        assertEquals(2, evaluate(UNDER, false, 1));
+    }
+
+    @Test
+    public void skipsATierThatFailedToLoad() {
+        evaluate(OVER, false, 1);
+        assertEquals(0, evaluate(OVER, false, 1));
+        policy.onSwitch(0, false, now);
+        now += TierPolicy.SETTLE_MS + TierPolicy.RETRY_BLOCK_MS;
+
+        // Still on 1; tier 0 is out for good, so there is nowhere to go down to
+        for (int i = 0; i < 10; i++) {
+            assertEquals(-1, evaluate(OVER, false, 1));
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.mediapipedemo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Frames written by {@link TimelineRecorder} and read back by time range through {@link TimelineReader}. */
+public class TimelineTest {
+    private static final long FRAME_MS = 33;
+    // Below the recorder's ring capacity, so nothing is dropped however the writer is scheduled
+    private static final int FRAMES = 200;
+    private static final float COORD_TOLERANCE = 1f / TimelineFormat.COORD_SCALE;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /** Runs frames through a pipeline and records them from {@code startMs}; returns the last frame. */
+    private static ActionFrame record(File directory, long startMs, int frames) throws IOException {
+        ActionPipeline pipeline = new ActionPipeline();
+        ActionFrame frame = new ActionFrame();
+        TimelineRecorder recorder = new TimelineRecorder(directory);
+        try {
+            for (int i = 0; i < frames; i++) {
+                long timestampMs = startMs + i * FRAME_MS;
+                TestFrames.people(frame, 2, 0f, true);
+                ActionStatus overall = pipeline.process(frame, timestampMs, timestampMs);
+                recorder.record(timestampMs, frame, pipeline.getPersonStatuses(), overall,
+                        pipeline.getPersonTracker());
+            }
+        } finally {
+            recorder.close();
+        }
+        assertEquals(frames, recorder.getWrittenCount());
+        assertEquals(0, recorder.getDroppedCount());
+        assertNull(recorder.getFailure());
+        return frame;
+    }
+
+    private static List<Long> timestamps(File directory, long fromMs, long toMs) throws IOException {
+        List<Long> timestamps = new ArrayList<>();
+        int visited = new TimelineReader(directory).query(fromMs, toMs,
+                (segment, offset) -> timestamps.add(TimelineFormat.timestampMs(segment, offset)));
+        assertEquals(timestamps.size(), visited);
+        return timestamps;
+    }
+
+    @Test
+    public void queryReturnsTheRecordsInRangeInOrder() throws IOException {
+        File directory = folder.getRoot();
+        record(directory, 0, FRAMES);
+
+        List<Long> timestamps = timestamps(directory, 50 * FRAME_MS, 99 * FRAME_MS);
+
+        assertEquals(50, timestamps.size());
+        for (int i = 0; i < timestamps.size(); i++) {
+            assertEquals((50 + i) * FRAME_MS, (long) timestamps.get(i));
+        }
+        // Bounds between two records
+        assertEquals(50, timestamps(directory, 50 * FRAME_MS - 1, 100 * FRAME_MS - 1).size());
+        assertEquals(0, timestamps(directory, FRAMES * FRAME_MS, Long.MAX_VALUE).size());
+    }
+
+    @Test
+    public void recordsDecodeToWhatWasAnalyzed() throws IOException {
+        File directory = folder.getRoot();
+        ActionFrame last = record(directory, 0, FRAMES);
+        long lastMs = (FRAMES - 1) * FRAME_MS;
+
+        new TimelineReader(directory).query(lastMs, lastMs, (segment, offset) -> {
+            assertEquals(2, TimelineFormat.personCount(segment, offset));
+            assertEquals(last.getDetectionCount(), TimelineFormat.detectionCount(segment, offset));
+            assertEquals(ActionStatus.PHONE_CONFIRMED, TimelineFormat.overallStatus(segment, offset));
+            assertEquals(ActionStatus.PHONE_CONFIRMED, TimelineFormat.personStatus(segment, offset, 0));
+            // Two people tracked from the first frame
+            assertEquals(1, TimelineFormat.personTrackId(segment, offset, 0));
+            assertEquals(2, TimelineFormat.personTrackId(segment, offset, 1));
+            int wrist = ActionFrame.landmarkOffset(0) + ActionAnalyzer.LEFT_WRIST * 2;
+            assertEquals(last.landmarks[wrist], TimelineFormat.keyLandmarkX(segment, offset, 0, 3), COORD_TOLERANCE);
+            assertEquals(last.landmarks[wrist + 1], TimelineFormat.keyLandmarkY(segment, offset, 0, 3),
+                    COORD_TOLERANCE);
+            assertEquals(LabelMap.CELL_PHONE, TimelineFormat.detectionLabelId(segment, offset, 2));
+            assertEquals(0.8f, TimelineFormat.detectionScore(segment, offset, 2), 1f / 255);
+        });
+    }
+
+    @Test
+    public void reopeningAppendsANewSegment() throws IOException {
+        File directory = folder.getRoot();
+        record(directory, 0, FRAMES);
+        record(directory, FRAMES * FRAME_MS, FRAMES);
+
+        List<Long> timestamps = timestamps(directory, 0, Long.MAX_VALUE);
+
+        assertEquals(2 * FRAMES, timestamps.size());
+        for (int i = 0; i < timestamps.size(); i++) {
+            assertEquals(i * FRAME_MS, (long) timestamps.get(i));
+        }
+        // A range across the boundary of the two segments
+        assertEquals(20, timestamps(directory, (FRAMES - 10) * FRAME_MS, (FRAMES + 9) * FRAME_MS).size());
+    }
+
+    @Test
+    public void anEmptyDirectoryHasNoRecords() throws IOException {
+        assertEquals(0, timestamps(folder.getRoot(), 0, Long.MAX_VALUE).size());
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.mediapipedemo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * The per-frame paths the fusion consumer runs must not allocate: the rules,
+ * the landmark filter, the status smoother, and the pipeline that chains them.
+ * Nor must the pixel copies of the zero-copy path, given pooled buffers.
+ *
+ * Each is warmed up, then run for several rounds of many frames while the
+ * thread's allocated bytes are counted. The JIT can deoptimize mid-round, and
+ * that allocates a little on its own, so the quietest round is what must come
+ * out at exactly 0; an allocation per frame would show in every round.
+ */
+public class ZeroAllocationTest {
+    private static final int WARM_UP_FRAMES = 10_000;
+    private static final int MEASURED_FRAMES = 5_000;
+    private static final int ROUNDS = 5;
+    private static final long FRAME_MS = 33;
+
+    private com.sun.management.ThreadMXBean threads;
+    private long threadId;
+
+    private interface Frames {
+        void run(int count);
+    }
+
+    @Before
+    public void setUp() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue("Allocation counting needs a HotSpot JVM", bean instanceof com.sun.management.ThreadMXBean);
+        threads = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue("Allocation counting is not supported", threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        threadId = Thread.currentThread().getId();
+    }
+
+    @Test
+    public void analyzeAllocatesNothing() {
+        ActionAnalyzer analyzer = new ActionAnalyzer();
+        ActionStatus[] statuses = new ActionStatus[ActionFrame.MAX_PERSONS];
+        ActionFrame[] frames = {
+                TestFrames.people(new ActionFrame(), 1, 0f, false),
+                TestFrames.people(new ActionFrame(), 3, 0.01f, true),
+                TestFrames.people(new ActionFrame(), 0, 0f, false),
+        };
+
+        assertEquals(0, leastAllocated(count -> {
+            for (int i = 0; i < count; i++) {
+                analyzer.analyze(frames[i % frames.length], statuses);
+            }
+        }));
+    }
+
+    @Test
+    public void landmarkFilterAllocatesNothing() {
+        LandmarkFilter filter = new LandmarkFilter(ActionPipeline.LANDMARK_MIN_CUTOFF_HZ,
+                ActionPipeline.LANDMARK_BETA, ActionPipeline.LANDMARK_DERIVATIVE_CUTOFF_HZ);
+        ActionFrame source = TestFrames.people(new ActionFrame(), 1, 0f, false);
+        ActionFrame frame = new ActionFrame();
+        long[] time = new long[1];
+
+        // Pose results on every other frame and prediction in between, as when pose runs at half rate
+        assertEquals(0, leastAllocated(count -> {
+            for (int i = 0; i < count; i++) {
+                long now = time[0] += FRAME_MS;
+                frame.copyFrom(source);
+                filter.apply(frame, 0, now - (i & 1) * FRAME_MS, now);
+            }
+        }));
+    }
+
+    @Test
+    public void statusSmootherAllocatesNothing() {
+        StatusSmoother smoother = new StatusSmoother(ActionPipeline.SMOOTHING_WINDOW_SIZE,
+                ActionPipeline.SMOOTHING_ENTER_COUNT, ActionPipeline.SMOOTHING_EXIT_COUNT);
+        ActionStatus[] statuses = ActionStatus.values();
+
+        assertEquals(0, leastAllocated(count -> {
+            for (int i = 0; i < count; i++) {
+                smoother.update(statuses[(i / 7) % statuses.length]);
+            }
+        }));
+    }
+
+    @Test
+    public void pipelineAllocatesNothing() {
+        ActionPipeline pipeline = new ActionPipeline();
+        ActionFrame[] sources = {
+                TestFrames.people(new ActionFrame(), 2, 0f, false),
+                TestFrames.people(new ActionFrame(), 2, 0.01f, true),
+        };
+        ActionFrame frame = new ActionFrame();
+        long[] time = new long[1];
+
+        assertEquals(0, leastAllocated(count -> {
+            for (int i = 0; i < count; i++) {
+                long now = time[0] += FRAME_MS;
+                frame.copyFrom(sources[(i / 2) % sources.length]);
+                pipeline.process(frame, now - (i & 1) * FRAME_MS, now);
+            }
+        }));
+    }
+
+    @Test
+    public void pixelCopiesAllocateNothing() {
+        int width = 64;
+        int height = 48;
+        int rowStride = width * 4 + 16;
+        ByteBuffer padded = ByteBuffer.allocateDirect(rowStride * height).order(ByteOrder.nativeOrder());
+        ByteBuffer frame = ByteBuffer.allocateDirect(width * height * 4).order(ByteOrder.nativeOrder());
+        ByteBuffer copy = ByteBuffer.allocateDirect(width * height * 4).order(ByteOrder.nativeOrder());
+        ByteBuffer crop = ByteBuffer.allocateDirect(width * height).order(ByteOrder.nativeOrder());
+        ByteBuffer half = ByteBuffer.allocateDirect(width * height).order(ByteOrder.nativeOrder());
+        RgbaPixels.ReadView view = new RgbaPixels.ReadView();
+
+        assertEquals(0, leastAllocated(count -> {
+            for (int i = 0; i < count; i++) {
+                RgbaPixels.compactRows(padded, rowStride, width * 4, height, frame);
+                RgbaPixels.copy(frame, width * height * 4, copy, view);
+                RgbaPixels.copyRegion(frame, width, i % 16, i % 8, 32, 24, crop, view);
+                RgbaPixels.halve(frame, width, width / 2, height / 2, half);
+            }
+        }));
+    }
+
+    /** Warms {@code frames} up, then returns the fewest bytes any measured round allocated. */
+    private long leastAllocated(Frames frames) {
+        frames.run(WARM_UP_FRAMES);
+        long least = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long before = threads.getThreadAllocatedBytes(threadId);
+            frames.run(MEASURED_FRAMES);
+            least = Math.min(least, threads.getThreadAllocatedBytes(threadId) - before);
+        }
+        return least;
+    }
+}
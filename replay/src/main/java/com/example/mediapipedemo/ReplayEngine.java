@@ -0,0 +1,106 @@
+package com.example.mediapipedemo;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Streams a {@link ReplayRecording} through a fresh {@link ActionPipeline} as
+ * fast as it will go, checking every expected status and measuring throughput
+ * and heap allocation on the way.
+ *
+ * Each pass starts from new pipeline state and the pipeline only sees the
+ * recorded timestamps, never the clock, so every pass produces the same
+ * statuses.
+ */
+public class ReplayEngine {
+    private final ActionFrame frame = new ActionFrame();
+    private final com.sun.management.ThreadMXBean threads = allocationCounter();
+    private final RuleSet ruleSet;
+
+    public ReplayEngine(RuleSet ruleSet) {
+        this.ruleSet = ruleSet;
+    }
+
+    public static final class Result {
+        private long frames;
+        private long mismatches;
+        private String firstMismatch;
+        private long elapsedNanos;
+        private long allocatedBytes = -1;
+
+        public long getFrames() {
+            return frames;
+        }
+
+        /** Frames whose smoothed status differed from the recorded expectation. */
+        public long getMismatches() {
+            return mismatches;
+        }
+
+        /** Describes the first mismatch, or null if there was none. */
+        public String getFirstMismatch() {
+            return firstMismatch;
+        }
+
+        public double getFramesPerSecond() {
+            return elapsedNanos > 0 ? frames * 1e9 / elapsedNanos : 0;
+        }
+
+        public double getNanosPerFrame() {
+            return frames > 0 ? (double) elapsedNanos / frames : 0;
+        }
+
+        /** Heap bytes allocated per frame, or -1 if this JVM cannot tell. */
+        public double getAllocatedBytesPerFrame() {
+            return allocatedBytes >= 0 && frames > 0 ? (double) allocatedBytes / frames : -1;
+        }
+    }
+
+    /** Replays {@code recording} {@code passes} times over. */
+    public Result run(ReplayRecording recording, int passes) {
+        Result result = new Result();
+        boolean countAllocations = threads != null;
+        if (countAllocations) {
+            result.allocatedBytes = 0;
+        }
+        long threadId = Thread.currentThread().getId();
+        int frames = recording.getFrameCount();
+        for (int pass = 0; pass < passes; pass++) {
+            ActionPipeline pipeline = new ActionPipeline();
+            pipeline.setRuleSet(ruleSet);
+            long allocatedBefore = countAllocations ? threads.getThreadAllocatedBytes(threadId) : 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < frames; i++) {
+                frame.copyFrom(recording.getFrame(i));
+                ActionStatus status = pipeline.process(frame,
+                        recording.getPoseTimestampMs(i), recording.getDisplayTimestampMs(i));
+                ActionStatus expected = recording.getExpectedStatus(i);
+                if (expected != null && expected != status) {
+                    if (result.mismatches++ == 0) {
+                        result.firstMismatch = recording.getName() + " frame " + i + " at "
+                                + recording.getDisplayTimestampMs(i) + "ms: expected " + expected
+                                + ", got " + status;
+                    }
+                }
+            }
+            result.elapsedNanos += System.nanoTime() - start;
+            if (countAllocations) {
+                result.allocatedBytes += threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+            }
+            result.frames += frames;
+        }
+        return result;
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        if (!threads.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+        return threads;
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.mediapipedemo;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Replays recordings through the action pipeline on a plain JVM: first one
+ * pass that checks the expected statuses, then warm-up passes, then timed
+ * passes reporting frames per second and bytes allocated per frame.
+ *
+ * Usage: {@code ReplayMain [--warmup N] [--iterations N] [--rules file] [file.replay ...]}.
+ * With no files, replays the scenarios bundled as resources; without
+ * {@code --rules}, uses the default rules. Exits with status 1 if any frame
+ * came out with the wrong status.
+ */
+public class ReplayMain {
+    static final String[] BUNDLED_SCENARIOS = {
+            "scenarios/single_person.replay",
+            "scenarios/two_people.replay",
+    };
+
+    private static final int DEFAULT_WARMUP_PASSES = 50;
+    private static final int DEFAULT_TIMED_PASSES = 200;
+
+    public static void main(String[] args) throws IOException {
+        int warmupPasses = DEFAULT_WARMUP_PASSES;
+        int timedPasses = DEFAULT_TIMED_PASSES;
+        RuleSet ruleSet = RuleSet.defaults();
+        List<String> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if ("--warmup".equals(args[i]) && i + 1 < args.length) {
+                warmupPasses = Integer.parseInt(args[++i]);
+            } else if ("--iterations".equals(args[i]) && i + 1 < args.length) {
+                timedPasses = Integer.parseInt(args[++i]);
+            } else if ("--rules".equals(args[i]) && i + 1 < args.length) {
+                String rules = args[++i];
+                try (BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(new FileInputStream(rules), StandardCharsets.UTF_8))) {
+                    ruleSet = RuleSet.parse(rules, reader);
+                }
+            } else {
+                files.add(args[i]);
+            }
+        }
+
+        List<ReplayRecording> recordings = new ArrayList<>();
+        if (files.isEmpty()) {
+            for (String scenario : BUNDLED_SCENARIOS) {
+                InputStream in = ReplayMain.class.getClassLoader().getResourceAsStream(scenario);
+                if (in == null) {
+                    throw new IOException("Missing bundled scenario " + scenario);
+                }
+                recordings.add(load(scenario, in));
+            }
+        } else {
+            for (String file : files) {
+                recordings.add(load(file, new FileInputStream(file)));
+            }
+        }
+
+        ReplayEngine engine = new ReplayEngine(ruleSet);
+        boolean failed = false;
+        for (ReplayRecording recording : recordings) {
+            ReplayEngine.Result check = engine.run(recording, 1);
+            if (check.getMismatches() > 0) {
+                failed = true;
+                System.out.println("FAIL " + check.getFirstMismatch() + " (" + check.getMismatches()
+                        + " of " + check.getFrames() + " frames wrong)");
+            }
+
+            engine.run(recording, warmupPasses);
+            ReplayEngine.Result timed = engine.run(recording, timedPasses);
+            System.out.println(String.format(Locale.US,
+                    "%s %s: %d frames, %.0f fps, %.0f ns/frame, %s",
+                    check.getMismatches() > 0 ? "FAIL" : "ok", recording.getName(),
+                    recording.getFrameCount(), timed.getFramesPerSecond(), timed.getNanosPerFrame(),
+                    timed.getAllocatedBytesPerFrame() >= 0
+                            ? String.format(Locale.US, "%.2f B/frame allocated", timed.getAllocatedBytesPerFrame())
+                            : "allocations not measurable on this JVM"));
+        }
+        if (failed) {
+            System.exit(1);
+        }
+    }
+
+    static ReplayRecording load(String name, InputStream in) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            return ReplayRecording.parse(name, reader);
+        }
+    }
+}
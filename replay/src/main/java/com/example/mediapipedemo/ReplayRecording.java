@@ -0,0 +1,139 @@
+package com.example.mediapipedemo;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A recorded sequence of fused frames to replay through {@link ActionPipeline},
+ * parsed from a line-based text file:
+ *
+ * <pre>
+ * # comment
+ * frame &lt;display ms&gt; &lt;pose ms | -&gt; &lt;width&gt; &lt;height&gt; [&lt;expected status&gt;]
+ * person &lt;x0&gt; &lt;y0&gt; &lt;x1&gt; &lt;y1&gt; ...
+ * det &lt;left&gt; &lt;top&gt; &lt;right&gt; &lt;bottom&gt; &lt;label id&gt;:&lt;score&gt; ...
+ * </pre>
+ *
+ * {@code person} and {@code det} lines belong to the {@code frame} line above
+ * them. Landmarks are normalized and boxes in pixels, both already in the
+ * upright frame; label ids are the {@link LabelMap} ones. A pose time of
+ * {@code -} means the frame has no pose result. The expected status, if given,
+ * is the smoothed overall status the frame must come out with.
+ */
+public final class ReplayRecording {
+    private final String name;
+    private final ActionFrame[] frames;
+    private final long[] displayTimestampsMs;
+    private final long[] poseTimestampsMs;
+    private final ActionStatus[] expectedStatuses;
+
+    private ReplayRecording(String name, List<ActionFrame> frames, List<long[]> timestamps,
+            List<ActionStatus> expectedStatuses) {
+        this.name = name;
+        this.frames = frames.toArray(new ActionFrame[0]);
+        this.displayTimestampsMs = new long[frames.size()];
+        this.poseTimestampsMs = new long[frames.size()];
+        for (int i = 0; i < frames.size(); i++) {
+            displayTimestampsMs[i] = timestamps.get(i)[0];
+            poseTimestampsMs[i] = timestamps.get(i)[1];
+        }
+        this.expectedStatuses = expectedStatuses.toArray(new ActionStatus[0]);
+    }
+
+    public static ReplayRecording parse(String name, BufferedReader reader) throws IOException {
+        List<ActionFrame> frames = new ArrayList<>();
+        List<long[]> timestamps = new ArrayList<>();
+        List<ActionStatus> expected = new ArrayList<>();
+        ActionFrame frame = null;
+        int lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] tokens = line.split("\\s+");
+            try {
+                switch (tokens[0]) {
+                    case "frame":
+                        frame = new ActionFrame();
+                        frame.reset(Integer.parseInt(tokens[3]), Integer.parseInt(tokens[4]));
+                        frames.add(frame);
+                        timestamps.add(new long[] {
+                                Long.parseLong(tokens[1]),
+                                "-".equals(tokens[2]) ? Long.MIN_VALUE : Long.parseLong(tokens[2])
+                        });
+                        expected.add(tokens.length > 5 ? ActionStatus.valueOf(tokens[5]) : null);
+                        break;
+                    case "person":
+                        requireFrame(frame);
+                        int count = (tokens.length - 1) / 2;
+                        int person = frame.addPerson(count);
+                        if (person < 0) {
+                            throw new IllegalArgumentException("more than " + ActionFrame.MAX_PERSONS + " people");
+                        }
+                        for (int i = 0; i < count; i++) {
+                            frame.setLandmark(person, i,
+                                    Float.parseFloat(tokens[1 + i * 2]), Float.parseFloat(tokens[2 + i * 2]));
+                        }
+                        break;
+                    case "det":
+                        requireFrame(frame);
+                        int detection = frame.addDetection(Float.parseFloat(tokens[1]), Float.parseFloat(tokens[2]),
+                                Float.parseFloat(tokens[3]), Float.parseFloat(tokens[4]));
+                        if (detection < 0) {
+                            throw new IllegalArgumentException(
+                                    "more than " + ActionFrame.MAX_DETECTIONS + " detections");
+                        }
+                        for (int i = 5; i < tokens.length; i++) {
+                            int colon = tokens[i].indexOf(':');
+                            frame.addCategory(detection, Integer.parseInt(tokens[i].substring(0, colon)),
+                                    Float.parseFloat(tokens[i].substring(colon + 1)));
+                        }
+                        break;
+                    default:
+                        throw new IllegalArgumentException("unknown line type " + tokens[0]);
+                }
+            } catch (RuntimeException e) {
+                throw new IOException(name + ":" + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+        return new ReplayRecording(name, frames, timestamps, expected);
+    }
+
+    private static void requireFrame(ActionFrame frame) {
+        if (frame == null) {
+            throw new IllegalArgumentException("no frame line before this one");
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getFrameCount() {
+        return frames.length;
+    }
+
+    /** The recorded frame; replay a copy, the pipeline overwrites the landmarks. */
+    public ActionFrame getFrame(int index) {
+        return frames[index];
+    }
+
+    public long getDisplayTimestampMs(int index) {
+        return displayTimestampsMs[index];
+    }
+
+    /** When the frame's pose was measured, or Long.MIN_VALUE if it has none. */
+    public long getPoseTimestampMs(int index) {
+        return poseTimestampsMs[index];
+    }
+
+    /** The status the frame must produce, or null if it is not checked. */
+    public ActionStatus getExpectedStatus(int index) {
+        return expectedStatuses[index];
+    }
+}
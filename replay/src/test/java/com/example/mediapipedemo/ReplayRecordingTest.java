@@ -0,0 +1,62 @@
+package com.example.mediapipedemo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+
+public class ReplayRecordingTest {
+    private static ReplayRecording parse(String text) throws IOException {
+        return ReplayRecording.parse("test.replay", new BufferedReader(new StringReader(text)));
+    }
+
+    private static void assertParseError(String text, String message) {
+        try {
+            parse(text);
+            fail("parsed: " + text);
+        } catch (IOException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+
+    @Test
+    public void readsFramesPeopleAndDetections() throws IOException {
+        ReplayRecording recording = parse("# two frames\n"
+                + "frame 0 - 640 480\n"
+                + "\n"
+                + "frame 33 20 640 480 PHONE_CONFIRMED\n"
+                + "person 0.1 0.2 0.3 0.4\n"
+                + "det 10 20 110 220 67:0.9 0:0.4\n");
+
+        assertEquals(2, recording.getFrameCount());
+        assertEquals(Long.MIN_VALUE, recording.getPoseTimestampMs(0));
+        assertNull(recording.getExpectedStatus(0));
+        assertEquals(33, recording.getDisplayTimestampMs(1));
+        assertEquals(20, recording.getPoseTimestampMs(1));
+        assertEquals(ActionStatus.PHONE_CONFIRMED, recording.getExpectedStatus(1));
+
+        ActionFrame frame = recording.getFrame(1);
+        assertEquals(640, frame.imageWidth);
+        assertEquals(1, frame.personCount);
+        assertEquals(2, frame.landmarkCounts[0]);
+        assertEquals(0.3f, frame.landmarks[ActionFrame.landmarkOffset(0) + 2], 0f);
+        assertEquals(1, frame.getDetectionCount());
+        assertEquals(2, frame.categoryCounts[0]);
+        assertEquals(110f, frame.boxes[2], 0f);
+        assertEquals(67, frame.labelIds[0]);
+        assertEquals(0.9f, frame.scores[0], 0f);
+    }
+
+    @Test
+    public void errorsNameTheLine() {
+        assertParseError("# header\nperson 0.1 0.2\n", "test.replay:2: no frame line before this one");
+        assertParseError("frame 0 - 640 480\npose 0.1 0.2\n", "test.replay:2: unknown line type pose");
+        assertParseError("frame 0 - 640 480 SLEEPING\n",
+                "test.replay:1: No enum constant com.example.mediapipedemo.ActionStatus.SLEEPING");
+    }
+}
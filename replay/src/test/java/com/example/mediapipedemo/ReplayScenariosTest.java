@@ -0,0 +1,60 @@
+package com.example.mediapipedemo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+
+/** The bundled scenarios, replayed once each through the default rules. */
+public class ReplayScenariosTest {
+    private static ReplayRecording bundled(String scenario) throws IOException {
+        InputStream in = ReplayMain.class.getClassLoader().getResourceAsStream(scenario);
+        assertNotNull("missing " + scenario, in);
+        return ReplayMain.load(scenario, in);
+    }
+
+    @Test
+    public void everyScenarioComesOutAsExpected() throws IOException {
+        ReplayEngine engine = new ReplayEngine(RuleSet.defaults());
+        for (String scenario : ReplayMain.BUNDLED_SCENARIOS) {
+            ReplayEngine.Result result = engine.run(bundled(scenario), 1);
+
+            assertEquals(result.getFirstMismatch(), 0, result.getMismatches());
+        }
+    }
+
+    @Test
+    public void restingHandsNeedTheWristMotionCondition() throws IOException {
+        ReplayRecording restingHands = bundled("scenarios/resting_hands.replay");
+        // The defaults with their commented-out WRITING rule swapped in
+        String rules = RuleSet.DEFAULT_RULES
+                .replace("rule WRITING if hands_below_shoulders_mean > 0.45\n", "")
+                .replace("#   rule WRITING", "rule WRITING");
+        RuleSet withMotion = RuleSet.parse("with motion", new BufferedReader(new StringReader(rules)));
+
+        assertTrue(new ReplayEngine(RuleSet.defaults()).run(restingHands, 1).getMismatches() > 0);
+        assertEquals(0, new ReplayEngine(withMotion).run(restingHands, 1).getMismatches());
+        for (String scenario : ReplayMain.BUNDLED_SCENARIOS) {
+            ReplayEngine.Result result = new ReplayEngine(withMotion).run(bundled(scenario), 1);
+
+            assertEquals(result.getFirstMismatch(), 0, result.getMismatches());
+        }
+    }
+
+    @Test
+    public void passesAreRepeatable() throws IOException {
+        ReplayRecording recording = bundled(ReplayMain.BUNDLED_SCENARIOS[0]);
+        ReplayEngine engine = new ReplayEngine(RuleSet.defaults());
+
+        ReplayEngine.Result result = engine.run(recording, 3);
+
+        assertEquals(3L * recording.getFrameCount(), result.getFrames());
+        assertEquals(0, result.getMismatches());
+    }
+}